@@ -0,0 +1,86 @@
+package no.ntnu.iir.idata.gr9.backend.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSort;
+import no.ntnu.iir.idata.gr9.backend.service.CourseCatalogService;
+import no.ntnu.iir.idata.gr9.backend.service.CoursePopularityRanking;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Tags the responses of the public course endpoints with the catalog version.
+ * <p>Course reads are answered from the catalog, and the export streams the database the
+ * catalog is reloaded from, so a client that sends the entity tag of the current version in
+ * {@code If-None-Match} is answered with 304 Not Modified before the controller runs, without
+ * touching the repositories or serializing anything. Suggestions and listings ordered by
+ * popularity also depend on the popularity ranking, which changes without a new catalog
+ * version, so their tag holds the ranking version too.</p>
+ */
+@Component
+public class CatalogEtagInterceptor implements HandlerInterceptor {
+  /**
+   * Lets clients and proxies store the responses, but makes them revalidate before reuse.
+   */
+  private static final String CACHE_CONTROL =
+      CacheControl.noCache().cachePublic().getHeaderValue();
+
+  private final CourseCatalogService catalogService;
+  private final CoursePopularityRanking popularityRanking;
+
+  /**
+   * Creates a new CatalogEtagInterceptor.
+   *
+   * @param catalogService    the service holding the in-memory course catalog
+   * @param popularityRanking the ranking of the courses by orders and favorites
+   */
+  public CatalogEtagInterceptor(CourseCatalogService catalogService,
+                                CoursePopularityRanking popularityRanking) {
+    this.catalogService = catalogService;
+    this.popularityRanking = popularityRanking;
+  }
+
+  /**
+   * Adds the entity tag and cache headers to reads, and answers conditional reads of an
+   * unchanged catalog with 304 Not Modified.
+   *
+   * @param request  the current request
+   * @param response the current response
+   * @param handler  the handler of the request
+   * @return false if the request has been answered with 304, true otherwise
+   */
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                           Object handler) {
+    String method = request.getMethod();
+    if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+      return true;
+    }
+    // Taken before the response is built, so a concurrent change can only make the tag older
+    String entityTag = this.catalogService.getEntityTag();
+    if (isRankedByPopularity(request)) {
+      entityTag = entityTag.substring(0, entityTag.length() - 1) + "-"
+          + this.popularityRanking.getVersion() + "\"";
+    }
+    response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+    return !new ServletWebRequest(request, response).checkNotModified(entityTag);
+  }
+
+  /**
+   * Checks if the response to a request depends on the popularity ranking, which is the case
+   * for suggestions and for listings ordered by popularity.
+   *
+   * @param request the request
+   * @return true if the response changes with the popularity of the courses
+   */
+  static boolean isRankedByPopularity(HttpServletRequest request) {
+    String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+    return path.equals("/courses/suggest")
+        || CourseSort.POPULAR.getParameterValue().equalsIgnoreCase(request.getParameter("sort"));
+  }
+}
@@ -0,0 +1,194 @@
+package no.ntnu.iir.idata.gr9.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import no.ntnu.iir.idata.gr9.backend.controller.CourseController;
+import no.ntnu.iir.idata.gr9.backend.service.CatalogResponseCache;
+import no.ntnu.iir.idata.gr9.backend.service.CatalogResponseCache.CachedResponse;
+import no.ntnu.iir.idata.gr9.backend.service.CourseCatalogService;
+import no.ntnu.iir.idata.gr9.backend.service.CoursePopularityRanking;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsProcessor;
+import org.springframework.web.cors.DefaultCorsProcessor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Serves the JSON responses of the public course endpoints from {@link CatalogResponseCache}.
+ * <p>On a miss the response is built as usual, then stored both plain and gzip-compressed for
+ * the current catalog version. On a hit the stored bytes are written straight to the output
+ * stream, compressed if the client accepts gzip, without running the controller or Jackson.
+ * Responses ranked by popularity are also keyed by the version of the popularity ranking, as it
+ * changes without a new catalog version. Since hits never reach the dispatcher, the CORS
+ * configuration of the application is applied here.</p>
+ */
+@Component
+public class CatalogResponseCacheFilter extends OncePerRequestFilter {
+  private static final String[] REPLAYED_HEADERS = {
+      HttpHeaders.ETAG, HttpHeaders.CACHE_CONTROL, CourseController.NEXT_CURSOR_HEADER};
+
+  private final CatalogResponseCache cache;
+  private final CourseCatalogService catalogService;
+  private final CoursePopularityRanking popularityRanking;
+  private final HandlerMappingIntrospector corsConfigurationSource;
+  private final CorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+  /**
+   * Creates a new CatalogResponseCacheFilter.
+   *
+   * @param cache                   the cache of serialized responses
+   * @param catalogService          the service holding the in-memory course catalog
+   * @param popularityRanking       the ranking of the courses by orders and favorites
+   * @param corsConfigurationSource the source of the CORS configuration of each endpoint
+   */
+  public CatalogResponseCacheFilter(CatalogResponseCache cache,
+                                    CourseCatalogService catalogService,
+                                    CoursePopularityRanking popularityRanking,
+                                    HandlerMappingIntrospector corsConfigurationSource) {
+    this.cache = cache;
+    this.catalogService = catalogService;
+    this.popularityRanking = popularityRanking;
+    this.corsConfigurationSource = corsConfigurationSource;
+  }
+
+  /**
+   * Only GET requests for course data are cached. The export is streamed and images are
+   * already stored as bytes, so those are left alone. Similar courses are computed in the
+   * background and change without a new catalog version, so they are not cached either.
+   *
+   * @param request the current request
+   * @return true if the request is not cached
+   */
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String path = getPath(request);
+    return !HttpMethod.GET.matches(request.getMethod())
+        || !(path.equals("/courses") || path.startsWith("/courses/"))
+        || path.endsWith("/export")
+        || path.endsWith("/image")
+        || path.endsWith("/similar");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+    long version = this.catalogService.getSnapshot().getVersion();
+    String key = cacheKey(request);
+    if (CatalogEtagInterceptor.isRankedByPopularity(request)) {
+      key += "\npopularity=" + this.popularityRanking.getVersion();
+    }
+    CachedResponse cached = this.cache.get(key, version);
+    if (cached != null) {
+      this.replay(cached, request, response);
+      return;
+    }
+
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+    filterChain.doFilter(request, wrapper);
+    String contentType = wrapper.getContentType();
+    if (wrapper.getStatus() != HttpStatus.OK.value() || contentType == null
+        || !MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+        || wrapper.getContentSize() > CatalogResponseCache.MAX_ENTRY_BYTES) {
+      wrapper.copyBodyToResponse();
+      return;
+    }
+
+    Map<String, String> headers = new LinkedHashMap<>();
+    for (String name : REPLAYED_HEADERS) {
+      String value = wrapper.getHeader(name);
+      if (value != null) {
+        headers.put(name, value);
+      }
+    }
+    CachedResponse created = new CachedResponse(version, contentType, headers,
+        wrapper.getContentAsByteArray());
+    this.cache.put(key, created);
+    this.writeBody(created, request, response);
+  }
+
+  /**
+   * Answers a request from a cached response, with 304 Not Modified if the client already has
+   * it.
+   */
+  private void replay(CachedResponse cached, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+    CorsConfiguration corsConfiguration =
+        this.corsConfigurationSource.getCorsConfiguration(request);
+    if (!this.corsProcessor.processRequest(corsConfiguration, request, response)) {
+      return;
+    }
+    cached.getHeaders().forEach(response::setHeader);
+    String entityTag = cached.getHeaders().get(HttpHeaders.ETAG);
+    if (entityTag != null
+        && new ServletWebRequest(request, response).checkNotModified(entityTag)) {
+      return;
+    }
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(cached.getContentType());
+    this.writeBody(cached, request, response);
+  }
+
+  private void writeBody(CachedResponse cached, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    byte[] body = cached.getBody();
+    if (acceptsGzip(request)) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+      body = cached.getGzipBody();
+    }
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+    response.flushBuffer();
+  }
+
+  /**
+   * Gets the decoded path of a request within the application, as the dispatcher matches it, so
+   * an encoded path such as {@code /courses/%65xport} is treated like the path it is routed to.
+   */
+  private static String getPath(HttpServletRequest request) {
+    return UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+  }
+
+  /**
+   * Builds the cache key from the decoded path and the parameters, in a fixed order, so encoded
+   * variants of a request share its entry.
+   */
+  private static String cacheKey(HttpServletRequest request) {
+    StringBuilder key = new StringBuilder(getPath(request));
+    Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+    for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+      key.append('\n').append(parameter.getKey()).append('=')
+          .append(Arrays.toString(parameter.getValue()));
+    }
+    return key.toString();
+  }
+
+  private static boolean acceptsGzip(HttpServletRequest request) {
+    String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+      if (parts[0].trim().equalsIgnoreCase("gzip")) {
+        return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+}
@@ -26,6 +26,9 @@ public class CorsConfiguration implements WebMvcConfigurer {
         )
         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
         .allowedHeaders("*")
+        // Lets the frontend read the cursor for the next page of course listings, and the
+        // catalog version of course responses
+        .exposedHeaders("X-Next-Cursor", "ETag")
         .allowCredentials(true)
         .maxAge(3600);
   }
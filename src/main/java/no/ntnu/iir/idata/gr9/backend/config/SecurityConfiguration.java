@@ -1,6 +1,7 @@
 package no.ntnu.iir.idata.gr9.backend.config;
 
 import no.ntnu.iir.idata.gr9.backend.security.JwtRequestFilter;
+import no.ntnu.iir.idata.gr9.backend.security.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -28,6 +29,8 @@ public class SecurityConfiguration {
   private UserDetailsService userDetailsService;
   @Autowired
   private JwtRequestFilter jwtRequestFilter;
+  @Autowired
+  private RateLimitFilter rateLimitFilter;
 
   /**
    * This method will be called automatically by the framework to find the authentication to use.
@@ -55,6 +58,19 @@ public class SecurityConfiguration {
         // Disable CSRF and CORS checks. Without this it will be hard to make automated tests.
         .csrf(AbstractHttpConfigurer::disable)
         .cors(AbstractHttpConfigurer::disable)
+        // Bulk imports and updates are restricted to admins
+        .authorizeHttpRequests((auth) -> auth.requestMatchers(HttpMethod.POST, "/courses/import")
+            .hasAuthority("ADMIN"))
+        .authorizeHttpRequests((auth) -> auth.requestMatchers(HttpMethod.PATCH, "/courses/bulk")
+            .hasAuthority("ADMIN"))
+        // So are changes to currency rates, as they reorder and refilter courses by price
+        .authorizeHttpRequests((auth) -> auth.requestMatchers(HttpMethod.PUT, "/currency-rates/*")
+            .hasAuthority("ADMIN"))
+        .authorizeHttpRequests((auth) -> auth
+            .requestMatchers(HttpMethod.DELETE, "/currency-rates/*").hasAuthority("ADMIN"))
+        // Metrics describe the whole application, so only admins may read them
+        .authorizeHttpRequests((auth) -> auth.requestMatchers("/actuator/metrics/**")
+            .hasAuthority("ADMIN"))
         // Authentication and signup is accessible for everyone
         .authorizeHttpRequests((auth) -> auth.requestMatchers("/users/register").permitAll())
         .authorizeHttpRequests((auth) -> auth.requestMatchers("/users/login").permitAll())
@@ -62,6 +78,8 @@ public class SecurityConfiguration {
         .authorizeHttpRequests((auth) -> auth.requestMatchers("/courses").permitAll())
         .authorizeHttpRequests((auth) -> auth.requestMatchers("/courses/*").permitAll())
         .authorizeHttpRequests((auth) -> auth.requestMatchers("/courses/category/*").permitAll())
+        .authorizeHttpRequests((auth) -> auth.requestMatchers(HttpMethod.GET, "/courses/*/similar")
+            .permitAll())
         // Sending message from contact form is also available to everyone
         .authorizeHttpRequests((auth) -> auth.requestMatchers("/messages").permitAll())
         // Allow Swagger UI and API docs
@@ -77,7 +95,9 @@ public class SecurityConfiguration {
         .sessionManagement((session) ->
             session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
         // Enable our JWT authentication filter
-        .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
+        .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)
+        // Limit how often a client may log in, register or send messages, before any other work
+        .addFilterBefore(rateLimitFilter, JwtRequestFilter.class);
 
     return http.build();
   }
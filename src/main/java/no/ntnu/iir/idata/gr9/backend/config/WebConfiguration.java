@@ -0,0 +1,36 @@
+package no.ntnu.iir.idata.gr9.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration class for the interceptors of the web endpoints.
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+  private final CatalogEtagInterceptor catalogEtagInterceptor;
+
+  /**
+   * Creates a new WebConfiguration.
+   *
+   * @param catalogEtagInterceptor the interceptor tagging course responses with the catalog
+   *                               version
+   */
+  public WebConfiguration(CatalogEtagInterceptor catalogEtagInterceptor) {
+    this.catalogEtagInterceptor = catalogEtagInterceptor;
+  }
+
+  /**
+   * Registers the interceptors of the application.
+   *
+   * @param registry the interceptor registry to configure.
+   */
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    // Similar courses are computed in the background, without a new catalog version
+    registry.addInterceptor(this.catalogEtagInterceptor)
+        .addPathPatterns("/courses", "/courses/**")
+        .excludePathPatterns("/courses/*/similar");
+  }
+}
@@ -5,11 +5,14 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.concurrent.RejectedExecutionException;
 import no.ntnu.iir.idata.gr9.backend.dto.AuthenticationRequest;
 import no.ntnu.iir.idata.gr9.backend.dto.AuthenticationResponse;
 import no.ntnu.iir.idata.gr9.backend.service.AccessUserService;
+import no.ntnu.iir.idata.gr9.backend.service.PasswordHashingExecutor;
 import no.ntnu.iir.idata.gr9.backend.security.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -38,6 +41,9 @@ public class AuthenticationController {
   @Autowired
   private JwtUtil jwtUtil;
 
+  @Autowired
+  private PasswordHashingExecutor hashingExecutor;
+
   /**
    * Authenticate a user and generate JWT token.
    *
@@ -60,10 +66,13 @@ public class AuthenticationController {
     ResponseEntity<?> response;
 
     try {
-      authenticationManager.authenticate(
-          new UsernamePasswordAuthenticationToken(
-              authenticationRequest.getUsername(),
-              authenticationRequest.getPassword()
+      hashingExecutor.execute(
+          PasswordHashingExecutor.Operation.LOGIN,
+          () -> authenticationManager.authenticate(
+              new UsernamePasswordAuthenticationToken(
+                  authenticationRequest.getUsername(),
+                  authenticationRequest.getPassword()
+              )
           )
       );
 
@@ -88,6 +97,10 @@ public class AuthenticationController {
           "User not found",
           HttpStatus.UNAUTHORIZED
       );
+    } catch (RejectedExecutionException e) {
+      response = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .header(HttpHeaders.RETRY_AFTER, PasswordHashingExecutor.RETRY_AFTER_SECONDS)
+          .body("Too many login attempts, try again later");
     } catch (Exception e) {
       response = new ResponseEntity<>(
           "Internal server error",
@@ -1,5 +1,6 @@
 package no.ntnu.iir.idata.gr9.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -8,15 +9,54 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseBatch;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseBulkUpdate;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseCursor;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseFacetResult;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseFilter;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseImportResult;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSearchHit;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSearchResult;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSort;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSuggestion;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSummary;
+import no.ntnu.iir.idata.gr9.backend.dto.DateMatch;
+import no.ntnu.iir.idata.gr9.backend.dto.FieldSelection;
 import no.ntnu.iir.idata.gr9.backend.entity.Category;
 import no.ntnu.iir.idata.gr9.backend.entity.Course;
 import no.ntnu.iir.idata.gr9.backend.repository.CategoryRepository;
 import no.ntnu.iir.idata.gr9.backend.repository.CourseRepository;
+import no.ntnu.iir.idata.gr9.backend.service.CatalogSnapshot;
+import no.ntnu.iir.idata.gr9.backend.service.CourseBulkUpdateService;
+import no.ntnu.iir.idata.gr9.backend.service.CourseDateIndex;
+import no.ntnu.iir.idata.gr9.backend.service.CourseCatalogService;
+import no.ntnu.iir.idata.gr9.backend.service.CourseExportService;
+import no.ntnu.iir.idata.gr9.backend.service.CourseFacetIndex;
+import no.ntnu.iir.idata.gr9.backend.service.CourseImportService;
+import no.ntnu.iir.idata.gr9.backend.service.CourseKeywordIndex;
+import no.ntnu.iir.idata.gr9.backend.service.CoursePopularityRanking;
+import no.ntnu.iir.idata.gr9.backend.service.CoursePriceIndex;
+import no.ntnu.iir.idata.gr9.backend.service.CourseSearchIndex;
+import no.ntnu.iir.idata.gr9.backend.service.CourseSimilarityIndex;
+import no.ntnu.iir.idata.gr9.backend.service.CourseSpellingIndex;
+import no.ntnu.iir.idata.gr9.backend.service.CourseSuggestIndex;
 import no.ntnu.iir.idata.gr9.backend.service.FileStorageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -25,11 +65,14 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * REST API controller for managing courses.
@@ -42,7 +85,29 @@ public class CourseController {
   private final CourseRepository courseRepository;
   private final CategoryRepository categoryRepository;
   private final FileStorageService fileStorageService;
+  private final CourseCatalogService catalogService;
+  private final CourseSearchIndex searchIndex;
+  private final CourseFacetIndex facetIndex;
+  private final CourseSuggestIndex suggestIndex;
+  private final CourseSpellingIndex spellingIndex;
+  private final CourseExportService exportService;
+  private final CourseKeywordIndex keywordIndex;
+  private final CoursePriceIndex priceIndex;
+  private final CourseDateIndex dateIndex;
+  private final CoursePopularityRanking popularityRanking;
+  private final CourseSimilarityIndex similarityIndex;
+  private final CourseImportService importService;
+  private final CourseBulkUpdateService bulkUpdateService;
+  private final ObjectMapper objectMapper;
   private static final Logger logger = LoggerFactory.getLogger(CourseController.class);
+  /** Response header holding the cursor for the next page of a course listing. */
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  private static final String DEFAULT_PAGE_SIZE = "100";
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final Set<String> COURSE_FIELDS = Set.of(
+      "id", "title", "description", "keywords", "difficulty", "startDate", "endDate", "ects",
+      "hoursPerWeek", "relatedCertifications", "isVisible", "imagePath", "category", "providers",
+      "lowestPrice");
   private Map<Integer, Course> courses;
 
   /**
@@ -51,26 +116,85 @@ public class CourseController {
    * @param courseRepository   the repository for managing courses
    * @param categoryRepository the repository for managing categories
    * @param fileStorageService the service for managing file storage
+   * @param catalogService     the service holding the in-memory course catalog
+   * @param searchIndex        the full-text index over the visible courses
+   * @param facetIndex         the facet index over the visible courses
+   * @param suggestIndex       the prefix index used for suggestions while typing
+   * @param spellingIndex      the trigram index used to correct misspelled searches
+   * @param exportService      the service streaming the whole catalog
+   * @param keywordIndex       the keyword index over the visible courses
+   * @param priceIndex         the index of the effective course prices
+   * @param dateIndex          the interval index of the dates the courses run
+   * @param popularityRanking  the ranking of the courses by orders and favorites
+   * @param similarityIndex    the precomputed similar courses of each course
+   * @param importService      the service importing courses in bulk
+   * @param bulkUpdateService  the service changing many courses at once
+   * @param objectMapper       the object mapper used to select fields of the responses
    */
   public CourseController(CourseRepository courseRepository,
                           CategoryRepository categoryRepository,
-                          FileStorageService fileStorageService) {
+                          FileStorageService fileStorageService,
+                          CourseCatalogService catalogService,
+                          CourseSearchIndex searchIndex,
+                          CourseFacetIndex facetIndex,
+                          CourseSuggestIndex suggestIndex,
+                          CourseSpellingIndex spellingIndex,
+                          CourseExportService exportService,
+                          CourseKeywordIndex keywordIndex,
+                          CoursePriceIndex priceIndex,
+                          CourseDateIndex dateIndex,
+                          CoursePopularityRanking popularityRanking,
+                          CourseSimilarityIndex similarityIndex,
+                          CourseImportService importService,
+                          CourseBulkUpdateService bulkUpdateService,
+                          ObjectMapper objectMapper) {
     this.courseRepository = courseRepository;
     this.categoryRepository = categoryRepository;
     this.fileStorageService = fileStorageService;
+    this.catalogService = catalogService;
+    this.searchIndex = searchIndex;
+    this.facetIndex = facetIndex;
+    this.suggestIndex = suggestIndex;
+    this.spellingIndex = spellingIndex;
+    this.exportService = exportService;
+    this.keywordIndex = keywordIndex;
+    this.priceIndex = priceIndex;
+    this.dateIndex = dateIndex;
+    this.popularityRanking = popularityRanking;
+    this.similarityIndex = similarityIndex;
+    this.importService = importService;
+    this.bulkUpdateService = bulkUpdateService;
+    this.objectMapper = objectMapper;
   }
 
   /**
-   * Get all courses.
+   * Get a page of all courses.
    * <p>
-   * Endpoint: {@code GET /courses}.
+   * Endpoint: {@code GET /courses?after=&limit=&sort=&minPrice=&maxPrice=}.
+   * <p>
+   * The cursor for the next page is returned in the {@code X-Next-Cursor} header, which is left
+   * out on the last page.
    *
-   * @return a collection of all courses
+   * @param after       the cursor returned with the previous page, or {@code null} for the first
+   *                    page
+   * @param limit       the maximum number of courses to return
+   * @param sort        the ordering of the courses, {@code id}, {@code title}, {@code startDate},
+   *                    {@code price} or {@code popular}
+   * @param minPrice    the lowest effective price to include, or {@code null} for no limit
+   * @param maxPrice    the highest effective price to include, or {@code null} for no limit
+   * @param runningFrom the first day of the date window, or {@code null} for no limit
+   * @param runningTo   the last day of the date window, or {@code null} for no limit
+   * @param dateMatch   how the courses must match the date window, {@code overlap} or
+   *                    {@code within}
+   * @param fields      the comma-separated fields to include, or {@code null} for all fields
+   * @return a page of courses
    */
   @GetMapping
   @Operation(
       summary = "Get all courses",
-      description = "Retrieves a list of all courses in the system."
+      description = "Retrieves a page of the courses in the system. "
+          + "Follow the X-Next-Cursor response header to fetch the next page. "
+          + "Pass ids=1,2,3 instead to fetch those courses, answered like POST /courses/batch."
   )
   @ApiResponses(value = {
       @ApiResponse(
@@ -81,15 +205,209 @@ public class CourseController {
               schema = @Schema(implementation = Course.class)
           )
       ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Invalid cursor, limit, sort order, price range or date window",
+          content = @Content
+      ),
       @ApiResponse(
           responseCode = "404",
           description = "No courses found, empty response",
           content = @Content
       )
   })
-  public Iterable<Course> getCourses() {
-    logger.info("Getting all courses");
-    return this.courseRepository.findAll();
+  public ResponseEntity<List<?>> getCourses(
+      @Parameter(description = "Cursor returned in X-Next-Cursor by the previous page")
+      @RequestParam(required = false) String after,
+      @Parameter(description = "Maximum number of courses to return")
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+      @Parameter(description = "Ordering of the courses: id, title, startDate, price or "
+          + "popular (most orders and favorites first)")
+      @RequestParam(defaultValue = "id") String sort,
+      @Parameter(description = "Lowest effective price to include, inclusive")
+      @RequestParam(required = false) Double minPrice,
+      @Parameter(description = "Highest effective price to include, inclusive")
+      @RequestParam(required = false) Double maxPrice,
+      @Parameter(description = "First day of the date window, inclusive")
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+      LocalDate runningFrom,
+      @Parameter(description = "Last day of the date window, inclusive")
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+      LocalDate runningTo,
+      @Parameter(description = "How courses must match the date window: overlap or within")
+      @RequestParam(defaultValue = "overlap") String dateMatch,
+      @Parameter(description = "Comma-separated fields to include, e.g. id,title,lowestPrice")
+      @RequestParam(required = false) String fields) {
+    logger.info("Getting all courses after cursor {}", after);
+    BiFunction<CourseCursor, Integer, List<Course>> catalogPages = this.findCatalogPages(
+        false, null, minPrice, maxPrice, runningFrom, runningTo, dateMatch);
+    // Every page is answered from the in-memory catalog, so the body always belongs to the
+    // catalog version its entity tag names
+    return this.getCoursePage(after, limit, sort, fields, catalogPages,
+        (cursor, size) -> summarize(catalogPages.apply(cursor, size)));
+  }
+
+  /**
+   * Get many courses by their ids.
+   * <p>
+   * Endpoint: {@code GET /courses?ids=}.
+   * <p>
+   * The courses are looked up in the in-memory catalog and returned in the order of the
+   * requested ids. Ids without a course are listed in the response instead of failing the
+   * request.
+   *
+   * @param ids the ids of the courses to retrieve
+   * @return the courses found, with the ids that were not found
+   */
+  @GetMapping(params = "ids")
+  // OpenAPI allows one GET operation per path, so this one is described with getCourses
+  @Operation(
+      summary = "Get courses by IDs",
+      description = "Retrieves many courses in one request, in the order of the given ids. "
+          + "Ids without a course are returned in missingIds.",
+      hidden = true
+  )
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "Courses found and returned",
+          content = @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = CourseBatch.class)
+          )
+      ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Too many ids",
+          content = @Content
+      )
+  })
+  public ResponseEntity<CourseBatch> getCoursesByIds(
+      @Parameter(description = "Comma-separated ids of the courses to retrieve", required = true)
+      @RequestParam List<Integer> ids) {
+    logger.info("Getting {} courses by ID", ids.size());
+    return ResponseEntity.ok(this.findCourses(ids));
+  }
+
+  /**
+   * Get many courses by their ids, for lists of ids too long for a query string.
+   * <p>
+   * Endpoint: {@code POST /courses/batch}.
+   *
+   * @param ids the ids of the courses to retrieve
+   * @return the courses found, with the ids that were not found
+   */
+  @PostMapping("/batch")
+  @Operation(
+      summary = "Get courses by IDs in the request body",
+      description = "Same as GET /courses?ids=, with the ids sent as a JSON array."
+  )
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "Courses found and returned",
+          content = @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = CourseBatch.class)
+          )
+      ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Too many ids",
+          content = @Content
+      )
+  })
+  public ResponseEntity<CourseBatch> getCoursesByIdsInBody(
+      @Parameter(description = "JSON array of the ids of the courses to retrieve",
+          required = true)
+      @RequestBody List<Integer> ids) {
+    logger.info("Getting {} courses by ID", ids.size());
+    return ResponseEntity.ok(this.findCourses(ids));
+  }
+
+  /**
+   * Export all courses as newline-delimited JSON.
+   * <p>
+   * Endpoint: {@code GET /courses/export}.
+   * <p>
+   * The courses are streamed from the database as they are read, so the whole catalog is never
+   * held in memory.
+   *
+   * @return a stream of courses, one JSON object per line, ordered by id
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(
+      summary = "Export all courses",
+      description = "Streams every course with its category and providers as "
+          + "newline-delimited JSON, one course per line, ordered by id."
+  )
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "Courses streamed, one JSON object per line",
+          content = @Content(
+              mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+              schema = @Schema(implementation = Course.class)
+          )
+      )
+  })
+  public ResponseEntity<StreamingResponseBody> exportCourses() {
+    logger.info("Exporting all courses");
+    StreamingResponseBody body = this.exportService::exportCourses;
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(body);
+  }
+
+  /**
+   * Import courses in bulk (admins only).
+   * <p>
+   * Endpoint: {@code POST /courses/import}.
+   * <p>
+   * The body is read as a stream of CSV rows or JSON lines, depending on its content type.
+   * Courses are created or updated by id, and their providers replaced. Rows that cannot be
+   * imported are reported in the response without stopping the import.
+   *
+   * @param contentType the content type of the body
+   * @param body        the courses to import
+   * @return the number of imported courses and the rows that failed
+   * @throws IOException if reading the body fails
+   */
+  @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+  @Operation(
+      summary = "Import courses",
+      description = "Creates or updates courses from CSV (one provider per row, with a header) "
+          + "or newline-delimited JSON (in the form of the export). Restricted to admins."
+  )
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "Import finished, with the rows that failed",
+          content = @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = CourseImportResult.class)
+          )
+      ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "CSV header without the id and title columns",
+          content = @Content
+      )
+  })
+  public ResponseEntity<CourseImportResult> importCourses(
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+      @Parameter(description = "CSV rows or JSON lines of courses", required = true)
+      InputStream body) throws IOException {
+    logger.info("Importing courses from {}", contentType);
+    try {
+      CourseImportResult result = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+          ? this.importService.importNdjson(body)
+          : this.importService.importCsv(body);
+      return ResponseEntity.ok(result);
+    } catch (IllegalArgumentException e) {
+      logger.error("Invalid import: {}", e.getMessage());
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
   }
 
   /**
@@ -124,7 +442,7 @@ public class CourseController {
       @Parameter(description = "ID of the course to retrieve", required = true)
       @PathVariable int id) {
     logger.info("Getting course with ID: {}", id);
-    Course course = this.courseRepository.findById(id);
+    Course course = this.catalogService.getSnapshot().getCourse(id);
     if (course != null) {
       return ResponseEntity.ok(course);
     } else {
@@ -134,53 +452,361 @@ public class CourseController {
   }
 
   /**
-   * Get a specific course by searching for its name.
+   * Get the courses most similar to a course.
    * <p>
-   * Endpoint: {@code GET /courses/search?query=}.
+   * Endpoint: {@code GET /courses/{id}/similar?limit=}.
+   * <p>
+   * The similar courses are precomputed in the background from the title, keywords and
+   * description of the visible courses, so they may briefly lag behind recent changes.
    *
-   * @param query the name of the course to search for
-   * @return the course with the specified name, or a 404 error if not found
+   * @param id    the ID of the course to find similar courses for
+   * @param limit the maximum number of courses to return
+   * @return the similar visible courses, most similar first
    */
-  @GetMapping("/search")
+  @GetMapping("/{id}/similar")
   @Operation(
-      summary = "Search for course by name",
-      description = "Searches for and retrieves a course by its title."
+      summary = "Get similar courses",
+      description = "Retrieves the visible courses with the most similar title, keywords and "
+          + "description, most similar first."
   )
   @ApiResponses(value = {
       @ApiResponse(
           responseCode = "200",
-          description = "Course found and returned",
+          description = "Similar courses returned, empty if none were found",
           content = @Content(
               mediaType = "application/json",
               schema = @Schema(implementation = Course.class)
           )
       ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Invalid limit",
+          content = @Content
+      ),
       @ApiResponse(
           responseCode = "404",
           description = "Course not found, empty response",
           content = @Content
       )
   })
-  public ResponseEntity<Course> getCourseByName(
-      @Parameter(description = "Title of the course to search for", required = true)
-      @RequestParam String query) {
-    logger.info("Searching for course with name: {}", query);
-    Course course = this.courseRepository.findByTitle(query);
-    if (course != null) {
-      return ResponseEntity.ok(course);
-    } else {
-      logger.error("Course with name {} not found", query);
+  public ResponseEntity<List<Course>> getSimilarCourses(
+      @Parameter(description = "ID of the course to find similar courses for", required = true)
+      @PathVariable int id,
+      @Parameter(description = "Maximum number of courses to return, at most 20")
+      @RequestParam(defaultValue = "5") int limit) {
+    logger.info("Getting courses similar to course with ID: {}", id);
+    if (limit < 1 || limit > CourseSimilarityIndex.NEIGHBOURS) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Limit must be between 1 and " + CourseSimilarityIndex.NEIGHBOURS);
+    }
+    CatalogSnapshot snapshot = this.catalogService.getSnapshot();
+    if (snapshot.getCourse(id) == null) {
+      logger.error("Course with ID {} not found", id);
       return ResponseEntity.notFound().build();
     }
+    List<Course> courses = new ArrayList<>();
+    for (int courseId : this.similarityIndex.findSimilarCourseIds(id, limit)) {
+      Course course = snapshot.getCourse(courseId);
+      // The table may still list a course that has since been hidden or removed
+      if (course != null && course.getIsVisible()) {
+        courses.add(course);
+      }
+    }
+    return ResponseEntity.ok(courses);
+  }
+
+  /**
+   * Search the visible courses.
+   * <p>
+   * Endpoint: {@code GET /courses/search?query=&offset=&limit=}.
+   * <p>
+   * Matches the words of the query against the title, keywords, related certifications and
+   * description of the courses, and ranks the matches by relevance. When nothing matches, the
+   * response suggests corrected queries.
+   *
+   * @param query  the words to search for
+   * @param offset the number of matches to skip
+   * @param limit  the maximum number of matches to return
+   * @return a page of matching courses, best match first
+   */
+  @GetMapping("/search")
+  @Operation(
+      summary = "Search for courses",
+      description = "Searches the visible courses by title, keywords, related certifications "
+          + "and description, and returns a page of matches ranked by relevance. When "
+          + "nothing matches, corrected queries are suggested."
+  )
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "Search completed, matches returned best first",
+          content = @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = CourseSearchResult.class)
+          )
+      ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Invalid offset or limit",
+          content = @Content
+      )
+  })
+  public ResponseEntity<CourseSearchResult> searchCourses(
+      @Parameter(description = "Words to search for", required = true)
+      @RequestParam String query,
+      @Parameter(description = "Number of matches to skip")
+      @RequestParam(defaultValue = "0") int offset,
+      @Parameter(description = "Maximum number of matches to return")
+      @RequestParam(defaultValue = "20") int limit) {
+    logger.info("Searching for courses matching: {}", query);
+    if (offset < 0 || limit < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Offset must not be negative and limit must be positive");
+    }
+    CatalogSnapshot snapshot = this.catalogService.getSnapshot();
+    CourseSearchIndex.SearchResult result =
+        this.searchIndex.search(query, offset, Math.min(limit, MAX_PAGE_SIZE));
+
+    List<CourseSearchHit> hits = new ArrayList<>(result.getHits().size());
+    for (CourseSearchIndex.Hit hit : result.getHits()) {
+      Course course = snapshot.getCourse(hit.getCourseId());
+      if (course != null) {
+        hits.add(new CourseSearchHit(course, hit.getScore()));
+      }
+    }
+    List<String> suggestions = result.getTotal() == 0
+        ? this.spellingIndex.suggestAlternatives(query) : List.of();
+    return ResponseEntity.ok(
+        new CourseSearchResult(query, result.getTotal(), offset, hits, suggestions));
+  }
+
+  /**
+   * Filter the visible courses on any combination of facets.
+   * <p>
+   * Endpoint: {@code GET /courses/filter?difficulty=&category=&ects=&startFrom=&startTo=
+   * &minPrice=&maxPrice=&offset=&limit=}.
+   * <p>
+   * A course must match every facet that is filtered on, and one of the given values within
+   * each facet. The response also counts the matches for each difficulty, category and ECTS
+   * value, with the filters on the other facets applied.
+   *
+   * @param difficulty the difficulties to match
+   * @param category   the ids of the categories to match
+   * @param ects       the ECTS values to match
+   * @param startFrom  the earliest start date to match
+   * @param startTo    the latest start date to match
+   * @param minPrice   the lowest price to match
+   * @param maxPrice   the highest price to match
+   * @param offset     the number of matches to skip
+   * @param limit      the maximum number of matches to return
+   * @return a page of matching courses, ordered by id, with the facet counts
+   */
+  @GetMapping("/filter")
+  @Operation(
+      summary = "Filter courses by facets",
+      description = "Filters the visible courses by difficulty, category, ECTS, start date and "
+          + "price, and returns a page of matches together with the counts of each facet."
+  )
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "Filter applied, matches and facet counts returned",
+          content = @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = CourseFacetResult.class)
+          )
+      ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Invalid range, offset or limit",
+          content = @Content
+      )
+  })
+  public ResponseEntity<CourseFacetResult> filterCourses(
+      @Parameter(description = "Difficulties to match")
+      @RequestParam(required = false) List<String> difficulty,
+      @Parameter(description = "Ids of the categories to match")
+      @RequestParam(required = false) List<Integer> category,
+      @Parameter(description = "ECTS values to match")
+      @RequestParam(required = false) List<Double> ects,
+      @Parameter(description = "Earliest start date to match, inclusive")
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+      LocalDate startFrom,
+      @Parameter(description = "Latest start date to match, inclusive")
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+      LocalDate startTo,
+      @Parameter(description = "Lowest price to match, inclusive")
+      @RequestParam(required = false) Double minPrice,
+      @Parameter(description = "Highest price to match, inclusive")
+      @RequestParam(required = false) Double maxPrice,
+      @Parameter(description = "Number of matches to skip")
+      @RequestParam(defaultValue = "0") int offset,
+      @Parameter(description = "Maximum number of matches to return")
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+    logger.info("Filtering courses");
+    if (offset < 0 || limit < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Offset must not be negative and limit must be positive");
+    }
+    CourseFilter filter;
+    try {
+      filter = new CourseFilter(difficulty, category, ects, startFrom, startTo,
+          minPrice, maxPrice);
+    } catch (IllegalArgumentException e) {
+      logger.error("Invalid filter: {}", e.getMessage());
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+    return ResponseEntity.ok(
+        this.facetIndex.query(filter, offset, Math.min(limit, MAX_PAGE_SIZE)));
   }
 
   /**
-   * Get courses by their category.
+   * Suggest visible courses while the user types a search.
    * <p>
-   * Endpoint: {@code GET /courses/category/{category}}.
+   * Endpoint: {@code GET /courses/suggest?prefix=&limit=}.
    *
-   * @param id the category id of the courses to retrieve
-   * @return a collection of courses in the specified category
+   * @param prefix the text typed so far
+   * @param limit  the maximum number of suggestions to return
+   * @return the suggested courses, most popular first
+   */
+  @GetMapping("/suggest")
+  @Operation(
+      summary = "Suggest courses while typing",
+      description = "Returns the most popular visible courses with a title word or keyword "
+          + "starting with the given prefix."
+  )
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "Suggestions returned, most popular first",
+          content = @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = CourseSuggestion.class)
+          )
+      ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Invalid limit",
+          content = @Content
+      )
+  })
+  public ResponseEntity<List<CourseSuggestion>> suggestCourses(
+      @Parameter(description = "Text typed so far", required = true)
+      @RequestParam String prefix,
+      @Parameter(description = "Maximum number of suggestions to return, at most 10")
+      @RequestParam(defaultValue = "10") int limit) {
+    if (limit < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive");
+    }
+    return ResponseEntity.ok(this.suggestIndex.suggest(prefix,
+        Math.min(limit, CourseSuggestIndex.MAX_SUGGESTIONS)));
+  }
+
+  /**
+   * Get the keywords of the visible courses.
+   * <p>
+   * Endpoint: {@code GET /courses/keywords}.
+   *
+   * @return the number of visible courses using each keyword, in alphabetical order
+   */
+  @GetMapping("/keywords")
+  @Operation(
+      summary = "Get all course keywords",
+      description = "Returns every keyword of the visible courses, with the number of courses "
+          + "using it."
+  )
+  @ApiResponse(
+      responseCode = "200",
+      description = "Keywords returned in alphabetical order",
+      content = @Content(mediaType = "application/json")
+  )
+  public ResponseEntity<Map<String, Integer>> getKeywords() {
+    logger.info("Getting all course keywords");
+    return ResponseEntity.ok(this.keywordIndex.getKeywordCounts());
+  }
+
+  /**
+   * Get the visible courses with one or more keywords.
+   * <p>
+   * Endpoint: {@code GET /courses/by-keywords?keywords=&match=&offset=&limit=}.
+   *
+   * @param keywords the keywords to look up
+   * @param match    {@code all} if a course must have every keyword, {@code any} if one is
+   *                 enough
+   * @param offset   the number of matching courses to skip
+   * @param limit    the maximum number of courses to return
+   * @return the matching courses, ordered by id
+   */
+  @GetMapping("/by-keywords")
+  @Operation(
+      summary = "Get courses by keywords",
+      description = "Returns the visible courses having all, or any, of the given keywords."
+  )
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "Matching courses returned, ordered by id",
+          content = @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = Course.class)
+          )
+      ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Invalid match mode, offset or limit",
+          content = @Content
+      )
+  })
+  public ResponseEntity<List<Course>> getCoursesByKeywords(
+      @Parameter(description = "Keywords to look up", required = true)
+      @RequestParam List<String> keywords,
+      @Parameter(description = "all if a course must have every keyword, any if one is enough")
+      @RequestParam(defaultValue = "all") String match,
+      @Parameter(description = "Number of matches to skip")
+      @RequestParam(defaultValue = "0") int offset,
+      @Parameter(description = "Maximum number of matches to return")
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+    logger.info("Getting courses with {} of the keywords {}", match, keywords);
+    if (!match.equals("all") && !match.equals("any")) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Match must be all or any");
+    }
+    if (offset < 0 || limit < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Offset must not be negative and limit must be positive");
+    }
+    CatalogSnapshot snapshot = this.catalogService.getSnapshot();
+    int[] courseIds = this.keywordIndex.findCourseIds(keywords, match.equals("all"));
+    int end = (int) Math.min(courseIds.length, (long) offset + Math.min(limit, MAX_PAGE_SIZE));
+    List<Course> courses = new ArrayList<>();
+    for (int i = offset; i < end; i++) {
+      Course course = snapshot.getCourse(courseIds[i]);
+      if (course != null) {
+        courses.add(course);
+      }
+    }
+    return ResponseEntity.ok(courses);
+  }
+
+  /**
+   * Get a page of courses by their category.
+   * <p>
+   * Endpoint: {@code GET /courses/category/{category}?after=&limit=&sort=&minPrice=&maxPrice=}.
+   *
+   * @param id          the category id of the courses to retrieve
+   * @param after       the cursor returned with the previous page, or {@code null} for the first
+   *                    page
+   * @param limit       the maximum number of courses to return
+   * @param sort        the ordering of the courses, {@code id}, {@code title}, {@code startDate},
+   *                    {@code price} or {@code popular}
+   * @param minPrice    the lowest effective price to include, or {@code null} for no limit
+   * @param maxPrice    the highest effective price to include, or {@code null} for no limit
+   * @param runningFrom the first day of the date window, or {@code null} for no limit
+   * @param runningTo   the last day of the date window, or {@code null} for no limit
+   * @param dateMatch   how the courses must match the date window, {@code overlap} or
+   *                    {@code within}
+   * @param fields      the comma-separated fields to include, or {@code null} for all fields
+   * @return a page of courses in the specified category
    */
   @GetMapping("/category/{id}")
   @Operation(
@@ -196,19 +822,48 @@ public class CourseController {
               schema = @Schema(implementation = Course.class)
           )
       ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Invalid cursor, limit, sort order, price range or date window",
+          content = @Content
+      ),
       @ApiResponse(
           responseCode = "404",
           description = "Category not found, empty response",
           content = @Content
       )
   })
-  public Iterable<Course> getCoursesByCategory(
+  public ResponseEntity<List<?>> getCoursesByCategory(
       @Parameter(description = "ID of the category to filter courses by", required = true)
-      @PathVariable int id) {
+      @PathVariable int id,
+      @Parameter(description = "Cursor returned in X-Next-Cursor by the previous page")
+      @RequestParam(required = false) String after,
+      @Parameter(description = "Maximum number of courses to return")
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+      @Parameter(description = "Ordering of the courses: id, title, startDate, price or "
+          + "popular (most orders and favorites first)")
+      @RequestParam(defaultValue = "id") String sort,
+      @Parameter(description = "Lowest effective price to include, inclusive")
+      @RequestParam(required = false) Double minPrice,
+      @Parameter(description = "Highest effective price to include, inclusive")
+      @RequestParam(required = false) Double maxPrice,
+      @Parameter(description = "First day of the date window, inclusive")
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+      LocalDate runningFrom,
+      @Parameter(description = "Last day of the date window, inclusive")
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+      LocalDate runningTo,
+      @Parameter(description = "How courses must match the date window: overlap or within")
+      @RequestParam(defaultValue = "overlap") String dateMatch,
+      @Parameter(description = "Comma-separated fields to include, e.g. id,title,lowestPrice")
+      @RequestParam(required = false) String fields) {
     logger.info("Getting courses in category with ID: {}", id);
-    Category category = this.categoryRepository.findById(id);
+    BiFunction<CourseCursor, Integer, List<Course>> catalogPages = this.findCatalogPages(
+        false, id, minPrice, maxPrice, runningFrom, runningTo, dateMatch);
+    Category category = this.catalogService.getSnapshot().getCategory(id);
     if (category != null) {
-      return this.courseRepository.findByCategory(category);
+      return this.getCoursePage(after, limit, sort, fields, catalogPages,
+          (cursor, size) -> summarize(catalogPages.apply(cursor, size)));
     } else {
       logger.error("Category with ID {} not found", id);
       throw new ResponseStatusException(HttpStatus.NOT_FOUND,
@@ -217,11 +872,23 @@ public class CourseController {
   }
 
   /**
-   * Get courses by their visibility status.
+   * Get a page of courses by their visibility status.
    * <p>
-   * Endpoint: {@code GET /courses/visible}.
+   * Endpoint: {@code GET /courses/visible?after=&limit=&sort=&minPrice=&maxPrice=}.
    *
-   * @return a collection of courses with the specified visibility status
+   * @param after       the cursor returned with the previous page, or {@code null} for the first
+   *                    page
+   * @param limit       the maximum number of courses to return
+   * @param sort        the ordering of the courses, {@code id}, {@code title}, {@code startDate},
+   *                    {@code price} or {@code popular}
+   * @param minPrice    the lowest effective price to include, or {@code null} for no limit
+   * @param maxPrice    the highest effective price to include, or {@code null} for no limit
+   * @param runningFrom the first day of the date window, or {@code null} for no limit
+   * @param runningTo   the last day of the date window, or {@code null} for no limit
+   * @param dateMatch   how the courses must match the date window, {@code overlap} or
+   *                    {@code within}
+   * @param fields      the comma-separated fields to include, or {@code null} for all fields
+   * @return a page of courses with the specified visibility status
    */
   @GetMapping("/visible")
   @Operation(
@@ -237,15 +904,44 @@ public class CourseController {
               schema = @Schema(implementation = Course.class)
           )
       ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Invalid cursor, limit, sort order, price range or date window",
+          content = @Content
+      ),
       @ApiResponse(
           responseCode = "404",
           description = "No visible courses found, empty response",
           content = @Content
       )
   })
-  public Iterable<Course> getCoursesByVisibility() {
+  public ResponseEntity<List<?>> getCoursesByVisibility(
+      @Parameter(description = "Cursor returned in X-Next-Cursor by the previous page")
+      @RequestParam(required = false) String after,
+      @Parameter(description = "Maximum number of courses to return")
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+      @Parameter(description = "Ordering of the courses: id, title, startDate, price or "
+          + "popular (most orders and favorites first)")
+      @RequestParam(defaultValue = "id") String sort,
+      @Parameter(description = "Lowest effective price to include, inclusive")
+      @RequestParam(required = false) Double minPrice,
+      @Parameter(description = "Highest effective price to include, inclusive")
+      @RequestParam(required = false) Double maxPrice,
+      @Parameter(description = "First day of the date window, inclusive")
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+      LocalDate runningFrom,
+      @Parameter(description = "Last day of the date window, inclusive")
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+      LocalDate runningTo,
+      @Parameter(description = "How courses must match the date window: overlap or within")
+      @RequestParam(defaultValue = "overlap") String dateMatch,
+      @Parameter(description = "Comma-separated fields to include, e.g. id,title,lowestPrice")
+      @RequestParam(required = false) String fields) {
     logger.info("Getting courses that are visible");
-    return this.courseRepository.findByIsVisibleTrue();
+    BiFunction<CourseCursor, Integer, List<Course>> catalogPages = this.findCatalogPages(
+        true, null, minPrice, maxPrice, runningFrom, runningTo, dateMatch);
+    return this.getCoursePage(after, limit, sort, fields, catalogPages,
+        (cursor, size) -> summarize(catalogPages.apply(cursor, size)));
   }
 
   /**
@@ -292,6 +988,75 @@ public class CourseController {
     }
   }
 
+  /**
+   * Change many courses at once (admins only).
+   * <p>
+   * Endpoint: {@code PATCH /courses/bulk}.
+   * <p>
+   * The courses are selected by the query parameters, which must all match, and changed with a
+   * single update statement. The course catalog is refreshed once for all changed courses.
+   *
+   * @param ids        the ids of the courses to change
+   * @param difficulty the difficulties to match
+   * @param category   the ids of the categories to match
+   * @param startFrom  the earliest start date to match
+   * @param startTo    the latest start date to match
+   * @param changes    the attributes to change
+   * @return the number of courses that were changed
+   */
+  @PatchMapping("/bulk")
+  @Operation(
+      summary = "Update many courses",
+      description = "Changes the visibility, difficulty or category of every course matching "
+          + "the given ids, difficulties, categories and start dates. At least one selection "
+          + "parameter is required. Restricted to admins."
+  )
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "Courses updated, the number of changed courses returned",
+          content = @Content(
+              mediaType = "application/json",
+              schema = @Schema(type = "object", example = "{\"updated\": 42}")
+          )
+      ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "No selection or changes, too many ids, invalid date range or unknown "
+              + "category",
+          content = @Content
+      )
+  })
+  public ResponseEntity<Map<String, Integer>> updateCourses(
+      @Parameter(description = "Ids of the courses to change")
+      @RequestParam(required = false) List<Integer> ids,
+      @Parameter(description = "Difficulties to match")
+      @RequestParam(required = false) List<String> difficulty,
+      @Parameter(description = "Ids of the categories to match")
+      @RequestParam(required = false) List<Integer> category,
+      @Parameter(description = "Earliest start date to match, inclusive")
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+      LocalDate startFrom,
+      @Parameter(description = "Latest start date to match, inclusive")
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+      LocalDate startTo,
+      @Parameter(description = "The attributes to change, null to keep", required = true)
+      @RequestBody CourseBulkUpdate changes) {
+    logger.info("Updating courses in bulk");
+    if (ids != null && ids.size() > MAX_PAGE_SIZE) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "At most " + MAX_PAGE_SIZE + " ids can be given");
+    }
+    try {
+      int updated = this.bulkUpdateService.update(ids, difficulty, category, startFrom, startTo,
+          changes);
+      return ResponseEntity.ok(Map.of("updated", updated));
+    } catch (IllegalArgumentException e) {
+      logger.error("Invalid bulk update: {}", e.getMessage());
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+  }
+
   /**
    * Get course images.
    * <p>
@@ -323,7 +1088,7 @@ public class CourseController {
   public ResponseEntity<Map<String, String>> getCourseImage(
       @Parameter(description = "ID of the course to get image for", required = true)
       @PathVariable int id) {
-    Course course = this.courseRepository.findById(id);
+    Course course = this.catalogService.getSnapshot().getCourse(id);
     if (course == null || course.getImagePath() == null) {
       return ResponseEntity.notFound().build();
     }
@@ -398,4 +1163,159 @@ public class CourseController {
       return ResponseEntity.internalServerError().body("Failed to upload image: " + e.getMessage());
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Fetches a page of courses with keyset pagination.
+   * <p>One course more than requested is fetched to find out if there is a next page, in which
+   * case the cursor for it is added in the {@code X-Next-Cursor} header. When only summary fields
+   * are requested, the page is built from course summaries instead of full courses.</p>
+   *
+   * @param after     the cursor returned with the previous page, or {@code null}
+   * @param limit     the maximum number of courses to return
+   * @param sort      the requested ordering
+   * @param fields    the comma-separated fields to include, or {@code null} for all fields
+   * @param courses   looks up the given number of courses following the given cursor
+   * @param summaries looks up the given number of course summaries following the given cursor
+   * @return the page of courses
+   */
+  private ResponseEntity<List<?>> getCoursePage(
+      String after, int limit, String sort, String fields,
+      BiFunction<CourseCursor, Integer, List<Course>> courses,
+      BiFunction<CourseCursor, Integer, List<CourseSummary>> summaries) {
+    if (limit < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive");
+    }
+    CourseCursor cursor;
+    FieldSelection selection;
+    try {
+      cursor = CourseCursor.decode(CourseSort.fromParameter(sort), after);
+      selection = FieldSelection.parse(fields, COURSE_FIELDS);
+    } catch (IllegalArgumentException e) {
+      logger.error("Invalid page request: {}", e.getMessage());
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+    int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+    CourseSort order = cursor.getSort();
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    List<?> page;
+    if (selection != null && selection.isCoveredBy(CourseSummary.FIELDS)) {
+      page = trimToPage(summaries.apply(cursor, pageSize + 1), pageSize, response,
+          last -> order == CourseSort.POPULAR
+              ? this.popularCursorAfter(last.getId()) : CourseCursor.after(order, last));
+    } else {
+      page = trimToPage(courses.apply(cursor, pageSize + 1), pageSize, response,
+          last -> order == CourseSort.POPULAR
+              ? this.popularCursorAfter(last.getId()) : CourseCursor.after(order, last));
+    }
+    return response.body(selection == null ? page : selection.apply(this.objectMapper, page));
+  }
+
+  /**
+   * Creates the cursor after a course in the popularity ordering, which is not part of the
+   * course.
+   */
+  private CourseCursor popularCursorAfter(int courseId) {
+    return CourseCursor.afterPopularity(courseId,
+        this.popularityRanking.getPopularity(courseId));
+  }
+
+  /**
+   * Cuts a list fetched with one extra item down to the page size, adding the cursor for the
+   * next page to the response if the extra item was found.
+   */
+  private static <T> List<T> trimToPage(List<T> fetched, int pageSize,
+                                        ResponseEntity.BodyBuilder response,
+                                        Function<T, CourseCursor> cursorAfter) {
+    if (fetched.size() <= pageSize) {
+      return fetched;
+    }
+    List<T> page = fetched.subList(0, pageSize);
+    response.header(NEXT_CURSOR_HEADER, cursorAfter.apply(page.get(pageSize - 1)).encode());
+    return page;
+  }
+
+  /**
+   * Looks up courses in the catalog in the order of the given ids, skipping repeated ids.
+   */
+  private CourseBatch findCourses(List<Integer> ids) {
+    if (ids.size() > MAX_PAGE_SIZE) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "At most " + MAX_PAGE_SIZE + " ids can be requested at once");
+    }
+    CatalogSnapshot snapshot = this.catalogService.getSnapshot();
+    List<Course> found = new ArrayList<>(ids.size());
+    List<Integer> missing = new ArrayList<>();
+    Set<Integer> seen = new HashSet<>();
+    for (Integer id : ids) {
+      if (id == null || !seen.add(id)) {
+        continue;
+      }
+      Course course = snapshot.getCourse(id);
+      if (course != null) {
+        found.add(course);
+      } else {
+        missing.add(id);
+      }
+    }
+    return new CourseBatch(found, missing);
+  }
+
+  /**
+   * Creates a lookup of pages from the in-memory catalog, limited to a price range and a date
+   * window. Pages ordered by popularity are read from the popularity ranking, other pages
+   * without a date window from the price index, and the rest from the date index.
+   */
+  private BiFunction<CourseCursor, Integer, List<Course>> findCatalogPages(
+      boolean visibleOnly, Integer categoryId, Double minPrice, Double maxPrice,
+      LocalDate runningFrom, LocalDate runningTo, String dateMatch) {
+    checkPriceRange(minPrice, maxPrice);
+    DateMatch match;
+    try {
+      match = DateMatch.fromParameter(dateMatch);
+    } catch (IllegalArgumentException e) {
+      logger.error("Invalid date match: {}", dateMatch);
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+    if (runningFrom != null && runningTo != null && runningFrom.isAfter(runningTo)) {
+      logger.error("Invalid date window: {} to {}", runningFrom, runningTo);
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "runningFrom must not be after runningTo");
+    }
+    boolean hasWindow = runningFrom != null || runningTo != null;
+    Predicate<Course> inScope = course -> (!visibleOnly || course.getIsVisible())
+        && (categoryId == null || (course.getCategory() != null
+            && course.getCategory().getId() == categoryId))
+        && this.priceIndex.isInRange(course.getId(), minPrice, maxPrice);
+    return (cursor, size) -> {
+      if (cursor.getSort() == CourseSort.POPULAR) {
+        Predicate<Course> filter = inScope;
+        if (hasWindow) {
+          int[] inWindow = this.dateIndex.findCourseIds(runningFrom, runningTo, match);
+          filter = filter.and(course -> Arrays.binarySearch(inWindow, course.getId()) >= 0);
+        }
+        return this.popularityRanking.findPage(cursor, filter, size);
+      }
+      if (!hasWindow) {
+        return this.priceIndex.findPage(cursor, visibleOnly, categoryId, minPrice, maxPrice,
+            size);
+      }
+      return this.dateIndex.findPage(cursor, runningFrom, runningTo, match, inScope, size);
+    };
+  }
+
+  /**
+   * Rejects a price range where the lowest price is above the highest price.
+   */
+  private static void checkPriceRange(Double minPrice, Double maxPrice) {
+    if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+      logger.error("Invalid price range: {} to {}", minPrice, maxPrice);
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Minimum price must not be above maximum price");
+    }
+  }
+
+  private static List<CourseSummary> summarize(List<Course> courses) {
+    return courses.stream().map(CourseSummary::new).toList();
+  }
+}
@@ -0,0 +1,173 @@
+package no.ntnu.iir.idata.gr9.backend.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.Locale;
+import java.util.Map;
+import no.ntnu.iir.idata.gr9.backend.entity.CurrencyRate;
+import no.ntnu.iir.idata.gr9.backend.repository.CurrencyRateRepository;
+import no.ntnu.iir.idata.gr9.backend.service.CurrencyConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * REST API controller for managing the currency rates used to compare provider prices.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/currency-rates")
+@Tag(name = "Currency Rate Management",
+    description = "API endpoints for managing currency conversion rates")
+public class CurrencyRateController {
+  private final CurrencyRateRepository currencyRateRepository;
+  private final CurrencyConverter currencyConverter;
+  private static final Logger logger = LoggerFactory.getLogger(CurrencyRateController.class);
+
+  /**
+   * Constructor for CurrencyRateController.
+   *
+   * @param currencyRateRepository the repository for managing currency rates
+   * @param currencyConverter      the converter holding the cached rates
+   */
+  public CurrencyRateController(CurrencyRateRepository currencyRateRepository,
+                                CurrencyConverter currencyConverter) {
+    this.currencyRateRepository = currencyRateRepository;
+    this.currencyConverter = currencyConverter;
+  }
+
+  /**
+   * Get all currency rates.
+   * <p>
+   * Endpoint: {@code GET /currency-rates}.
+   *
+   * @return the value of one unit of each currency in the base currency, by currency code
+   */
+  @GetMapping
+  @Operation(
+      summary = "Get all currency rates",
+      description = "Returns the value of one unit of each currency in the base currency, "
+          + "which has the rate 1."
+  )
+  @ApiResponse(
+      responseCode = "200",
+      description = "Currency rates returned",
+      content = @Content(mediaType = "application/json")
+  )
+  public ResponseEntity<Map<String, Double>> getRates() {
+    logger.info("Getting all currency rates");
+    return ResponseEntity.ok(this.currencyConverter.getRates());
+  }
+
+  /**
+   * Set the rate of a currency (admins only).
+   * <p>
+   * Endpoint: {@code PUT /currency-rates/{currency}?rate=}.
+   * <p>
+   * The prices of the courses with providers in the currency are normalized again once the rate
+   * has been saved.
+   *
+   * @param currency the code of the currency
+   * @param rate     the value of one unit of the currency in the base currency
+   * @return the saved rate
+   */
+  @PutMapping("/{currency}")
+  @Operation(
+      summary = "Set a currency rate",
+      description = "Creates or updates the rate of a currency, and normalizes the prices of "
+          + "the affected courses again."
+  )
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "200",
+          description = "Currency rate saved",
+          content = @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = CurrencyRate.class)
+          )
+      ),
+      @ApiResponse(
+          responseCode = "400",
+          description = "Invalid currency code or rate, or the base currency",
+          content = @Content
+      )
+  })
+  public ResponseEntity<CurrencyRate> setRate(
+      @Parameter(description = "Three-letter code of the currency", required = true)
+      @PathVariable String currency,
+      @Parameter(description = "Value of one unit of the currency in the base currency",
+          required = true)
+      @RequestParam double rate) {
+    String code = currency.toUpperCase(Locale.ROOT);
+    logger.info("Setting the rate of {} to {}", code, rate);
+    if (!code.matches("[A-Z]{3}")) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Currency must be a three-letter code");
+    }
+    if (code.equals(this.currencyConverter.getBaseCurrency())) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "The rate of the base currency is always 1");
+    }
+    if (!(rate > 0) || Double.isInfinite(rate)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rate must be positive");
+    }
+    return ResponseEntity.ok(this.currencyRateRepository.save(new CurrencyRate(code, rate)));
+  }
+
+  /**
+   * Delete the rate of a currency (admins only).
+   * <p>
+   * Endpoint: {@code DELETE /currency-rates/{currency}}.
+   * <p>
+   * Prices in a currency without a rate are treated as prices in the base currency.
+   *
+   * @param currency the code of the currency
+   * @return a response entity indicating the result of the operation
+   */
+  @DeleteMapping("/{currency}")
+  @Operation(
+      summary = "Delete a currency rate",
+      description = "Deletes the rate of a currency, and normalizes the prices of the affected "
+          + "courses again."
+  )
+  @ApiResponses(value = {
+      @ApiResponse(
+          responseCode = "204",
+          description = "Currency rate deleted",
+          content = @Content
+      ),
+      @ApiResponse(
+          responseCode = "404",
+          description = "Currency rate not found",
+          content = @Content
+      )
+  })
+  public ResponseEntity<Void> deleteRate(
+      @Parameter(description = "Three-letter code of the currency", required = true)
+      @PathVariable String currency) {
+    String code = currency.toUpperCase(Locale.ROOT);
+    logger.info("Deleting the rate of {}", code);
+    CurrencyRate rate = this.currencyRateRepository.findById(code).orElse(null);
+    if (rate == null) {
+      logger.error("Currency rate for {} not found", code);
+      return ResponseEntity.notFound().build();
+    }
+    this.currencyRateRepository.delete(rate);
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -12,6 +12,7 @@ import no.ntnu.iir.idata.gr9.backend.entity.Order;
 import no.ntnu.iir.idata.gr9.backend.entity.User;
 import no.ntnu.iir.idata.gr9.backend.repository.OrderRepository;
 import no.ntnu.iir.idata.gr9.backend.repository.UserRepository;
+import no.ntnu.iir.idata.gr9.backend.service.CoursePopularityService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -32,15 +33,20 @@ public class OrderController {
   private final OrderRepository orderRepository;
   private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
   private final UserRepository userRepository;
+  private final CoursePopularityService popularityService;
 
   /**
    * Constructor for OrderController.
    *
-   * @param orderRepository the repository for managing orders
+   * @param orderRepository   the repository for managing orders
+   * @param userRepository    the repository for managing users
+   * @param popularityService the service counting the orders of each course
    */
-  public OrderController(OrderRepository orderRepository, UserRepository userRepository) {
+  public OrderController(OrderRepository orderRepository, UserRepository userRepository,
+                         CoursePopularityService popularityService) {
     this.orderRepository = orderRepository;
     this.userRepository = userRepository;
+    this.popularityService = popularityService;
   }
 
   /**
@@ -164,6 +170,9 @@ public class OrderController {
     }
 
     orderRepository.save(order);
+    if (order.getCourse() != null) {
+      popularityService.recordOrder(order.getCourse().getId(), 1);
+    }
     logger.info("Order saved successfully for user {}", user.getId());
     return ResponseEntity.status(HttpStatus.CREATED).body("Order created successfully, ID: " + order.getId());
   }
@@ -195,12 +204,16 @@ public class OrderController {
   public ResponseEntity<Void> deleteOrder(
       @Parameter(description = "ID of the order to delete", required = true)
       @PathVariable int id) {
-    if (!orderRepository.existsById(id)) {
+    Order order = orderRepository.findById(id);
+    if (order == null) {
       logger.warn("Attempted to delete non-existent order with ID: {}", id);
       return ResponseEntity.notFound().build();
     }
 
     orderRepository.deleteById(id);
+    if (order.getCourse() != null) {
+      popularityService.recordOrder(order.getCourse().getId(), -1);
+    }
     logger.info("Deleted order with ID: {}", id);
     return ResponseEntity.noContent().build();
   }
@@ -10,6 +10,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import no.ntnu.iir.idata.gr9.backend.dto.FavoriteCourseDTO;
 import no.ntnu.iir.idata.gr9.backend.entity.Course;
@@ -22,6 +23,8 @@ import no.ntnu.iir.idata.gr9.backend.dto.AuthenticationRequest;
 import no.ntnu.iir.idata.gr9.backend.dto.AuthenticationResponse;
 import no.ntnu.iir.idata.gr9.backend.security.JwtUtil;
 import no.ntnu.iir.idata.gr9.backend.service.AccessUserService;
+import no.ntnu.iir.idata.gr9.backend.service.CoursePopularityService;
+import no.ntnu.iir.idata.gr9.backend.service.PasswordHashingExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -30,6 +33,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -49,11 +53,15 @@ public class UserController {
   private CourseRepository courseRepository;
   @Autowired
   private FavoriteRepository favoriteRepository;
+  @Autowired
+  private CoursePopularityService popularityService;
   private static final Logger logger = LoggerFactory.getLogger(UserController.class);
   private final AuthenticationManager authenticationManager;
   private final AccessUserService accessUserService;
   @Autowired
   private PasswordEncoder passwordEncoder;
+  @Autowired
+  private PasswordHashingExecutor hashingExecutor;
   private final JwtUtil jwtUtil;
 
   /**
@@ -100,6 +108,11 @@ public class UserController {
           responseCode = "409",
           description = "Username or email already exists",
           content = @Content
+      ),
+      @ApiResponse(
+          responseCode = "503",
+          description = "Too many registrations in progress, try again later",
+          content = @Content
       )
   })
   public ResponseEntity<User> registerUser(@RequestBody User user) {
@@ -113,7 +126,15 @@ public class UserController {
     }
     user.setIsAdmin(false);
     // Hash the password before saving
-    user.setPassword(passwordEncoder.encode(user.getPassword()));
+    String rawPassword = user.getPassword();
+    try {
+      user.setPassword(hashingExecutor.execute(PasswordHashingExecutor.Operation.REGISTER,
+          () -> passwordEncoder.encode(rawPassword)));
+    } catch (RejectedExecutionException e) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .header(HttpHeaders.RETRY_AFTER, PasswordHashingExecutor.RETRY_AFTER_SECONDS)
+          .build();
+    }
     userRepository.save(user);
     logger.info("User {} registered successfully", user.getUsername());
     return ResponseEntity.status(HttpStatus.CREATED).body(user);
@@ -144,6 +165,11 @@ public class UserController {
           responseCode = "401",
           description = "Invalid username or password",
           content = @Content
+      ),
+      @ApiResponse(
+          responseCode = "503",
+          description = "Too many logins in progress, try again later",
+          content = @Content
       )
   })
   public ResponseEntity<?> loginUser(
@@ -151,10 +177,13 @@ public class UserController {
   ) {
     System.out.println("loginUser method was called");
     try {
-      Authentication authentication = authenticationManager.authenticate(
-          new UsernamePasswordAuthenticationToken(
-              authenticationRequest.getUsername(),
-              authenticationRequest.getPassword()
+      Authentication authentication = hashingExecutor.execute(
+          PasswordHashingExecutor.Operation.LOGIN,
+          () -> authenticationManager.authenticate(
+              new UsernamePasswordAuthenticationToken(
+                  authenticationRequest.getUsername(),
+                  authenticationRequest.getPassword()
+              )
           )
       );
 
@@ -172,6 +201,10 @@ public class UserController {
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     } catch (UsernameNotFoundException e) {
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    } catch (RejectedExecutionException e) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .header(HttpHeaders.RETRY_AFTER, PasswordHashingExecutor.RETRY_AFTER_SECONDS)
+          .build();
     } catch (Exception e) {
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
     }
@@ -336,6 +369,7 @@ public class UserController {
 
     // Save the favorite course directly using the repository
     favoriteRepository.save(favoriteCourse);
+    popularityService.recordFavorite(courseId, 1);
 
     // Update user's favorites collection and save user
     user.getFavorites().add(favoriteCourse);
@@ -394,6 +428,7 @@ public class UserController {
     }
     // Remove the course from favorites
     favoriteRepository.delete(favoriteCourse);
+    popularityService.recordFavorite(courseId, -1);
     user.getFavorites().remove(favoriteCourse);
     userRepository.save(user);
     logger.info("Course with ID {} removed from favorites for user {}", courseId, username);
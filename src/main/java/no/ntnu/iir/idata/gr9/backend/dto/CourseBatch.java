@@ -0,0 +1,43 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+
+/**
+ * Data transfer object for courses fetched by their ids in one request.
+ */
+@Schema(description = "Courses fetched by id, in the requested order, with the ids not found.")
+public class CourseBatch {
+  private final List<Course> courses;
+  private final List<Integer> missingIds;
+
+  /**
+   * Creates a new batch of courses.
+   *
+   * @param courses    the courses found, in the order their ids were requested
+   * @param missingIds the requested ids without a course, in the order they were requested
+   */
+  public CourseBatch(List<Course> courses, List<Integer> missingIds) {
+    this.courses = courses;
+    this.missingIds = missingIds;
+  }
+
+  /**
+   * Returns the courses found, in the order their ids were requested.
+   *
+   * @return the courses found
+   */
+  public List<Course> getCourses() {
+    return this.courses;
+  }
+
+  /**
+   * Returns the requested ids without a course, in the order they were requested.
+   *
+   * @return the missing ids
+   */
+  public List<Integer> getMissingIds() {
+    return this.missingIds;
+  }
+}
@@ -0,0 +1,90 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+/**
+ * The changes to apply to every course selected by a bulk update.
+ * <p>Only the fields that are set are changed; {@code null} leaves the attribute as it is.</p>
+ */
+public class CourseBulkUpdate {
+  private Boolean isVisible;
+  private String difficulty;
+  private Integer categoryId;
+
+  public CourseBulkUpdate() {
+  }
+
+  /**
+   * Creates a bulk update with the given changes.
+   *
+   * @param isVisible  the new visibility, or {@code null} to keep it
+   * @param difficulty the new difficulty, or {@code null} to keep it
+   * @param categoryId the id of the new category, or {@code null} to keep it
+   */
+  public CourseBulkUpdate(Boolean isVisible, String difficulty, Integer categoryId) {
+    this.isVisible = isVisible;
+    this.difficulty = difficulty;
+    this.categoryId = categoryId;
+  }
+
+  /**
+   * Gets the new visibility of the courses.
+   *
+   * @return the new visibility, or {@code null} to keep it
+   */
+  public Boolean getIsVisible() {
+    return isVisible;
+  }
+
+  /**
+   * Sets the new visibility of the courses.
+   *
+   * @param isVisible the new visibility, or {@code null} to keep it
+   */
+  public void setIsVisible(Boolean isVisible) {
+    this.isVisible = isVisible;
+  }
+
+  /**
+   * Gets the new difficulty of the courses.
+   *
+   * @return the new difficulty, or {@code null} to keep it
+   */
+  public String getDifficulty() {
+    return difficulty;
+  }
+
+  /**
+   * Sets the new difficulty of the courses.
+   *
+   * @param difficulty the new difficulty, or {@code null} to keep it
+   */
+  public void setDifficulty(String difficulty) {
+    this.difficulty = difficulty;
+  }
+
+  /**
+   * Gets the id of the new category of the courses.
+   *
+   * @return the id of the new category, or {@code null} to keep it
+   */
+  public Integer getCategoryId() {
+    return categoryId;
+  }
+
+  /**
+   * Sets the id of the new category of the courses.
+   *
+   * @param categoryId the id of the new category, or {@code null} to keep it
+   */
+  public void setCategoryId(Integer categoryId) {
+    this.categoryId = categoryId;
+  }
+
+  /**
+   * Checks whether the update changes anything.
+   *
+   * @return {@code true} if at least one attribute is set
+   */
+  public boolean hasChanges() {
+    return this.isVisible != null || this.difficulty != null || this.categoryId != null;
+  }
+}
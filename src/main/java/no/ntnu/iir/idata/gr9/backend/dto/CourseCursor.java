@@ -0,0 +1,214 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+
+/**
+ * A keyset cursor pointing just after the last course of a page.
+ * <p>The cursor holds the sort key and id of the last course that was returned, so the next page
+ * can be found with an index seek instead of an offset. For the default id ordering the token is
+ * simply the id, for the other orderings it is an opaque URL-safe string.</p>
+ */
+public class CourseCursor {
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+  private static final char SEPARATOR = ':';
+
+  private final CourseSort sort;
+  private final int afterId;
+  private final String afterTitle;
+  private final LocalDate afterStartDate;
+  private final Double afterPrice;
+  private final Long afterPopularity;
+
+  private CourseCursor(CourseSort sort, int afterId, String afterTitle,
+                       LocalDate afterStartDate, Double afterPrice, Long afterPopularity) {
+    this.sort = sort;
+    this.afterId = afterId;
+    this.afterTitle = afterTitle;
+    this.afterStartDate = afterStartDate;
+    this.afterPrice = afterPrice;
+    this.afterPopularity = afterPopularity;
+  }
+
+  /**
+   * Creates a cursor pointing before the first course.
+   *
+   * @param sort the ordering of the listing
+   * @return a cursor for the first page
+   */
+  public static CourseCursor first(CourseSort sort) {
+    return new CourseCursor(sort, Integer.MIN_VALUE, null, null, null, null);
+  }
+
+  /**
+   * Creates a cursor pointing just after the given course, for any ordering but popularity.
+   *
+   * @param sort   the ordering of the listing
+   * @param course the last course of the current page
+   * @return a cursor for the next page
+   */
+  public static CourseCursor after(CourseSort sort, Course course) {
+    return new CourseCursor(sort, course.getId(), course.getTitle(), course.getStartDate(),
+        course.getLowestPrice(), null);
+  }
+
+  /**
+   * Creates a cursor pointing just after the given course summary, for any ordering but
+   * popularity.
+   *
+   * @param sort    the ordering of the listing
+   * @param summary the last course summary of the current page
+   * @return a cursor for the next page
+   */
+  public static CourseCursor after(CourseSort sort, CourseSummary summary) {
+    return new CourseCursor(sort, summary.getId(), summary.getTitle(), summary.getStartDate(),
+        summary.getLowestPrice(), null);
+  }
+
+  /**
+   * Creates a cursor pointing just after the given course in the popularity ordering.
+   * <p>Popularity is not part of the courses, so it is given separately.</p>
+   *
+   * @param courseId   the id of the last course of the current page
+   * @param popularity the popularity of that course
+   * @return a cursor for the next page
+   */
+  public static CourseCursor afterPopularity(int courseId, long popularity) {
+    return new CourseCursor(CourseSort.POPULAR, courseId, null, null, null, popularity);
+  }
+
+  /**
+   * Decodes a cursor token received in the {@code after} request parameter.
+   *
+   * @param sort  the ordering of the listing
+   * @param token the token, or {@code null} for the first page
+   * @return the decoded cursor
+   * @throws IllegalArgumentException if the token is not a valid cursor for the given ordering
+   */
+  public static CourseCursor decode(CourseSort sort, String token) {
+    if (token == null || token.isBlank()) {
+      return first(sort);
+    }
+    try {
+      if (sort == CourseSort.ID) {
+        return new CourseCursor(sort, Integer.parseInt(token), null, null, null, null);
+      }
+      String decoded = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+      int separatorIndex = decoded.indexOf(SEPARATOR);
+      if (separatorIndex < 0) {
+        separatorIndex = decoded.length();
+      }
+      int id = Integer.parseInt(decoded.substring(0, separatorIndex));
+      String value = separatorIndex == decoded.length()
+          ? null : decoded.substring(separatorIndex + 1);
+      if (sort == CourseSort.TITLE) {
+        return new CourseCursor(sort, id, value, null, null, null);
+      }
+      if (sort == CourseSort.PRICE) {
+        return new CourseCursor(sort, id, null, null,
+            value == null ? null : Double.valueOf(value), null);
+      }
+      if (sort == CourseSort.POPULAR) {
+        return new CourseCursor(sort, id, null, null, null,
+            value == null ? null : Long.valueOf(value));
+      }
+      return new CourseCursor(sort, id, null, value == null ? null : LocalDate.parse(value),
+          null, null);
+    } catch (NumberFormatException | DateTimeParseException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + token, e);
+    }
+  }
+
+  /**
+   * Encodes this cursor as a token for the {@code after} request parameter.
+   *
+   * @return the cursor token
+   */
+  public String encode() {
+    if (this.sort == CourseSort.ID) {
+      return String.valueOf(this.afterId);
+    }
+    Object value = switch (this.sort) {
+      case TITLE -> this.afterTitle;
+      case PRICE -> this.afterPrice;
+      case POPULAR -> this.afterPopularity;
+      default -> this.afterStartDate;
+    };
+    String raw = value == null ? String.valueOf(this.afterId) : this.afterId + ":" + value;
+    return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Gets the ordering this cursor belongs to.
+   *
+   * @return the ordering
+   */
+  public CourseSort getSort() {
+    return this.sort;
+  }
+
+  /**
+   * Gets the id of the last course returned.
+   *
+   * @return the id of the last course returned
+   */
+  public int getAfterId() {
+    return this.afterId;
+  }
+
+  /**
+   * Gets the title of the last course returned.
+   *
+   * @return the title, or {@code null} if the title was missing
+   */
+  public String getAfterTitle() {
+    return this.afterTitle;
+  }
+
+  /**
+   * Gets the start date of the last course returned.
+   *
+   * @return the start date, or {@code null} if the start date was missing
+   */
+  public LocalDate getAfterStartDate() {
+    return this.afterStartDate;
+  }
+
+  /**
+   * Gets the lowest price of the last course returned.
+   *
+   * @return the lowest price, or {@code null} if the course had no providers
+   */
+  public Double getAfterPrice() {
+    return this.afterPrice;
+  }
+
+  /**
+   * Gets the popularity of the last course returned.
+   *
+   * @return the popularity, or {@code null} if no course has been returned yet
+   */
+  public Long getAfterPopularity() {
+    return this.afterPopularity;
+  }
+
+  /**
+   * Checks if the sort key of the last course returned was missing.
+   * <p>Missing values sort before all others, so the first page also starts in this state.</p>
+   *
+   * @return {@code true} if the sort key was missing, {@code false} otherwise
+   */
+  public boolean isAfterNull() {
+    return switch (this.sort) {
+      case ID -> false;
+      case TITLE -> this.afterTitle == null;
+      case START_DATE -> this.afterStartDate == null;
+      case PRICE -> this.afterPrice == null;
+      case POPULAR -> this.afterPopularity == null;
+    };
+  }
+}
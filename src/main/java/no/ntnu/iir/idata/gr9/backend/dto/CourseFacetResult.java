@@ -0,0 +1,73 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.Map;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+
+/**
+ * Data transfer object for one page of courses matching a filter, with facet counts.
+ */
+@Schema(description = "One page of courses matching a filter, with the counts of each facet.")
+public class CourseFacetResult {
+  private final int total;
+  private final int offset;
+  private final List<Course> courses;
+  private final Map<String, Map<String, Integer>> facets;
+
+  /**
+   * Creates a new page of filtered courses.
+   *
+   * @param total   the total number of matching courses
+   * @param offset  the number of matches skipped before this page
+   * @param courses the matching courses on this page, ordered by id
+   * @param facets  the number of matches for each value of each facet
+   */
+  public CourseFacetResult(int total, int offset, List<Course> courses,
+                           Map<String, Map<String, Integer>> facets) {
+    this.total = total;
+    this.offset = offset;
+    this.courses = courses;
+    this.facets = facets;
+  }
+
+  /**
+   * Returns the total number of matching courses.
+   *
+   * @return the total number of matches
+   */
+  public int getTotal() {
+    return this.total;
+  }
+
+  /**
+   * Returns the number of matches skipped before this page.
+   *
+   * @return the offset of this page
+   */
+  public int getOffset() {
+    return this.offset;
+  }
+
+  /**
+   * Returns the matching courses on this page.
+   *
+   * @return the matching courses, ordered by id
+   */
+  public List<Course> getCourses() {
+    return this.courses;
+  }
+
+  /**
+   * Returns the facet counts, by facet name and then by value.
+   * <p>The count of a value is the number of courses that would match if that value were
+   * selected in its facet, keeping the filters on the other facets.</p>
+   *
+   * @return the facet counts
+   */
+  @Schema(description = "Number of matches by facet name and value, counted with the filters "
+      + "on the other facets applied")
+  public Map<String, Map<String, Integer>> getFacets() {
+    return this.facets;
+  }
+}
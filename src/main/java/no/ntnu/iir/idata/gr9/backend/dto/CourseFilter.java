@@ -0,0 +1,142 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A combination of filters on the course catalog.
+ * <p>Courses must match every facet that is filtered on. Within one facet, a course must match
+ * one of the given values. An empty set or a {@code null} bound means the facet is not
+ * filtered on. {@code null} values, which Spring binds for empty parameters such as
+ * {@code ?ects=}, are ignored.</p>
+ */
+public class CourseFilter {
+  private final Set<String> difficulties;
+  private final Set<Integer> categoryIds;
+  private final Set<Double> ectsValues;
+  private final LocalDate startFrom;
+  private final LocalDate startTo;
+  private final Double minPrice;
+  private final Double maxPrice;
+
+  /**
+   * Creates a new filter.
+   *
+   * @param difficulties the difficulties to match, may be {@code null}
+   * @param categoryIds  the ids of the categories to match, may be {@code null}
+   * @param ectsValues   the ECTS values to match, may be {@code null}
+   * @param startFrom    the earliest start date to match, inclusive, may be {@code null}
+   * @param startTo      the latest start date to match, inclusive, may be {@code null}
+   * @param minPrice     the lowest price to match, inclusive, may be {@code null}
+   * @param maxPrice     the highest price to match, inclusive, may be {@code null}
+   * @throws IllegalArgumentException if a lower bound is after its upper bound
+   */
+  public CourseFilter(Collection<String> difficulties, Collection<Integer> categoryIds,
+                      Collection<Double> ectsValues, LocalDate startFrom, LocalDate startTo,
+                      Double minPrice, Double maxPrice) {
+    if (startFrom != null && startTo != null && startFrom.isAfter(startTo)) {
+      throw new IllegalArgumentException("startFrom must not be after startTo");
+    }
+    if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+      throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+    }
+    this.difficulties = copyWithoutNulls(difficulties);
+    this.categoryIds = copyWithoutNulls(categoryIds);
+    this.ectsValues = copyWithoutNulls(ectsValues);
+    this.startFrom = startFrom;
+    this.startTo = startTo;
+    this.minPrice = minPrice;
+    this.maxPrice = maxPrice;
+  }
+
+  /**
+   * Returns the difficulties to match.
+   *
+   * @return the difficulties, empty if not filtered on
+   */
+  public Set<String> getDifficulties() {
+    return this.difficulties;
+  }
+
+  /**
+   * Returns the ids of the categories to match.
+   *
+   * @return the category ids, empty if not filtered on
+   */
+  public Set<Integer> getCategoryIds() {
+    return this.categoryIds;
+  }
+
+  /**
+   * Returns the ECTS values to match.
+   *
+   * @return the ECTS values, empty if not filtered on
+   */
+  public Set<Double> getEctsValues() {
+    return this.ectsValues;
+  }
+
+  /**
+   * Returns the earliest start date to match.
+   *
+   * @return the earliest start date, or {@code null} if not bounded
+   */
+  public LocalDate getStartFrom() {
+    return this.startFrom;
+  }
+
+  /**
+   * Returns the latest start date to match.
+   *
+   * @return the latest start date, or {@code null} if not bounded
+   */
+  public LocalDate getStartTo() {
+    return this.startTo;
+  }
+
+  /**
+   * Returns the lowest price to match.
+   *
+   * @return the lowest price, or {@code null} if not bounded
+   */
+  public Double getMinPrice() {
+    return this.minPrice;
+  }
+
+  /**
+   * Returns the highest price to match.
+   *
+   * @return the highest price, or {@code null} if not bounded
+   */
+  public Double getMaxPrice() {
+    return this.maxPrice;
+  }
+
+  /**
+   * Checks whether the start date is filtered on.
+   *
+   * @return true if a start date bound is set
+   */
+  public boolean hasDateRange() {
+    return this.startFrom != null || this.startTo != null;
+  }
+
+  /**
+   * Checks whether the price is filtered on.
+   *
+   * @return true if a price bound is set
+   */
+  public boolean hasPriceRange() {
+    return this.minPrice != null || this.maxPrice != null;
+  }
+
+  private static <T> Set<T> copyWithoutNulls(Collection<T> values) {
+    if (values == null) {
+      return Set.of();
+    }
+    return values.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+  }
+}
@@ -0,0 +1,53 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Data transfer object for a row that could not be imported.
+ */
+@Schema(description = "A row of a course import that was skipped, with the reason.")
+public class CourseImportError {
+  private final long line;
+  private final Integer courseId;
+  private final String message;
+
+  /**
+   * Creates a new import error.
+   *
+   * @param line     the line the row starts on
+   * @param courseId the id of the course in the row, or {@code null} if it could not be read
+   * @param message  the reason the row was skipped
+   */
+  public CourseImportError(long line, Integer courseId, String message) {
+    this.line = line;
+    this.courseId = courseId;
+    this.message = message;
+  }
+
+  /**
+   * Returns the line the row starts on.
+   *
+   * @return the line number, starting from 1
+   */
+  public long getLine() {
+    return this.line;
+  }
+
+  /**
+   * Returns the id of the course in the row.
+   *
+   * @return the course id, or {@code null} if it could not be read
+   */
+  public Integer getCourseId() {
+    return this.courseId;
+  }
+
+  /**
+   * Returns the reason the row was skipped.
+   *
+   * @return the error message
+   */
+  public String getMessage() {
+    return this.message;
+  }
+}
@@ -0,0 +1,56 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * Data transfer object for the outcome of a course import.
+ */
+@Schema(description = "The outcome of a course import, with the rows that were skipped.")
+public class CourseImportResult {
+  private final int imported;
+  private final int failed;
+  private final List<CourseImportError> errors;
+
+  /**
+   * Creates a new import result.
+   *
+   * @param imported the number of courses created or updated
+   * @param failed   the number of courses skipped because of an error
+   * @param errors   the errors, possibly cut short if there were very many
+   */
+  public CourseImportResult(int imported, int failed, List<CourseImportError> errors) {
+    this.imported = imported;
+    this.failed = failed;
+    this.errors = errors;
+  }
+
+  /**
+   * Returns the number of courses created or updated.
+   *
+   * @return the number of imported courses
+   */
+  public int getImported() {
+    return this.imported;
+  }
+
+  /**
+   * Returns the number of courses skipped because of an error.
+   *
+   * @return the number of failed courses
+   */
+  public int getFailed() {
+    return this.failed;
+  }
+
+  /**
+   * Returns the errors of the skipped rows, in the order of the input.
+   * <p>Only the first errors are kept, so the list may be shorter than the number of failed
+   * courses.</p>
+   *
+   * @return the errors
+   */
+  public List<CourseImportError> getErrors() {
+    return this.errors;
+  }
+}
@@ -0,0 +1,42 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+
+/**
+ * Data transfer object for a course matching a search, with its relevance score.
+ */
+@Schema(description = "A course matching a search, with its relevance score.")
+public class CourseSearchHit {
+  private final Course course;
+  private final double score;
+
+  /**
+   * Creates a new search hit.
+   *
+   * @param course the matching course
+   * @param score  the relevance score of the course, higher is better
+   */
+  public CourseSearchHit(Course course, double score) {
+    this.course = course;
+    this.score = score;
+  }
+
+  /**
+   * Returns the matching course.
+   *
+   * @return the matching course
+   */
+  public Course getCourse() {
+    return this.course;
+  }
+
+  /**
+   * Returns the relevance score of the course.
+   *
+   * @return the relevance score, higher is better
+   */
+  public double getScore() {
+    return this.score;
+  }
+}
@@ -0,0 +1,81 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * Data transfer object for one page of course search results.
+ */
+@Schema(description = "One page of course search results, best match first.")
+public class CourseSearchResult {
+  private final String query;
+  private final int total;
+  private final int offset;
+  private final List<CourseSearchHit> hits;
+  private final List<String> suggestions;
+
+  /**
+   * Creates a new page of search results.
+   *
+   * @param query       the query that was searched for
+   * @param total       the total number of matching courses
+   * @param offset      the number of matches skipped before this page
+   * @param hits        the matches on this page, best first
+   * @param suggestions alternative queries to suggest, empty if there are none
+   */
+  public CourseSearchResult(String query, int total, int offset, List<CourseSearchHit> hits,
+                            List<String> suggestions) {
+    this.query = query;
+    this.total = total;
+    this.offset = offset;
+    this.hits = hits;
+    this.suggestions = suggestions;
+  }
+
+  /**
+   * Returns the query that was searched for.
+   *
+   * @return the query
+   */
+  public String getQuery() {
+    return this.query;
+  }
+
+  /**
+   * Returns the total number of matching courses.
+   *
+   * @return the total number of matches
+   */
+  public int getTotal() {
+    return this.total;
+  }
+
+  /**
+   * Returns the number of matches skipped before this page.
+   *
+   * @return the offset of this page
+   */
+  public int getOffset() {
+    return this.offset;
+  }
+
+  /**
+   * Returns the matches on this page.
+   *
+   * @return the matches, best first
+   */
+  public List<CourseSearchHit> getHits() {
+    return this.hits;
+  }
+
+  /**
+   * Returns the alternative queries to suggest, "did you mean", when nothing matched.
+   *
+   * @return the alternative queries, best first, empty if there are none
+   */
+  @Schema(description = "Corrected queries to suggest when nothing matched",
+      example = "[\"java programming\"]")
+  public List<String> getSuggestions() {
+    return this.suggestions;
+  }
+}
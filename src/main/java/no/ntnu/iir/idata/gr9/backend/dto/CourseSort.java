@@ -0,0 +1,56 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+/**
+ * The orderings supported when paging through course listings.
+ * <p>Every ordering is made stable by using the course id as a tie-breaker. The popularity
+ * ordering is the only one to put the highest values first, and the only one not read from the
+ * courses, as popularity is ranked apart from the catalog by {@code CoursePopularityRanking}.</p>
+ */
+public enum CourseSort {
+  ID("id"),
+  TITLE("title"),
+  START_DATE("startDate"),
+  PRICE("price"),
+  POPULAR("popular");
+
+  private final String parameterValue;
+
+  CourseSort(String parameterValue) {
+    this.parameterValue = parameterValue;
+  }
+
+  /**
+   * Gets the value used for this ordering in the {@code sort} request parameter.
+   *
+   * @return the request parameter value
+   */
+  public String getParameterValue() {
+    return this.parameterValue;
+  }
+
+  /**
+   * Checks if this ordering is computed from other tables, so pages ordered by it are served
+   * from the in-memory catalog instead of the database.
+   *
+   * @return true if the database does not page by this ordering
+   */
+  public boolean isCatalogOnly() {
+    return this == PRICE || this == POPULAR;
+  }
+
+  /**
+   * Finds the ordering matching a {@code sort} request parameter.
+   *
+   * @param parameterValue the value of the request parameter
+   * @return the matching ordering
+   * @throws IllegalArgumentException if no ordering matches the given value
+   */
+  public static CourseSort fromParameter(String parameterValue) {
+    for (CourseSort sort : values()) {
+      if (sort.parameterValue.equalsIgnoreCase(parameterValue)) {
+        return sort;
+      }
+    }
+    throw new IllegalArgumentException("Unknown sort order: " + parameterValue);
+  }
+}
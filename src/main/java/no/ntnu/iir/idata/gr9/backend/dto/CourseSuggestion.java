@@ -0,0 +1,43 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Data transfer object for a course suggested while the user types a search.
+ */
+@Schema(description = "A course suggested while typing a search.")
+public class CourseSuggestion {
+  @Schema(description = "The course's unique id.", example = "1")
+  private final int id;
+  @Schema(description = "The course's title.", example = "Java Programming")
+  private final String title;
+
+  /**
+   * Creates a new suggestion.
+   *
+   * @param id    the id of the suggested course
+   * @param title the title of the suggested course
+   */
+  public CourseSuggestion(int id, String title) {
+    this.id = id;
+    this.title = title;
+  }
+
+  /**
+   * Returns the id of the suggested course.
+   *
+   * @return the course id
+   */
+  public int getId() {
+    return this.id;
+  }
+
+  /**
+   * Returns the title of the suggested course.
+   *
+   * @return the course title
+   */
+  public String getTitle() {
+    return this.title;
+  }
+}
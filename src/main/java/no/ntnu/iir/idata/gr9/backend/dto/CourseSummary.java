@@ -0,0 +1,121 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDate;
+import java.util.Set;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+
+/**
+ * Data transfer object with only the course data shown in course listings.
+ * <p>Can be selected directly by the summary queries in {@code CourseRepository}, so the long
+ * text columns and the providers never have to be loaded.</p>
+ */
+@Schema(description = "The course data shown in course listings.")
+public class CourseSummary {
+  /** The names of the JSON properties of a course summary. */
+  public static final Set<String> FIELDS = Set.of(
+      "id", "title", "difficulty", "ects", "startDate", "imagePath", "lowestPrice");
+
+  private final int id;
+  private final String title;
+  private final String difficulty;
+  private final Double ects;
+  private final LocalDate startDate;
+  private final String imagePath;
+  private final Double lowestPrice;
+
+  /**
+   * Creates a new course summary.
+   *
+   * @param id          the course's id
+   * @param title       the course's title
+   * @param difficulty  the course's difficulty
+   * @param ects        the course's ECTS credits
+   * @param startDate   the course's start date
+   * @param imagePath   the course's image path
+   * @param lowestPrice the course's lowest price after discount, or {@code null} if none
+   */
+  public CourseSummary(int id, String title, String difficulty, Double ects, LocalDate startDate,
+                       String imagePath, Double lowestPrice) {
+    this.id = id;
+    this.title = title;
+    this.difficulty = difficulty;
+    this.ects = ects;
+    this.startDate = startDate;
+    this.imagePath = imagePath;
+    this.lowestPrice = lowestPrice;
+  }
+
+  /**
+   * Creates a new course summary from a course.
+   *
+   * @param course the course to create a summary of
+   */
+  public CourseSummary(Course course) {
+    this(course.getId(), course.getTitle(), course.getDifficulty(), course.getEcts(),
+        course.getStartDate(), course.getImagePath(), course.getLowestPrice());
+  }
+
+  /**
+   * Returns the id of the course.
+   *
+   * @return the id of the course
+   */
+  public int getId() {
+    return this.id;
+  }
+
+  /**
+   * Returns the title of the course.
+   *
+   * @return the title of the course
+   */
+  public String getTitle() {
+    return this.title;
+  }
+
+  /**
+   * Returns the difficulty of the course.
+   *
+   * @return the difficulty of the course
+   */
+  public String getDifficulty() {
+    return this.difficulty;
+  }
+
+  /**
+   * Returns the ECTS credits of the course.
+   *
+   * @return the ECTS credits of the course
+   */
+  public Double getEcts() {
+    return this.ects;
+  }
+
+  /**
+   * Returns the start date of the course.
+   *
+   * @return the start date of the course
+   */
+  public LocalDate getStartDate() {
+    return this.startDate;
+  }
+
+  /**
+   * Returns the image path of the course.
+   *
+   * @return the image path of the course
+   */
+  public String getImagePath() {
+    return this.imagePath;
+  }
+
+  /**
+   * Returns the lowest price of the course after discount.
+   *
+   * @return the lowest price, or {@code null} if the course has no providers
+   */
+  public Double getLowestPrice() {
+    return this.lowestPrice;
+  }
+}
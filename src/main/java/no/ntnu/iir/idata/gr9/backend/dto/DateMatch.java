@@ -0,0 +1,48 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+/**
+ * The ways the dates of a course can be matched against a date window.
+ * <p>A course runs from its start date to its end date, both inclusive. A course without an end
+ * date runs on its start date only, and a course without a start date never matches.</p>
+ */
+public enum DateMatch {
+  /**
+   * The course runs on at least one day of the window.
+   */
+  OVERLAP("overlap"),
+  /**
+   * The course starts and ends within the window.
+   */
+  WITHIN("within");
+
+  private final String parameterValue;
+
+  DateMatch(String parameterValue) {
+    this.parameterValue = parameterValue;
+  }
+
+  /**
+   * Gets the value used for this match in the {@code dateMatch} request parameter.
+   *
+   * @return the request parameter value
+   */
+  public String getParameterValue() {
+    return this.parameterValue;
+  }
+
+  /**
+   * Finds the match mode matching a {@code dateMatch} request parameter.
+   *
+   * @param parameterValue the value of the request parameter
+   * @return the matching mode
+   * @throws IllegalArgumentException if no mode matches the given value
+   */
+  public static DateMatch fromParameter(String parameterValue) {
+    for (DateMatch match : values()) {
+      if (match.parameterValue.equalsIgnoreCase(parameterValue)) {
+        return match;
+      }
+    }
+    throw new IllegalArgumentException("Unknown date match: " + parameterValue);
+  }
+}
@@ -0,0 +1,92 @@
+package no.ntnu.iir.idata.gr9.backend.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A sparse fieldset, selecting which JSON properties to include in a response.
+ * <p>Parsed from a comma-separated {@code fields} request parameter, for example
+ * {@code ?fields=id,title,lowestPrice}.</p>
+ */
+public class FieldSelection {
+  private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+  };
+
+  private final Set<String> fields;
+
+  private FieldSelection(Set<String> fields) {
+    this.fields = Collections.unmodifiableSet(fields);
+  }
+
+  /**
+   * Parses a {@code fields} request parameter.
+   *
+   * @param parameterValue  the comma-separated field names, or {@code null}
+   * @param availableFields the field names that can be selected
+   * @return the selection, or {@code null} if no fields were given
+   * @throws IllegalArgumentException if a field name is not available
+   */
+  public static FieldSelection parse(String parameterValue, Set<String> availableFields) {
+    if (parameterValue == null || parameterValue.isBlank()) {
+      return null;
+    }
+    Set<String> fields = new LinkedHashSet<>();
+    for (String field : parameterValue.split(",")) {
+      String trimmed = field.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      if (!availableFields.contains(trimmed)) {
+        throw new IllegalArgumentException("Unknown field: " + trimmed);
+      }
+      fields.add(trimmed);
+    }
+    return fields.isEmpty() ? null : new FieldSelection(fields);
+  }
+
+  /**
+   * Gets the selected field names, in the order they were requested.
+   *
+   * @return the selected field names
+   */
+  public Set<String> getFields() {
+    return this.fields;
+  }
+
+  /**
+   * Checks if all selected fields are among the given fields.
+   *
+   * @param availableFields the fields to check against
+   * @return {@code true} if every selected field is available, {@code false} otherwise
+   */
+  public boolean isCoveredBy(Set<String> availableFields) {
+    return availableFields.containsAll(this.fields);
+  }
+
+  /**
+   * Converts the given objects to JSON objects holding only the selected fields.
+   *
+   * @param objectMapper the object mapper used to serialize the objects
+   * @param items        the objects to convert
+   * @return one map per object with the selected fields, in the requested order
+   */
+  public List<Map<String, Object>> apply(ObjectMapper objectMapper, List<?> items) {
+    List<Map<String, Object>> selected = new ArrayList<>(items.size());
+    for (Object item : items) {
+      Map<String, Object> all = objectMapper.convertValue(item, MAP_TYPE);
+      Map<String, Object> fieldsOfItem = new LinkedHashMap<>();
+      for (String field : this.fields) {
+        fieldsOfItem.put(field, all.get(field));
+      }
+      selected.add(fieldsOfItem);
+    }
+    return selected;
+  }
+}
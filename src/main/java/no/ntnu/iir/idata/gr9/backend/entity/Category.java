@@ -3,11 +3,13 @@ package no.ntnu.iir.idata.gr9.backend.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import java.util.Set;
+import no.ntnu.iir.idata.gr9.backend.service.CatalogChangeListener;
 
 /**
  * Represents a category.
@@ -26,6 +28,7 @@ import java.util.Set;
  * </ul>
  */
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Schema(description = "Represents a category.")
 public class Category {
   @Id
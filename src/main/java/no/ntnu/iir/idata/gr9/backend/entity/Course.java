@@ -2,6 +2,7 @@ package no.ntnu.iir.idata.gr9.backend.entity;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -9,6 +10,7 @@ import jakarta.persistence.OneToMany;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
+import no.ntnu.iir.idata.gr9.backend.service.CatalogChangeListener;
 
 /**
  * Represents a course.
@@ -30,6 +32,7 @@ import java.util.Set;
  * </ul>
  */
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Schema(description = "Represents a course.")
 public class Course {
   @Id
@@ -352,6 +355,25 @@ public class Course {
     provider.setCourse(null);
   }
 
+  /**
+   * Gets the lowest price of the course among its providers, after discount, in the base
+   * currency.
+   *
+   * @return the lowest normalized price, or {@code null} if the course has no providers
+   */
+  @Schema(description = "The course's lowest price among its providers, after discount, "
+      + "in the base currency.", example = "90.0")
+  public Double getLowestPrice() {
+    Double lowestPrice = null;
+    for (CourseProvider provider : this.providers) {
+      double price = provider.getNormalizedPrice();
+      if (lowestPrice == null || price < lowestPrice) {
+        lowestPrice = price;
+      }
+    }
+    return lowestPrice;
+  }
+
   /**
    * Gets the course's image path.
    *
@@ -0,0 +1,105 @@
+package no.ntnu.iir.idata.gr9.backend.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Represents the popularity counters of a course.
+ * <p>A course popularity has:</p>
+ * <ul>
+ *   <li>The id of the course</li>
+ *   <li>The number of orders of the course</li>
+ *   <li>The number of users who have the course as a favorite</li>
+ * </ul>
+ * <p>The counters are written by {@code CoursePopularityService}, which adds up the changes in
+ * memory and flushes them periodically, so placing an order never has to count rows.</p>
+ */
+@Entity
+@Table(name = "course_popularity")
+@Schema(description = "Represents the popularity counters of a course.")
+public class CoursePopularity {
+  @Id
+  @Column(name = "course_id")
+  @Schema(description = "The id of the course.", example = "1")
+  private int courseId;
+  @Column(name = "order_count")
+  @Schema(description = "The number of orders of the course.", example = "12")
+  private long orderCount;
+  @Column(name = "favorite_count")
+  @Schema(description = "The number of users who have the course as a favorite.",
+      example = "4")
+  private long favoriteCount;
+
+  public CoursePopularity() {
+  }
+
+  /**
+   * Creates new popularity counters.
+   *
+   * @param courseId      the id of the course
+   * @param orderCount    the number of orders of the course
+   * @param favoriteCount the number of users who have the course as a favorite
+   */
+  public CoursePopularity(int courseId, long orderCount, long favoriteCount) {
+    setCourseId(courseId);
+    setOrderCount(orderCount);
+    setFavoriteCount(favoriteCount);
+  }
+
+  /**
+   * Gets the id of the course.
+   *
+   * @return the id of the course
+   */
+  public int getCourseId() {
+    return this.courseId;
+  }
+
+  /**
+   * Sets the id of the course.
+   *
+   * @param courseId the id of the course
+   */
+  public void setCourseId(int courseId) {
+    this.courseId = courseId;
+  }
+
+  /**
+   * Gets the number of orders of the course.
+   *
+   * @return the number of orders
+   */
+  public long getOrderCount() {
+    return this.orderCount;
+  }
+
+  /**
+   * Sets the number of orders of the course.
+   *
+   * @param orderCount the number of orders
+   */
+  public void setOrderCount(long orderCount) {
+    this.orderCount = orderCount;
+  }
+
+  /**
+   * Gets the number of users who have the course as a favorite.
+   *
+   * @return the number of favorites
+   */
+  public long getFavoriteCount() {
+    return this.favoriteCount;
+  }
+
+  /**
+   * Sets the number of users who have the course as a favorite.
+   *
+   * @param favoriteCount the number of favorites
+   */
+  public void setFavoriteCount(long favoriteCount) {
+    this.favoriteCount = favoriteCount;
+  }
+}
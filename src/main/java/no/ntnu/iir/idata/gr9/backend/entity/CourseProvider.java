@@ -3,10 +3,13 @@ package no.ntnu.iir.idata.gr9.backend.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Transient;
+import no.ntnu.iir.idata.gr9.backend.service.CatalogChangeListener;
 
 /**
  * Represents a course provider.
@@ -21,6 +24,7 @@ import jakarta.persistence.ManyToOne;
  * </ul>
  */
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Schema(description = "Represents a course provider.")
 public class CourseProvider {
   @Id
@@ -39,6 +43,9 @@ public class CourseProvider {
   @JsonIgnore
   @Schema(description = "The course provider's course.")
   private Course course;
+  // Set by the course catalog when the provider is loaded, so prices are converted only once
+  @Transient
+  private Double normalizedPrice;
 
   public CourseProvider() {
   }
@@ -139,6 +146,35 @@ public class CourseProvider {
     this.discount = discount;
   }
 
+  /**
+   * Gets the course provider's price with the discount percentage applied.
+   *
+   * @return the discounted price
+   */
+  @JsonIgnore
+  public double getDiscountedPrice() {
+    return this.price * (1 - this.discount / 100);
+  }
+
+  /**
+   * Gets the course provider's discounted price converted to the base currency.
+   *
+   * @return the normalized price, or the discounted price if it has not been normalized
+   */
+  @JsonIgnore
+  public double getNormalizedPrice() {
+    return this.normalizedPrice != null ? this.normalizedPrice : this.getDiscountedPrice();
+  }
+
+  /**
+   * Sets the course provider's discounted price converted to the base currency.
+   *
+   * @param normalizedPrice the normalized price
+   */
+  public void setNormalizedPrice(double normalizedPrice) {
+    this.normalizedPrice = normalizedPrice;
+  }
+
   /**
    * Gets the course provider's currency.
    *
@@ -0,0 +1,78 @@
+package no.ntnu.iir.idata.gr9.backend.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Id;
+import no.ntnu.iir.idata.gr9.backend.service.CatalogChangeListener;
+
+/**
+ * Represents the conversion rate of a currency.
+ * <p>A currency rate has:</p>
+ * <ul>
+ *   <li>A currency code</li>
+ *   <li>The value of one unit of the currency in the base currency</li>
+ * </ul>
+ */
+@Entity
+@EntityListeners(CatalogChangeListener.class)
+@Schema(description = "Represents the conversion rate of a currency.")
+public class CurrencyRate {
+  @Id
+  @Schema(description = "The currency's code.", example = "USD")
+  private String currency;
+  @Schema(description = "The value of one unit of the currency in the base currency.",
+      example = "10.5")
+  private double rate;
+
+  public CurrencyRate() {
+  }
+
+  /**
+   * Creates a new currency rate.
+   *
+   * @param currency the currency's code
+   * @param rate     the value of one unit of the currency in the base currency
+   *                 <p>Must be a positive number</p>
+   */
+  public CurrencyRate(String currency, double rate) {
+    setCurrency(currency);
+    setRate(rate);
+  }
+
+  /**
+   * Gets the currency's code.
+   *
+   * @return the currency's code
+   */
+  public String getCurrency() {
+    return this.currency;
+  }
+
+  /**
+   * Sets the currency's code.
+   *
+   * @param currency the currency's code
+   */
+  public void setCurrency(String currency) {
+    this.currency = currency;
+  }
+
+  /**
+   * Gets the value of one unit of the currency in the base currency.
+   *
+   * @return the conversion rate
+   */
+  public double getRate() {
+    return this.rate;
+  }
+
+  /**
+   * Sets the value of one unit of the currency in the base currency.
+   *
+   * @param rate the conversion rate
+   */
+  public void setRate(double rate) {
+    this.rate = rate;
+  }
+}
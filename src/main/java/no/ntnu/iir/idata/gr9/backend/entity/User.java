@@ -2,18 +2,21 @@ package no.ntnu.iir.idata.gr9.backend.entity;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import java.util.HashSet;
 import java.util.Set;
+import no.ntnu.iir.idata.gr9.backend.service.UserChangeListener;
 
 /**
  * Represents a user of the system.
  * <p>The user can be either an admin or a "regular" logged in user.</p>
  */
 @Entity
+@EntityListeners(UserChangeListener.class)
 @Schema(description = "Represents a user of the system.")
 public class User {
   @Id
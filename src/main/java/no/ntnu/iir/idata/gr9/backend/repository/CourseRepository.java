@@ -1,52 +1,260 @@
 package no.ntnu.iir.idata.gr9.backend.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseCursor;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSort;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSummary;
 import no.ntnu.iir.idata.gr9.backend.entity.Category;
 import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Represents a course repository.
+ * <p>Courses are always serialized together with their category and providers, so the lookups
+ * fetch those in the same query instead of one extra query per course.</p>
  */
 @Repository
 public interface CourseRepository extends CrudRepository<Course, Long> {
+  /**
+   * Finds all courses.
+   */
+  @Override
+  @EntityGraph(attributePaths = {"category", "providers"})
+  Iterable<Course> findAll();
+
   /**
    * Finds a course by its id.
    */
+  @EntityGraph(attributePaths = {"category", "providers"})
   Course findById(int id);
 
+  /**
+   * Finds the courses with the given ids, in no particular order.
+   */
+  @EntityGraph(attributePaths = {"category", "providers"})
+  List<Course> findByIdIn(Collection<Integer> ids);
+
   /**
    * Finds a course by its title.
    */
+  @EntityGraph(attributePaths = {"category", "providers"})
   Course findByTitle(String title);
 
   /**
    * Finds a course by its category.
    */
+  @EntityGraph(attributePaths = {"category", "providers"})
   Iterable<Course> findByCategory(Category category);
 
   /**
    * Finds visible courses.
    */
+  @EntityGraph(attributePaths = {"category", "providers"})
   Iterable<Course> findByIsVisibleTrue();
 
   /**
    * Finds not visible courses.
    */
+  @EntityGraph(attributePaths = {"category", "providers"})
   Iterable<Course> findByIsVisibleFalse();
 
-  /**
-   * Finds courses by their keywords.
-   */
-  Iterable<Course> findByKeywords(String keywords);
-
   /**
    * Finds courses by their difficulty.
    */
+  @EntityGraph(attributePaths = {"category", "providers"})
   Iterable<Course> findByDifficulty(String difficulty);
 
   /**
    * Finds courses by their ECTS.
    */
+  @EntityGraph(attributePaths = {"category", "providers"})
   Iterable<Course> findByEcts(Double ects);
+
+  /**
+   * Limits a page query to visible courses and/or a single category.
+   */
+  String PAGE_FILTER = " where (:visibleOnly = false or c.isVisible = true)"
+      + " and (:categoryId is null or c.category.id = :categoryId)";
+
+  /**
+   * Seeks past the last course of the previous page when ordering by id.
+   */
+  String PAGE_AFTER_ID = PAGE_FILTER
+      + " and c.id > :afterId"
+      + " order by c.id asc";
+
+  /**
+   * Seeks past the last course of the previous page when ordering by title and id.
+   * <p>Courses without a title sort first.</p>
+   */
+  String PAGE_AFTER_TITLE = PAGE_FILTER
+      + " and ((:afterNull = true"
+      + "     and ((c.title is null and c.id > :afterId) or c.title is not null))"
+      + "   or (:afterNull = false"
+      + "     and (c.title > :afterTitle or (c.title = :afterTitle and c.id > :afterId))))"
+      + " order by c.title asc nulls first, c.id asc";
+
+  /**
+   * Seeks past the last course of the previous page when ordering by start date and id.
+   * <p>Courses without a start date sort first.</p>
+   */
+  String PAGE_AFTER_START_DATE = PAGE_FILTER
+      + " and ((:afterNull = true"
+      + "     and ((c.startDate is null and c.id > :afterId) or c.startDate is not null))"
+      + "   or (:afterNull = false"
+      + "     and (c.startDate > :afterStartDate"
+      + "       or (c.startDate = :afterStartDate and c.id > :afterId))))"
+      + " order by c.startDate asc nulls first, c.id asc";
+
+  /**
+   * The lowest price of a course among its providers, after discount, in the base currency.
+   * <p>Currencies without a rate are taken to be in the base currency, like in
+   * {@code CurrencyConverter}.</p>
+   */
+  String LOWEST_PRICE = "(select min(p.price * (1 - p.discount / 100)"
+      + " * coalesce((select r.rate from CurrencyRate r"
+      + "   where upper(r.currency) = upper(p.currency) and r.rate > 0), 1))"
+      + " from CourseProvider p where p.course = c)";
+
+  /**
+   * Selects only the columns shown in course listings, with the lowest provider price.
+   */
+  String SUMMARY_SELECT = "select new no.ntnu.iir.idata.gr9.backend.dto.CourseSummary("
+      + "c.id, c.title, c.difficulty, c.ects, c.startDate, c.imagePath, " + LOWEST_PRICE + ")"
+      + " from Course c";
+
+  /**
+   * Finds the next page of courses ordered by id, starting after the given id.
+   * <p>Optionally limited to visible courses and/or a single category. Only the category is
+   * fetched with the page, as fetching a collection would make Hibernate apply the limit in
+   * memory. The providers are batch fetched instead.</p>
+   */
+  @EntityGraph(attributePaths = "category")
+  @Query("select c from Course c" + PAGE_AFTER_ID)
+  List<Course> findPageOrderById(@Param("afterId") int afterId,
+                                 @Param("visibleOnly") boolean visibleOnly,
+                                 @Param("categoryId") Integer categoryId,
+                                 Limit limit);
+
+  /**
+   * Finds the next page of courses ordered by title and id, starting after the given keyset.
+   * <p>Optionally limited to visible courses and/or a single category.</p>
+   */
+  @EntityGraph(attributePaths = "category")
+  @Query("select c from Course c" + PAGE_AFTER_TITLE)
+  List<Course> findPageOrderByTitle(@Param("afterNull") boolean afterNull,
+                                    @Param("afterTitle") String afterTitle,
+                                    @Param("afterId") int afterId,
+                                    @Param("visibleOnly") boolean visibleOnly,
+                                    @Param("categoryId") Integer categoryId,
+                                    Limit limit);
+
+  /**
+   * Finds the next page of courses ordered by start date and id, starting after the given keyset.
+   * <p>Optionally limited to visible courses and/or a single category.</p>
+   */
+  @EntityGraph(attributePaths = "category")
+  @Query("select c from Course c" + PAGE_AFTER_START_DATE)
+  List<Course> findPageOrderByStartDate(@Param("afterNull") boolean afterNull,
+                                        @Param("afterStartDate") LocalDate afterStartDate,
+                                        @Param("afterId") int afterId,
+                                        @Param("visibleOnly") boolean visibleOnly,
+                                        @Param("categoryId") Integer categoryId,
+                                        Limit limit);
+
+  /**
+   * Finds the next page of course summaries ordered by id, starting after the given id.
+   */
+  @Query(SUMMARY_SELECT + PAGE_AFTER_ID)
+  List<CourseSummary> findSummaryPageOrderById(@Param("afterId") int afterId,
+                                               @Param("visibleOnly") boolean visibleOnly,
+                                               @Param("categoryId") Integer categoryId,
+                                               Limit limit);
+
+  /**
+   * Finds the next page of course summaries ordered by title and id, starting after the given
+   * keyset.
+   */
+  @Query(SUMMARY_SELECT + PAGE_AFTER_TITLE)
+  List<CourseSummary> findSummaryPageOrderByTitle(@Param("afterNull") boolean afterNull,
+                                                  @Param("afterTitle") String afterTitle,
+                                                  @Param("afterId") int afterId,
+                                                  @Param("visibleOnly") boolean visibleOnly,
+                                                  @Param("categoryId") Integer categoryId,
+                                                  Limit limit);
+
+  /**
+   * Finds the next page of course summaries ordered by start date and id, starting after the
+   * given keyset.
+   */
+  @Query(SUMMARY_SELECT + PAGE_AFTER_START_DATE)
+  List<CourseSummary> findSummaryPageOrderByStartDate(
+      @Param("afterNull") boolean afterNull,
+      @Param("afterStartDate") LocalDate afterStartDate,
+      @Param("afterId") int afterId,
+      @Param("visibleOnly") boolean visibleOnly,
+      @Param("categoryId") Integer categoryId,
+      Limit limit);
+
+  /**
+   * Finds the page of courses following the given cursor, using the ordering of the cursor.
+   * <p>Orderings that are {@link CourseSort#isCatalogOnly() catalog only} are served from the
+   * in-memory catalog instead.</p>
+   *
+   * @param cursor      the cursor pointing after the last course of the previous page
+   * @param visibleOnly {@code true} to only include visible courses
+   * @param categoryId  the category to limit the page to, or {@code null} for all categories
+   * @param limit       the maximum number of courses to return
+   * @return the courses of the page, in the order given by the cursor
+   * @throws IllegalArgumentException if the ordering of the cursor is catalog only
+   */
+  default List<Course> findPage(CourseCursor cursor, boolean visibleOnly, Integer categoryId,
+                                int limit) {
+    return switch (cursor.getSort()) {
+      case ID -> findPageOrderById(cursor.getAfterId(), visibleOnly, categoryId,
+          Limit.of(limit));
+      case TITLE -> findPageOrderByTitle(cursor.isAfterNull(), cursor.getAfterTitle(),
+          cursor.getAfterId(), visibleOnly, categoryId, Limit.of(limit));
+      case START_DATE -> findPageOrderByStartDate(cursor.isAfterNull(),
+          cursor.getAfterStartDate(), cursor.getAfterId(), visibleOnly, categoryId,
+          Limit.of(limit));
+      case PRICE, POPULAR -> throw new IllegalArgumentException(
+          "Pages ordered by " + cursor.getSort() + " are served by the catalog");
+    };
+  }
+
+  /**
+   * Finds the page of course summaries following the given cursor, using the ordering of the
+   * cursor.
+   * <p>Orderings that are {@link CourseSort#isCatalogOnly() catalog only} are served from the
+   * in-memory catalog instead.</p>
+   *
+   * @param cursor      the cursor pointing after the last course of the previous page
+   * @param visibleOnly {@code true} to only include visible courses
+   * @param categoryId  the category to limit the page to, or {@code null} for all categories
+   * @param limit       the maximum number of courses to return
+   * @return the course summaries of the page, in the order given by the cursor
+   * @throws IllegalArgumentException if the ordering of the cursor is catalog only
+   */
+  default List<CourseSummary> findSummaryPage(CourseCursor cursor, boolean visibleOnly,
+                                              Integer categoryId, int limit) {
+    return switch (cursor.getSort()) {
+      case ID -> findSummaryPageOrderById(cursor.getAfterId(), visibleOnly, categoryId,
+          Limit.of(limit));
+      case TITLE -> findSummaryPageOrderByTitle(cursor.isAfterNull(), cursor.getAfterTitle(),
+          cursor.getAfterId(), visibleOnly, categoryId, Limit.of(limit));
+      case START_DATE -> findSummaryPageOrderByStartDate(cursor.isAfterNull(),
+          cursor.getAfterStartDate(), cursor.getAfterId(), visibleOnly, categoryId,
+          Limit.of(limit));
+      case PRICE, POPULAR -> throw new IllegalArgumentException(
+          "Pages ordered by " + cursor.getSort() + " are served by the catalog");
+    };
+  }
 }
@@ -0,0 +1,12 @@
+package no.ntnu.iir.idata.gr9.backend.repository;
+
+import no.ntnu.iir.idata.gr9.backend.entity.CurrencyRate;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Represents a currency rate repository.
+ */
+@Repository
+public interface CurrencyRateRepository extends CrudRepository<CurrencyRate, String> {
+}
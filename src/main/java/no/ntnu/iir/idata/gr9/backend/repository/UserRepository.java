@@ -1,7 +1,9 @@
 package no.ntnu.iir.idata.gr9.backend.repository;
 
+import java.util.List;
 import java.util.Optional;
 import no.ntnu.iir.idata.gr9.backend.entity.User;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -44,4 +46,10 @@ public interface UserRepository extends CrudRepository<User, Integer> {
      * Checks if a user exists with the given email.
      */
     boolean existsByEmail(String email);
+
+    /**
+     * Finds the usernames of the users which have been deactivated.
+     */
+    @Query("select u.username from User u where u.active = false")
+    List<String> findInactiveUsernames();
 }
\ No newline at end of file
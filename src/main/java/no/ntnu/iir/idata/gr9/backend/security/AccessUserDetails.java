@@ -29,6 +29,23 @@ public class AccessUserDetails implements UserDetails {
     this.convertRoles(user.getIsAdmin());
   }
 
+  /**
+   * Create a user details access object from the claims of a verified token.
+   * <p>The password is not known, and the user is taken to be active, as tokens of deactivated
+   * users are rejected before this is created.</p>
+   *
+   * @param username the username the token was issued to
+   * @param roles    the names of the roles signed into the token
+   */
+  public AccessUserDetails(String username, List<String> roles) {
+    this.username = username;
+    this.password = null;
+    this.isActive = true;
+    for (String role : roles) {
+      this.authorities.add(new SimpleGrantedAuthority(role));
+    }
+  }
+
   /**
    * Convert the roles of the user to authorities.
    */
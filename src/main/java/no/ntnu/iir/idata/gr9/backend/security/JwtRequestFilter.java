@@ -1,5 +1,6 @@
 package no.ntnu.iir.idata.gr9.backend.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import jakarta.servlet.FilterChain;
@@ -7,6 +8,8 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
+import no.ntnu.iir.idata.gr9.backend.service.TokenRevocationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +25,9 @@ import org.springframework.web.filter.OncePerRequestFilter;
 /**
  * This class is responsible for filtering incoming requests and checking if they contain a valid JWT
  * token.
+ * <p>The token is parsed and verified once, and the user is authenticated with the roles signed
+ * into it, so an authenticated request needs no database query. Tokens of deactivated users are
+ * rejected by {@link TokenRevocationService}.</p>
  */
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
@@ -34,6 +40,9 @@ public class JwtRequestFilter extends OncePerRequestFilter {
   @Autowired
   private JwtUtil jwtUtil;
 
+  @Autowired
+  private TokenRevocationService revocationService;
+
   /**
    * Does the filtering of the request.
    *
@@ -56,11 +65,11 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     // Continue with token check for protected routes
     String jwtToken = this.getJwtToken(request);
-    String username = jwtToken != null ? this.getUsernameFrom(jwtToken) : null;
+    Claims claims = jwtToken != null && notAuthenticatedYet() ? this.getClaimsFrom(jwtToken) : null;
 
-    if (username != null && notAuthenticatedYet()) {
-      UserDetails userDetails = this.getUserDetailsFromDatabase(username);
-      if (jwtUtil.validateToken(jwtToken, userDetails)) {
+    if (claims != null && claims.getSubject() != null) {
+      UserDetails userDetails = this.getUserDetailsFrom(claims);
+      if (userDetails != null) {
         registerUserAsAuthenticated(request, userDetails);
       }
     }
@@ -95,21 +104,41 @@ public class JwtRequestFilter extends OncePerRequestFilter {
   }
 
   /**
-   * Gets the username from the JWT token.
+   * Verifies the JWT token and gets its claims.
    *
    * @param jwtToken the JWT token
-   * @return the username
+   * @return the claims, or {@code null} if the token is invalid or expired
    */
-  private String getUsernameFrom(String jwtToken) {
-    String username = null;
+  private Claims getClaimsFrom(String jwtToken) {
+    Claims claims = null;
     try {
-      username = jwtUtil.extractUsername(jwtToken);
+      claims = jwtUtil.parseToken(jwtToken);
     } catch (MalformedJwtException e) {
       logger.warn("Malformed JWT: " + e.getMessage());
     } catch (JwtException e) {
       logger.warn("Error in the JWT token: " + e.getMessage());
     }
-    return username;
+    return claims;
+  }
+
+  /**
+   * Gets the user details from the claims of a verified token.
+   * <p>Tokens without a role claim are only issued by older versions, and fall back to loading
+   * the user from the database.</p>
+   *
+   * @param claims the claims of the token
+   * @return the user details, or {@code null} if the user must not be authenticated
+   */
+  private UserDetails getUserDetailsFrom(Claims claims) {
+    String username = claims.getSubject();
+    if (revocationService.isRevoked(username)) {
+      logger.warn("Rejected the token of deactivated user " + username);
+      return null;
+    }
+    List<String> roles = jwtUtil.extractRoles(claims);
+    return roles != null
+        ? new AccessUserDetails(username, roles)
+        : this.getUserDetailsFromDatabase(username);
   }
 
   /**
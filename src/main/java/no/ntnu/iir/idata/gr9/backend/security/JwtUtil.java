@@ -2,24 +2,55 @@ package no.ntnu.iir.idata.gr9.backend.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 /**
  * Utility class for JWT (JSON Web Token) operations.
+ * <p>The signing key and the parser are built once, as they only depend on the secret, so
+ * verifying a token costs one HMAC computation. The claims of verified tokens are cached until
+ * the tokens expire, so a token sent again is neither verified nor decoded again.</p>
  */
 @Component
 public class JwtUtil {
-  @Value("${jwt_secret_key}")
-  private String secretKey;
+  /**
+   * How long a token is valid after it has been issued, in milliseconds.
+   */
+  public static final long TOKEN_LIFETIME_MILLIS = 60 * 60 * 1000;
+  /**
+   * The maximum number of verified tokens kept in the cache.
+   */
+  public static final int MAX_CACHED_TOKENS = 10_000;
+
   private static final String ROLE_KEY = "role";
+  private static final String AUTHORITY_KEY = "authority";
+
+  private final SecretKey signingKey;
+  private final JwtParser parser;
+  private final VerifiedTokenCache verifiedTokens = new VerifiedTokenCache(MAX_CACHED_TOKENS);
+
+  /**
+   * Creates a new JwtUtil.
+   *
+   * @param secretKey the secret the tokens are signed with
+   */
+  public JwtUtil(@Value("${jwt_secret_key}") String secretKey) {
+    byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
+    this.signingKey = new SecretKeySpec(keyBytes, 0, keyBytes.length, "HmacSHA256");
+    this.parser = Jwts.parser().verifyWith(this.signingKey).build();
+  }
 
   /**
    * Generates a JWT token for an authenticated user.
@@ -29,26 +60,59 @@ public class JwtUtil {
    */
   public String generateToken(UserDetails userDetails) {
     final long timeNow = System.currentTimeMillis();
-    final long millisecondsInHour = 60 * 60 * 1000;
-    final long timeAfterOneHour = timeNow + millisecondsInHour;
+    final long timeAfterOneHour = timeNow + TOKEN_LIFETIME_MILLIS;
+    List<String> roles = new ArrayList<>();
+    for (GrantedAuthority authority : userDetails.getAuthorities()) {
+      roles.add(authority.getAuthority());
+    }
 
     return Jwts.builder()
         .subject(userDetails.getUsername())
-        .claim(ROLE_KEY, userDetails.getAuthorities())
+        .claim(ROLE_KEY, roles)
         .issuedAt(new Date(timeNow))
         .expiration(new Date(timeAfterOneHour))
-        .signWith(getSigningKey())
+        .signWith(this.signingKey)
         .compact();
   }
 
   /**
-   * Returns the signing key for JWT.
+   * Verifies the signature and expiration of a token and returns its claims.
+   * <p>The token is only parsed once, so callers needing several claims should use this
+   * instead of the single claim methods. A token that has already been verified is answered
+   * from the cache until it expires.</p>
    *
-   * @return the signing key
+   * @param token the JWT token
+   * @return the claims of the token, which must not be modified
+   * @throws JwtException if the token is malformed, wrongly signed or expired
    */
-  private SecretKey getSigningKey() {
-    byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-    return new SecretKeySpec(keyBytes, 0, keyBytes.length, "HmacSHA256");
+  public Claims parseToken(String token) throws JwtException {
+    return this.verifiedTokens.getOrVerify(token,
+        verified -> this.parser.parseSignedClaims(verified).getPayload());
+  }
+
+  /**
+   * Gets the roles signed into the token when it was issued.
+   * <p>Tokens issued before the roles were stored by name hold the serialized authorities
+   * instead, which are read as well.</p>
+   *
+   * @param claims the claims of the token
+   * @return the names of the roles, or {@code null} if the token has no role claim
+   */
+  public List<String> extractRoles(Claims claims) {
+    Object claim = claims.get(ROLE_KEY);
+    if (!(claim instanceof List<?> values)) {
+      return null;
+    }
+    List<String> roles = new ArrayList<>(values.size());
+    for (Object value : values) {
+      if (value instanceof Map<?, ?> authority) {
+        value = authority.get(AUTHORITY_KEY);
+      }
+      if (value != null) {
+        roles.add(value.toString());
+      }
+    }
+    return roles;
   }
 
   /**
@@ -80,7 +144,7 @@ public class JwtUtil {
    * @return the claims extracted from the token
    */
   private Claims extractAllClaims(String token) {
-    return Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token).getPayload();
+    return this.parseToken(token);
   }
 
   /**
@@ -91,29 +155,9 @@ public class JwtUtil {
    * @return @code{true} if the token is valid, @code{false} otherwise
    */
   public boolean validateToken(String token, UserDetails userDetails) throws JwtException {
-    final String username = extractUsername(token);
+    final Claims claims = this.parseToken(token);
     return userDetails != null
-        && username.equals(userDetails.getUsername())
-        && !this.isTokenExpired(token);
-  }
-
-  /**
-   * Checks if the token is expired.
-   *
-   * @param token the JWT token
-   * @return @code{true} if the token is expired, @code{false} otherwise
-   */
-  private Boolean isTokenExpired(String token) {
-    return this.extractExpiration(token).before(new Date());
-  }
-
-  /**
-   * Extracts the expiration date from the token.
-   *
-   * @param token the JWT token
-   * @return the expiration date
-   */
-  private Date extractExpiration(String token) {
-    return this.extractClaim(token, Claims::getExpiration);
+        && claims.getSubject().equals(userDetails.getUsername())
+        && !claims.getExpiration().before(new Date());
   }
 }
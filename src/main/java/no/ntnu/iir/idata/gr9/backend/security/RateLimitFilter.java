@@ -0,0 +1,255 @@
+package no.ntnu.iir.idata.gr9.backend.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Limits how often one client may call the public endpoints that hash a password or store a
+ * message, so that a single client cannot tie up the processors or the database.
+ * <p>Each route has token buckets keyed by the address of the client, and logins also by the
+ * username logged in as, which slows down guessing the password of one user from many
+ * addresses. A request that finds a bucket empty is answered with 429 and a Retry-After header
+ * before it reaches {@link JwtRequestFilter}. The address is the one the request came from;
+ * behind a proxy, {@code server.forward-headers-strategy} decides whether forwarded addresses
+ * are trusted.</p>
+ * <p>The username is read from a buffered copy of the login body, so logins declaring a body
+ * larger than {@link #MAX_LOGIN_BODY_BYTES} are rejected with 413. A login without a declared
+ * length is buffered up to that size, and passed on without a username limit if it is
+ * larger.</p>
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+  /**
+   * The largest login body that is buffered, far above a username and a password.
+   */
+  static final int MAX_LOGIN_BODY_BYTES = 4 * 1024;
+
+  private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+  private final ObjectMapper objectMapper;
+  private final Map<String, Route> routes;
+
+  /**
+   * Creates a new RateLimitFilter.
+   *
+   * @param loginCapacity          the logins an address may make in a burst
+   * @param loginPerMinute         the logins an address may make per minute after a burst
+   * @param loginUsernameCapacity  the logins as one username that may be made in a burst
+   * @param loginUsernamePerMinute the logins as one username that may be made per minute
+   * @param registerCapacity       the registrations an address may make in a burst
+   * @param registerPerMinute      the registrations an address may make per minute
+   * @param messageCapacity        the messages an address may send in a burst
+   * @param messagePerMinute       the messages an address may send per minute
+   * @param maxKeys                the maximum number of clients to keep track of per bucket
+   * @param objectMapper           the mapper used to read the username of a login
+   * @param meterRegistry          the registry to publish the rejection counts to
+   */
+  public RateLimitFilter(
+      @Value("${rate-limit.login.capacity:10}") int loginCapacity,
+      @Value("${rate-limit.login.per-minute:10}") int loginPerMinute,
+      @Value("${rate-limit.login.username-capacity:5}") int loginUsernameCapacity,
+      @Value("${rate-limit.login.username-per-minute:5}") int loginUsernamePerMinute,
+      @Value("${rate-limit.register.capacity:5}") int registerCapacity,
+      @Value("${rate-limit.register.per-minute:5}") int registerPerMinute,
+      @Value("${rate-limit.messages.capacity:5}") int messageCapacity,
+      @Value("${rate-limit.messages.per-minute:5}") int messagePerMinute,
+      @Value("${rate-limit.max-keys:10000}") int maxKeys,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry
+  ) {
+    this.objectMapper = objectMapper;
+    Route login = new Route(
+        new TokenBucketLimiter(loginCapacity, loginPerMinute, maxKeys),
+        new TokenBucketLimiter(loginUsernameCapacity, loginUsernamePerMinute, maxKeys),
+        rejectionCounter(meterRegistry, "login"));
+    Route register = new Route(
+        new TokenBucketLimiter(registerCapacity, registerPerMinute, maxKeys), null,
+        rejectionCounter(meterRegistry, "register"));
+    Route messages = new Route(
+        new TokenBucketLimiter(messageCapacity, messagePerMinute, maxKeys), null,
+        rejectionCounter(meterRegistry, "messages"));
+    this.routes = Map.of(
+        "/users/login", login,
+        "/api/users/login", login,
+        "/users/register", register,
+        "/messages", messages
+    );
+  }
+
+  /**
+   * Only posts to the limited routes are filtered.
+   *
+   * @param request the request
+   * @return true if the request is not limited
+   */
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !HttpMethod.POST.matches(request.getMethod())
+        || !this.routes.containsKey(getPath(request));
+  }
+
+  /**
+   * Takes a token for the request, or rejects it with 429 if the client has none left.
+   *
+   * @param request     the request to filter
+   * @param response    the response
+   * @param filterChain the filter chain
+   * @throws ServletException if an error occurs during the filtering
+   * @throws IOException      if an error occurs during the filtering
+   */
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+    Route route = this.routes.get(getPath(request));
+    long now = System.nanoTime();
+    long waitNanos = route.byAddress.tryAcquire(request.getRemoteAddr(), now);
+
+    if (waitNanos == 0 && route.byUsername != null) {
+      if (request.getContentLengthLong() > MAX_LOGIN_BODY_BYTES) {
+        logger.debug("Rejected a login body of {} bytes from {}",
+            request.getContentLengthLong(), request.getRemoteAddr());
+        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        return;
+      }
+      // The body can only be read once, so it is kept for the controller
+      BufferedBodyRequest buffered = new BufferedBodyRequest(request, MAX_LOGIN_BODY_BYTES);
+      request = buffered;
+      String username = buffered.complete ? this.readUsername(buffered.head) : null;
+      if (username != null) {
+        waitNanos = route.byUsername.tryAcquire(username.toLowerCase(Locale.ROOT), now);
+      }
+    }
+
+    if (waitNanos > 0) {
+      route.rejections.increment();
+      logger.debug("Rate limited {} from {}", getPath(request), request.getRemoteAddr());
+      long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000);
+      response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+      return;
+    }
+
+    filterChain.doFilter(request, response);
+  }
+
+  /**
+   * Reads the username from the body of a login, or null if the body is not a valid login.
+   */
+  private String readUsername(byte[] body) {
+    try {
+      JsonNode username = this.objectMapper.readTree(body).path("username");
+      return username.isTextual() ? username.asText() : null;
+    } catch (IOException e) {
+      // The controller rejects the malformed body itself
+      return null;
+    }
+  }
+
+  /**
+   * Gets the decoded path of a request within the application, as the dispatcher matches it, so
+   * an encoded path such as {@code /users/%6Cogin} is limited like the login it is routed to.
+   */
+  private static String getPath(HttpServletRequest request) {
+    return UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+  }
+
+  private static Counter rejectionCounter(MeterRegistry meterRegistry, String route) {
+    return Counter.builder("rate-limit.rejected")
+        .description("Requests rejected because the client made too many")
+        .tag("route", route)
+        .register(meterRegistry);
+  }
+
+  /**
+   * The buckets of one route, where logins also have buckets per username.
+   */
+  private record Route(TokenBucketLimiter byAddress, TokenBucketLimiter byUsername,
+                       Counter rejections) {
+  }
+
+  /**
+   * A request whose body has been read into memory up to a limit, and is read again from there.
+   * The part of a larger body that was not buffered is read from the original request.
+   */
+  private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+    private final byte[] head;
+    private final boolean complete;
+    private final ServletInputStream input;
+
+    private BufferedBodyRequest(HttpServletRequest request, int maxBytes) throws IOException {
+      super(request);
+      ServletInputStream remainder = request.getInputStream();
+      this.head = remainder.readNBytes(maxBytes + 1);
+      this.complete = this.head.length <= maxBytes;
+      ByteArrayInputStream buffered = new ByteArrayInputStream(this.head);
+      this.input = new ServletInputStream() {
+        @Override
+        public boolean isFinished() {
+          return buffered.available() == 0 && (complete || remainder.isFinished());
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+          throw new UnsupportedOperationException("The body has already been read");
+        }
+
+        @Override
+        public int read() throws IOException {
+          int next = buffered.read();
+          return next >= 0 || complete ? next : remainder.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+          if (buffered.available() > 0 || complete) {
+            return buffered.read(buffer, offset, length);
+          }
+          return remainder.read(buffer, offset, length);
+        }
+      };
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      return this.input;
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      String encoding = this.getCharacterEncoding();
+      Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+      return new BufferedReader(new InputStreamReader(this.getInputStream(), charset));
+    }
+  }
+}
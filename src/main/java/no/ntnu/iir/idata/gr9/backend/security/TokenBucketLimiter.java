@@ -0,0 +1,98 @@
+package no.ntnu.iir.idata.gr9.backend.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token buckets keyed by a client attribute, such as its address or the username it logs in as.
+ * <p>Each key may spend up to a fixed number of tokens in a burst, and its tokens are refilled
+ * at a steady rate. The buckets are spread over a fixed number of stripes with a lock each, so
+ * requests for different keys rarely wait for each other. Every stripe holds a bounded number
+ * of keys and forgets the least recently used one when full; a forgotten key starts again with a
+ * full bucket.</p>
+ */
+class TokenBucketLimiter {
+  private static final int STRIPES = 64;
+  private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+  private final double capacity;
+  private final double tokensPerNano;
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  /**
+   * Creates a new TokenBucketLimiter.
+   *
+   * @param capacity  the number of requests a key may make in a burst
+   * @param perMinute the number of requests a key may make per minute after a burst
+   * @param maxKeys   the maximum number of keys to keep track of
+   */
+  TokenBucketLimiter(int capacity, int perMinute, int maxKeys) {
+    if (capacity < 1 || perMinute < 1) {
+      throw new IllegalArgumentException("The capacity and rate must be at least 1");
+    }
+    this.capacity = capacity;
+    this.tokensPerNano = (double) perMinute / NANOS_PER_MINUTE;
+    int keysPerStripe = Math.max(1, maxKeys / STRIPES);
+    for (int i = 0; i < STRIPES; i++) {
+      this.stripes[i] = new Stripe(keysPerStripe);
+    }
+  }
+
+  /**
+   * Takes a token from the bucket of a key, if there is one.
+   *
+   * @param key the key
+   * @param now the current time, from {@link System#nanoTime()}
+   * @return 0 if a token was taken, otherwise the nanoseconds until the next token
+   */
+  long tryAcquire(String key, long now) {
+    int hash = key.hashCode();
+    Stripe stripe = this.stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    synchronized (stripe) {
+      Bucket bucket = stripe.get(key);
+      if (bucket == null) {
+        bucket = new Bucket(this.capacity, now);
+        stripe.put(key, bucket);
+      } else {
+        double refilled = bucket.tokens + (now - bucket.updatedAt) * this.tokensPerNano;
+        bucket.tokens = Math.min(this.capacity, refilled);
+        bucket.updatedAt = now;
+      }
+      if (bucket.tokens >= 1) {
+        bucket.tokens--;
+        return 0;
+      }
+      return (long) Math.ceil((1 - bucket.tokens) / this.tokensPerNano);
+    }
+  }
+
+  /**
+   * The buckets guarded by one lock, forgetting the least recently used key when full.
+   */
+  private static final class Stripe extends LinkedHashMap<String, Bucket> {
+    private final int maxKeys;
+
+    private Stripe(int maxKeys) {
+      super(16, 0.75f, true);
+      this.maxKeys = maxKeys;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+      return this.size() > this.maxKeys;
+    }
+  }
+
+  /**
+   * The tokens left for one key, as of the last time the key was seen.
+   */
+  private static final class Bucket {
+    private double tokens;
+    private long updatedAt;
+
+    private Bucket(double tokens, long updatedAt) {
+      this.tokens = tokens;
+      this.updatedAt = updatedAt;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package no.ntnu.iir.idata.gr9.backend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache of the claims of tokens whose signature has already been verified.
+ * <p>Clients send the same token with every request until it expires, so the claims are kept
+ * by the SHA-256 digest of the token, and a repeated token skips the HMAC and the decoding of
+ * its claims. Only the digest is kept, never the token itself. An entry is dropped once its
+ * token expires. When the cache is full, the expired entries are removed, and if it is still
+ * full, new tokens are verified without being cached until there is room again.</p>
+ */
+class VerifiedTokenCache {
+  private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  });
+
+  private final int maxEntries;
+  private final Map<ByteBuffer, VerifiedToken> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new VerifiedTokenCache.
+   *
+   * @param maxEntries the maximum number of tokens held by the cache
+   */
+  VerifiedTokenCache(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Gets the claims of a token, verifying the token if it is not cached or has expired.
+   *
+   * @param token    the token
+   * @param verifier verifies the signature and expiration of the token and returns its claims
+   * @return the claims of the token
+   * @throws JwtException if the token is not cached and fails verification
+   */
+  Claims getOrVerify(String token, Function<String, Claims> verifier) throws JwtException {
+    ByteBuffer key = ByteBuffer.wrap(DIGEST.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    long now = System.currentTimeMillis();
+    VerifiedToken cached = this.entries.get(key);
+    if (cached != null) {
+      if (now < cached.expiresAt) {
+        return cached.claims;
+      }
+      this.entries.remove(key, cached);
+    }
+
+    Claims claims = verifier.apply(token);
+    Date expiration = claims.getExpiration();
+    // Tokens without an expiration could never be evicted, so they are not cached
+    if (expiration != null && expiration.getTime() > now && this.hasRoom(now)) {
+      this.entries.put(key, new VerifiedToken(claims, expiration.getTime()));
+    }
+    return claims;
+  }
+
+  /**
+   * Gets the number of tokens held by the cache, including expired ones not yet removed.
+   *
+   * @return the number of tokens
+   */
+  int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Checks whether another token can be cached, removing the expired tokens if the cache is
+   * full.
+   */
+  private boolean hasRoom(long now) {
+    if (this.entries.size() < this.maxEntries) {
+      return true;
+    }
+    this.entries.values().removeIf(verified -> verified.expiresAt <= now);
+    return this.entries.size() < this.maxEntries;
+  }
+
+  /**
+   * The claims of a verified token with the time the token expires.
+   */
+  private record VerifiedToken(Claims claims, long expiresAt) {
+  }
+}
@@ -0,0 +1,123 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import no.ntnu.iir.idata.gr9.backend.security.AccessUserDetails;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache of the user details loaded for authentication, keyed by username.
+ * <p>Entries expire after a fixed time, and the least recently used entries are evicted once
+ * the cache holds more than {@link #MAX_ENTRIES} users. A user's entry is removed as soon as
+ * the user is changed through JPA, see {@link UserChangeListener}; the expiry bounds how long
+ * changes made directly in the database go unnoticed.</p>
+ * <p>Each invalidation starts a new generation, and details loaded during an older generation
+ * are not cached, so a lookup racing with a change never caches the old details.</p>
+ */
+@Service
+public class AccessUserCache {
+  /**
+   * The maximum number of users held by the cache.
+   */
+  public static final int MAX_ENTRIES = 10_000;
+
+  private final Map<String, CachedUser> entries = new LinkedHashMap<>(64, 0.75f, true);
+  private final long ttlNanos;
+  private final Counter hits;
+  private final Counter misses;
+  private long generation;
+
+  /**
+   * Creates a new AccessUserCache.
+   *
+   * @param ttlMillis     how long an entry is kept after it was loaded, in milliseconds
+   * @param meterRegistry the registry to publish the cache metrics to
+   */
+  public AccessUserCache(@Value("${user.details-cache.ttl-ms:300000}") long ttlMillis,
+                         MeterRegistry meterRegistry) {
+    this.ttlNanos = ttlMillis * 1_000_000;
+    this.hits = Counter.builder("user.details.cache.gets")
+        .description("Lookups of user details answered by the cache")
+        .tag("result", "hit")
+        .register(meterRegistry);
+    this.misses = Counter.builder("user.details.cache.gets")
+        .description("Lookups of user details that had to query the database")
+        .tag("result", "miss")
+        .register(meterRegistry);
+    Gauge.builder("user.details.cache.size", this, AccessUserCache::getSize)
+        .description("Number of users held by the user details cache")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Gets the cached details of a user.
+   *
+   * @param username the username of the user
+   * @return the cached details, or {@code null} if they are missing or expired
+   */
+  public synchronized AccessUserDetails get(String username) {
+    CachedUser cached = this.entries.get(username);
+    if (cached != null && System.nanoTime() - cached.loadedAt > this.ttlNanos) {
+      this.entries.remove(username);
+      cached = null;
+    }
+    (cached != null ? this.hits : this.misses).increment();
+    return cached != null ? cached.details : null;
+  }
+
+  /**
+   * Gets the current generation, which must be read before the details are loaded.
+   *
+   * @return the current generation
+   */
+  public synchronized long getGeneration() {
+    return this.generation;
+  }
+
+  /**
+   * Caches the details of a user, evicting the least recently used user if the cache is full.
+   *
+   * @param username   the username of the user
+   * @param details    the details loaded from the database
+   * @param generation the generation read before the details were loaded
+   */
+  public synchronized void put(String username, AccessUserDetails details, long generation) {
+    if (generation != this.generation) {
+      // A user changed while the details were loaded, so they may already be stale
+      return;
+    }
+    this.entries.put(username, new CachedUser(details, System.nanoTime()));
+    Iterator<CachedUser> eldest = this.entries.values().iterator();
+    while (this.entries.size() > MAX_ENTRIES && eldest.hasNext()) {
+      eldest.next();
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Removes the cached details of a user. Must be called after a change to the user has been
+   * saved.
+   *
+   * @param username the username of the changed user
+   */
+  public synchronized void invalidate(String username) {
+    this.generation++;
+    // The database may match usernames regardless of case, so every spelling is removed
+    this.entries.keySet().removeIf(key -> key.equalsIgnoreCase(username));
+  }
+
+  private synchronized double getSize() {
+    return this.entries.size();
+  }
+
+  /**
+   * The details of a user with the time they were loaded.
+   */
+  private record CachedUser(AccessUserDetails details, long loadedAt) {
+  }
+}
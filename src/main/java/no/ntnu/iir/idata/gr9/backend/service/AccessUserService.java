@@ -17,11 +17,15 @@ import org.springframework.stereotype.Service;
 
 /**
  * Provides user details for authentication and authorization.
+ * <p>The details are cached in {@link AccessUserCache}, so repeated logins and lookups of the
+ * same user don't query the database every time.</p>
  */
 @Service
 public class AccessUserService implements UserDetailsService {
   @Autowired
   private UserRepository userRepository;
+  @Autowired
+  private AccessUserCache userCache;
 
   /**
    * Loads user details by username.
@@ -32,9 +36,16 @@ public class AccessUserService implements UserDetailsService {
    */
   @Override
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    AccessUserDetails cached = this.userCache.get(username);
+    if (cached != null) {
+      return cached;
+    }
+    long generation = this.userCache.getGeneration();
     Optional<User> user = this.userRepository.findByUsername(username);
     if (user.isPresent()) {
-      return new AccessUserDetails(user.get());
+      AccessUserDetails details = new AccessUserDetails(user.get());
+      this.userCache.put(username, details, generation);
+      return details;
     } else {
       throw new UsernameNotFoundException("User " + username + "not found");
     }
@@ -0,0 +1,122 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import java.util.HashSet;
+import java.util.Set;
+import no.ntnu.iir.idata.gr9.backend.entity.Category;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import no.ntnu.iir.idata.gr9.backend.entity.CourseProvider;
+import no.ntnu.iir.idata.gr9.backend.entity.CurrencyRate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that keeps the course catalog in step with changes to courses, providers,
+ * categories and currency rates.
+ * <p>The changes of a transaction are collected and applied to {@link CourseCatalogService} once
+ * the transaction has committed, so the catalog gets one new version per transaction and never
+ * sees changes that are rolled back. A changed category reloads the whole catalog, since it is
+ * shared by many courses. A changed currency rate reloads the courses priced in that
+ * currency.</p>
+ */
+@Component
+public class CatalogChangeListener {
+  private static final Logger logger = LoggerFactory.getLogger(CatalogChangeListener.class);
+
+  // Looked up lazily, since the catalog service depends on the repositories using this listener
+  private final ObjectProvider<CourseCatalogService> catalogService;
+
+  /**
+   * Creates a new CatalogChangeListener.
+   *
+   * @param catalogService the service holding the in-memory course catalog
+   */
+  public CatalogChangeListener(ObjectProvider<CourseCatalogService> catalogService) {
+    this.catalogService = catalogService;
+  }
+
+  /**
+   * Records that a course, provider, category or currency rate has been created, updated or
+   * deleted.
+   *
+   * @param entity the changed entity
+   */
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void onChange(Object entity) {
+    PendingChanges changes = this.getPendingChanges();
+    if (entity instanceof Course course) {
+      changes.courseIds.add(course.getId());
+    } else if (entity instanceof CourseProvider provider && provider.getCourse() != null) {
+      changes.courseIds.add(provider.getCourse().getId());
+    } else if (entity instanceof Category) {
+      changes.fullReload = true;
+    } else if (entity instanceof CurrencyRate rate) {
+      changes.currencies.add(rate.getCurrency());
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      changes.apply();
+    }
+  }
+
+  /**
+   * Gets the changes collected for the current transaction, or a new set of changes if there is
+   * no transaction.
+   */
+  private PendingChanges getPendingChanges() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return new PendingChanges();
+    }
+    PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+    if (changes == null) {
+      changes = new PendingChanges();
+      TransactionSynchronizationManager.bindResource(this, changes);
+      TransactionSynchronizationManager.registerSynchronization(changes);
+    }
+    return changes;
+  }
+
+  /**
+   * The catalog changes of one transaction.
+   */
+  private final class PendingChanges implements TransactionSynchronization {
+    private final Set<Integer> courseIds = new HashSet<>();
+    private final Set<String> currencies = new HashSet<>();
+    private boolean fullReload;
+
+    @Override
+    public void afterCommit() {
+      this.apply();
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(CatalogChangeListener.this);
+    }
+
+    private void apply() {
+      CourseCatalogService catalog = catalogService.getObject();
+      try {
+        if (this.fullReload) {
+          catalog.refresh();
+        } else {
+          if (!this.currencies.isEmpty()) {
+            catalog.currencyRatesChanged(this.currencies);
+          }
+          catalog.coursesChanged(this.courseIds);
+        }
+      } catch (DataAccessException e) {
+        // The change is saved, so the request must not fail because the catalog lags behind
+        logger.error("Could not update the course catalog: {}", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+
+/**
+ * Published by {@link CourseCatalogService} every time a new catalog snapshot is swapped in.
+ * <p>In-memory indexes over the catalog listen for this event to stay up to date. When only some
+ * courses changed, the event lists their ids so the indexes can update just those courses.</p>
+ */
+public class CatalogChangedEvent {
+  private final CatalogSnapshot snapshot;
+  private final Set<Integer> changedCourseIds;
+
+  /**
+   * Creates a new event.
+   *
+   * @param snapshot         the snapshot that was swapped in
+   * @param changedCourseIds the ids of the courses that changed, or {@code null} if the whole
+   *                         catalog was reloaded
+   */
+  public CatalogChangedEvent(CatalogSnapshot snapshot, Set<Integer> changedCourseIds) {
+    this.snapshot = snapshot;
+    this.changedCourseIds = changedCourseIds == null
+        ? null : Collections.unmodifiableSet(changedCourseIds);
+  }
+
+  /**
+   * Gets the snapshot that was swapped in.
+   *
+   * @return the new snapshot
+   */
+  public CatalogSnapshot getSnapshot() {
+    return this.snapshot;
+  }
+
+  /**
+   * Checks if the whole catalog was reloaded, rather than a known set of courses.
+   *
+   * @return {@code true} if every course may have changed, {@code false} otherwise
+   */
+  public boolean isFullReload() {
+    return this.changedCourseIds == null;
+  }
+
+  /**
+   * Gets the ids of the courses that changed. Courses that were removed are included.
+   *
+   * @return the ids of the changed courses, or {@code null} if the whole catalog was reloaded
+   */
+  public Set<Integer> getChangedCourseIds() {
+    return this.changedCourseIds;
+  }
+
+  /**
+   * Gets the changed courses as they are in the new snapshot. Courses that were removed are not
+   * included, but their ids are in {@link #getChangedCourseIds()}.
+   *
+   * @return the changed courses, or {@code null} if the whole catalog was reloaded
+   */
+  public List<Course> getChangedCourses() {
+    if (this.changedCourseIds == null) {
+      return null;
+    }
+    List<Course> changed = new ArrayList<>(this.changedCourseIds.size());
+    for (int courseId : this.changedCourseIds) {
+      Course course = this.snapshot.getCourse(courseId);
+      if (course != null) {
+        changed.add(course);
+      }
+    }
+    return changed;
+  }
+}
@@ -0,0 +1,170 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache of serialized course responses, stored both as plain and as gzip-compressed bytes.
+ * <p>Entries are keyed by the request path and parameters and belong to one catalog version.
+ * The cache is emptied whenever the catalog changes, and the least recently used entries are
+ * evicted once the cache holds more than {@link #MAX_SIZE_BYTES} bytes.</p>
+ */
+@Service
+public class CatalogResponseCache {
+  /**
+   * The maximum number of bytes held by the cache, counting plain and compressed bodies.
+   */
+  public static final long MAX_SIZE_BYTES = 64L * 1024 * 1024;
+  /**
+   * The largest plain body that is cached.
+   */
+  public static final int MAX_ENTRY_BYTES = 8 * 1024 * 1024;
+
+  private final Map<String, CachedResponse> entries = new LinkedHashMap<>(64, 0.75f, true);
+  private long sizeBytes;
+
+  /**
+   * Creates a new CatalogResponseCache.
+   *
+   * @param meterRegistry the registry to publish the cache metrics to
+   */
+  public CatalogResponseCache(MeterRegistry meterRegistry) {
+    Gauge.builder("catalog.response.cache.size", this, CatalogResponseCache::getSizeBytes)
+        .description("Bytes held by the course response cache")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Empties the cache when a new catalog snapshot has been swapped in.
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+    this.entries.clear();
+    this.sizeBytes = 0;
+  }
+
+  /**
+   * Gets a cached response.
+   *
+   * @param key     the key of the request
+   * @param version the current catalog version
+   * @return the cached response, or {@code null} if there is none for this version
+   */
+  public synchronized CachedResponse get(String key, long version) {
+    CachedResponse cached = this.entries.get(key);
+    return cached != null && cached.version == version ? cached : null;
+  }
+
+  /**
+   * Caches a response, evicting the least recently used responses if the cache is full.
+   *
+   * @param key      the key of the request
+   * @param response the response to cache
+   */
+  public synchronized void put(String key, CachedResponse response) {
+    CachedResponse previous = this.entries.put(key, response);
+    if (previous != null) {
+      this.sizeBytes -= previous.getSizeBytes();
+    }
+    this.sizeBytes += response.getSizeBytes();
+    Iterator<CachedResponse> eldest = this.entries.values().iterator();
+    while (this.sizeBytes > MAX_SIZE_BYTES && eldest.hasNext()) {
+      this.sizeBytes -= eldest.next().getSizeBytes();
+      eldest.remove();
+    }
+  }
+
+  private synchronized double getSizeBytes() {
+    return this.sizeBytes;
+  }
+
+  /**
+   * A serialized response with the headers needed to replay it.
+   */
+  public static final class CachedResponse {
+    private final long version;
+    private final String contentType;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    private final byte[] gzipBody;
+
+    /**
+     * Creates a cached response, compressing the body.
+     *
+     * @param version     the catalog version the response was built from
+     * @param contentType the content type of the response
+     * @param headers     the other headers to replay, by name
+     * @param body        the plain body
+     */
+    public CachedResponse(long version, String contentType, Map<String, String> headers,
+                          byte[] body) {
+      this.version = version;
+      this.contentType = contentType;
+      this.headers = Map.copyOf(headers);
+      this.body = body;
+      this.gzipBody = gzip(body);
+    }
+
+    /**
+     * Gets the content type of the response.
+     *
+     * @return the content type
+     */
+    public String getContentType() {
+      return this.contentType;
+    }
+
+    /**
+     * Gets the headers to replay, other than the content type and encoding.
+     *
+     * @return the headers, by name
+     */
+    public Map<String, String> getHeaders() {
+      return this.headers;
+    }
+
+    /**
+     * Gets the plain body.
+     *
+     * @return the body, which must not be modified
+     */
+    public byte[] getBody() {
+      return this.body;
+    }
+
+    /**
+     * Gets the gzip-compressed body.
+     *
+     * @return the compressed body, which must not be modified
+     */
+    public byte[] getGzipBody() {
+      return this.gzipBody;
+    }
+
+    private long getSizeBytes() {
+      return (long) this.body.length + this.gzipBody.length;
+    }
+
+    private static byte[] gzip(byte[] body) {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+      try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+        output.write(body);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return compressed.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,281 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseCursor;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSort;
+import no.ntnu.iir.idata.gr9.backend.entity.Category;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+
+/**
+ * An immutable, versioned view of the whole course catalog.
+ * <p>A snapshot is never changed after it has been created. When a course changes, a new snapshot
+ * is built and swapped in by {@link CourseCatalogService}, so readers always see a consistent
+ * catalog without locking. The courses it holds are detached and must not be modified.</p>
+ */
+public class CatalogSnapshot {
+  private static final Comparator<Course> BY_ID = Comparator.comparingInt(Course::getId);
+  private static final Comparator<Course> BY_TITLE = Comparator.comparing(Course::getTitle,
+      Comparator.nullsFirst(Comparator.<String>naturalOrder())).thenComparing(BY_ID);
+  private static final Comparator<Course> BY_START_DATE = Comparator.comparing(
+      Course::getStartDate, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder()))
+      .thenComparing(BY_ID);
+  private static final Comparator<Course> BY_PRICE = Comparator.comparing(Course::getLowestPrice,
+      Comparator.nullsFirst(Comparator.<Double>naturalOrder())).thenComparing(BY_ID);
+
+  private final long version;
+  private final Instant createdAt;
+  private final List<Course> courses;
+  private final Map<Integer, Course> coursesById;
+  private final Map<Integer, Category> categoriesById;
+  private final List<Course> visibleCourses;
+  private final Map<Integer, List<Course>> coursesByCategory;
+  private final Map<String, List<Course>> sortedViews = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new snapshot.
+   *
+   * @param version    the version of the catalog, increased for every change
+   * @param courses    all courses in the catalog
+   * @param categories all categories in the catalog
+   */
+  public CatalogSnapshot(long version, Collection<Course> courses,
+                         Collection<Category> categories) {
+    this.version = version;
+    this.createdAt = Instant.now();
+
+    List<Course> sorted = new ArrayList<>(courses);
+    sorted.sort(BY_ID);
+    this.courses = Collections.unmodifiableList(sorted);
+
+    Map<Integer, Course> byId = new HashMap<>();
+    Map<Integer, List<Course>> byCategory = new HashMap<>();
+    List<Course> visible = new ArrayList<>();
+    for (Course course : sorted) {
+      byId.put(course.getId(), course);
+      if (course.getIsVisible()) {
+        visible.add(course);
+      }
+      if (course.getCategory() != null) {
+        byCategory.computeIfAbsent(course.getCategory().getId(), id -> new ArrayList<>())
+            .add(course);
+      }
+    }
+    byCategory.replaceAll((id, list) -> Collections.unmodifiableList(list));
+    this.coursesById = Collections.unmodifiableMap(byId);
+    this.visibleCourses = Collections.unmodifiableList(visible);
+    this.coursesByCategory = Collections.unmodifiableMap(byCategory);
+
+    Map<Integer, Category> categoryMap = new HashMap<>();
+    for (Category category : categories) {
+      categoryMap.put(category.getId(), category);
+    }
+    this.categoriesById = Collections.unmodifiableMap(categoryMap);
+  }
+
+  /**
+   * Gets the version of the catalog this snapshot was built from.
+   *
+   * @return the catalog version
+   */
+  public long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * Gets the time this snapshot was built.
+   *
+   * @return the creation time
+   */
+  public Instant getCreatedAt() {
+    return this.createdAt;
+  }
+
+  /**
+   * Gets all courses, ordered by id.
+   *
+   * @return an unmodifiable list of all courses
+   */
+  public List<Course> getCourses() {
+    return this.courses;
+  }
+
+  /**
+   * Gets the number of courses in the snapshot.
+   *
+   * @return the number of courses
+   */
+  public int size() {
+    return this.courses.size();
+  }
+
+  /**
+   * Finds a course by its id.
+   *
+   * @param id the id of the course
+   * @return the course, or {@code null} if not found
+   */
+  public Course getCourse(int id) {
+    return this.coursesById.get(id);
+  }
+
+  /**
+   * Finds a category by its id.
+   *
+   * @param id the id of the category
+   * @return the category, or {@code null} if not found
+   */
+  public Category getCategory(int id) {
+    return this.categoriesById.get(id);
+  }
+
+  /**
+   * Gets all categories in the snapshot.
+   *
+   * @return an unmodifiable collection of all categories
+   */
+  public Collection<Category> getCategories() {
+    return this.categoriesById.values();
+  }
+
+  /**
+   * Finds the page of courses following the given cursor.
+   * <p>Mirrors {@code CourseRepository.findPage}, but the page is found by a binary search over a
+   * pre-sorted list instead of a database query.</p>
+   *
+   * @param cursor      the cursor pointing after the last course of the previous page
+   * @param visibleOnly {@code true} to only include visible courses
+   * @param categoryId  the category to limit the page to, or {@code null} for all categories
+   * @param limit       the maximum number of courses to return
+   * @return the courses of the page, in the order given by the cursor
+   * @throws IllegalArgumentException if the cursor is ordered by popularity
+   */
+  public List<Course> findPage(CourseCursor cursor, boolean visibleOnly, Integer categoryId,
+                               int limit) {
+    List<Course> sorted = this.getSortedView(cursor.getSort(), visibleOnly, categoryId);
+    int start = findStart(sorted, cursor);
+    return sorted.subList(start, Math.min(start + limit, sorted.size()));
+  }
+
+  /**
+   * Finds the page of courses following the given cursor, skipping the courses not accepted by
+   * the given filter.
+   *
+   * @param cursor      the cursor pointing after the last course of the previous page
+   * @param visibleOnly {@code true} to only include visible courses
+   * @param categoryId  the category to limit the page to, or {@code null} for all categories
+   * @param filter      the filter the courses of the page must pass
+   * @param limit       the maximum number of courses to return
+   * @return the courses of the page, in the order given by the cursor
+   * @throws IllegalArgumentException if the cursor is ordered by popularity
+   */
+  public List<Course> findPage(CourseCursor cursor, boolean visibleOnly, Integer categoryId,
+                               Predicate<Course> filter, int limit) {
+    List<Course> sorted = this.getSortedView(cursor.getSort(), visibleOnly, categoryId);
+    List<Course> page = new ArrayList<>();
+    for (int i = findStart(sorted, cursor); i < sorted.size() && page.size() < limit; i++) {
+      Course course = sorted.get(i);
+      if (filter.test(course)) {
+        page.add(course);
+      }
+    }
+    return page;
+  }
+
+  /**
+   * Finds the position of the first course after the cursor with a binary search.
+   */
+  private static int findStart(List<Course> sorted, CourseCursor cursor) {
+    int low = 0;
+    int high = sorted.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (precedes(cursor, sorted.get(middle))) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Gets the courses in the given scope, sorted by the given ordering.
+   * <p>Sorted views are built the first time they are needed and kept for the lifetime of the
+   * snapshot.</p>
+   */
+  private List<Course> getSortedView(CourseSort sort, boolean visibleOnly, Integer categoryId) {
+    if (sort == CourseSort.ID && categoryId == null) {
+      return visibleOnly ? this.visibleCourses : this.courses;
+    }
+    if (sort == CourseSort.ID && !visibleOnly) {
+      return this.coursesByCategory.getOrDefault(categoryId, List.of());
+    }
+    String key = sort + ":" + visibleOnly + ":" + categoryId;
+    return this.sortedViews.computeIfAbsent(key, k -> {
+      List<Course> scope = categoryId != null
+          ? this.coursesByCategory.getOrDefault(categoryId, List.of())
+          : this.courses;
+      return scope.stream()
+          .filter(course -> !visibleOnly || course.getIsVisible())
+          .sorted(getComparator(sort))
+          .toList();
+    });
+  }
+
+  /**
+   * Gets a comparator ordering courses the same way as the given ordering, missing values first.
+   *
+   * @param sort the ordering
+   * @return the comparator
+   * @throws IllegalArgumentException if the ordering is by popularity, which is not part of the
+   *                                  courses
+   */
+  static Comparator<Course> getComparator(CourseSort sort) {
+    return switch (sort) {
+      case ID -> BY_ID;
+      case TITLE -> BY_TITLE;
+      case START_DATE -> BY_START_DATE;
+      case PRICE -> BY_PRICE;
+      case POPULAR -> throw new IllegalArgumentException(
+          "Pages ordered by " + sort + " are served by the popularity ranking");
+    };
+  }
+
+  /**
+   * Checks if a course comes after a cursor in the ordering of the cursor.
+   *
+   * @param cursor the cursor
+   * @param course the course to check
+   * @return {@code true} if the course belongs on a later page, {@code false} otherwise
+   * @throws IllegalArgumentException if the cursor is ordered by popularity, which is not part
+   *                                  of the courses
+   */
+  static boolean precedes(CourseCursor cursor, Course course) {
+    int result = switch (cursor.getSort()) {
+      case ID -> 0;
+      case TITLE -> compareNullsFirst(cursor.getAfterTitle(), course.getTitle());
+      case START_DATE -> compareNullsFirst(cursor.getAfterStartDate(), course.getStartDate());
+      case PRICE -> compareNullsFirst(cursor.getAfterPrice(), course.getLowestPrice());
+      case POPULAR -> throw new IllegalArgumentException(
+          "Pages ordered by " + cursor.getSort() + " are served by the popularity ranking");
+    };
+    return result < 0 || (result == 0 && cursor.getAfterId() < course.getId());
+  }
+
+  private static <T extends Comparable<T>> int compareNullsFirst(T first, T second) {
+    if (first == null || second == null) {
+      return first == second ? 0 : (first == null ? -1 : 1);
+    }
+    return first.compareTo(second);
+  }
+}
@@ -0,0 +1,149 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseBulkUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service class for changing the attributes of many courses at once.
+ * <p>The courses are selected by id or by category, difficulty and start date, and changed with
+ * one {@code UPDATE} statement instead of loading and saving each course. Courses which already
+ * have the new values are left out, so the result only counts real changes.</p>
+ * <p>The update bypasses JPA, so the changed courses are reloaded into the course catalog
+ * together, as one new snapshot, once the update is committed.</p>
+ */
+@Service
+public class CourseBulkUpdateService {
+  private static final Logger logger = LoggerFactory.getLogger(CourseBulkUpdateService.class);
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final CourseCatalogService catalogService;
+
+  /**
+   * Creates a new CourseBulkUpdateService.
+   *
+   * @param dataSource         the data source holding the courses
+   * @param transactionManager the transaction manager used for each update
+   * @param catalogService     the service holding the in-memory course catalog
+   */
+  public CourseBulkUpdateService(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 CourseCatalogService catalogService) {
+    this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.catalogService = catalogService;
+  }
+
+  /**
+   * Applies the changes to every selected course.
+   * <p>A course is selected if it matches all the given criteria. At least one criterion is
+   * required, so an update never silently applies to the whole catalog.</p>
+   *
+   * @param ids          the ids of the courses to change, or {@code null} for any id
+   * @param difficulties the difficulties to match, or {@code null} for any difficulty
+   * @param categoryIds  the ids of the categories to match, or {@code null} for any category
+   * @param startFrom    the earliest start date to match, or {@code null} for no limit
+   * @param startTo      the latest start date to match, or {@code null} for no limit
+   * @param changes      the changes to apply
+   * @return the number of courses that were changed
+   * @throws IllegalArgumentException if nothing is selected or changed, the date range is
+   *                                  invalid or the new category does not exist
+   */
+  public int update(Collection<Integer> ids, Collection<String> difficulties,
+                    Collection<Integer> categoryIds, LocalDate startFrom, LocalDate startTo,
+                    CourseBulkUpdate changes) {
+    if (changes == null || !changes.hasChanges()) {
+      throw new IllegalArgumentException("At least one attribute to change is required");
+    }
+    if (changes.getDifficulty() != null && changes.getDifficulty().isBlank()) {
+      throw new IllegalArgumentException("Difficulty must not be blank");
+    }
+    if (startFrom != null && startTo != null && startFrom.isAfter(startTo)) {
+      throw new IllegalArgumentException("startFrom must not be after startTo");
+    }
+
+    MapSqlParameterSource parameters = new MapSqlParameterSource();
+    StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+    boolean selected = false;
+    if (ids != null && !ids.isEmpty()) {
+      where.append(" AND id IN (:ids)");
+      parameters.addValue("ids", ids);
+      selected = true;
+    }
+    if (difficulties != null && !difficulties.isEmpty()) {
+      where.append(" AND difficulty IN (:difficulties)");
+      parameters.addValue("difficulties", difficulties);
+      selected = true;
+    }
+    if (categoryIds != null && !categoryIds.isEmpty()) {
+      where.append(" AND category_id IN (:categoryIds)");
+      parameters.addValue("categoryIds", categoryIds);
+      selected = true;
+    }
+    if (startFrom != null) {
+      where.append(" AND start_date >= :startFrom");
+      parameters.addValue("startFrom", startFrom);
+      selected = true;
+    }
+    if (startTo != null) {
+      where.append(" AND start_date <= :startTo");
+      parameters.addValue("startTo", startTo);
+      selected = true;
+    }
+    if (!selected) {
+      throw new IllegalArgumentException("At least one course selection criterion is required");
+    }
+
+    // Only the courses where at least one attribute differs are changed
+    StringBuilder set = new StringBuilder();
+    StringBuilder differs = new StringBuilder();
+    if (changes.getIsVisible() != null) {
+      set.append(", is_visible = :newVisible");
+      differs.append(" OR is_visible <> :newVisible");
+      parameters.addValue("newVisible", changes.getIsVisible());
+    }
+    if (changes.getDifficulty() != null) {
+      set.append(", difficulty = :newDifficulty");
+      differs.append(" OR difficulty IS NULL OR difficulty <> :newDifficulty");
+      parameters.addValue("newDifficulty", changes.getDifficulty());
+    }
+    if (changes.getCategoryId() != null) {
+      set.append(", category_id = :newCategoryId");
+      differs.append(" OR category_id IS NULL OR category_id <> :newCategoryId");
+      parameters.addValue("newCategoryId", changes.getCategoryId());
+    }
+    where.append(" AND (").append(differs.substring(" OR ".length())).append(")");
+
+    Set<Integer> changedIds = this.transactionTemplate.execute(status -> {
+      if (changes.getCategoryId() != null && this.jdbcTemplate.queryForObject(
+          "SELECT COUNT(*) FROM category WHERE id = :newCategoryId", parameters,
+          Integer.class) == 0) {
+        throw new IllegalArgumentException("Category " + changes.getCategoryId() + " not found");
+      }
+      // Locks the selected courses, so the update changes exactly the courses reloaded below
+      List<Integer> selectedIds = this.jdbcTemplate.queryForList(
+          "SELECT id FROM course" + where + " FOR UPDATE", parameters, Integer.class);
+      if (selectedIds.isEmpty()) {
+        return Set.of();
+      }
+      int updated = this.jdbcTemplate.update(
+          "UPDATE course SET " + set.substring(", ".length()) + where, parameters);
+      logger.info("Bulk update changed {} courses", updated);
+      return new HashSet<>(selectedIds);
+    });
+    this.catalogService.coursesChanged(changedIds);
+    return changedIds.size();
+  }
+}
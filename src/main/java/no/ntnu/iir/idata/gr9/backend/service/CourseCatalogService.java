@@ -0,0 +1,302 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import no.ntnu.iir.idata.gr9.backend.entity.Category;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import no.ntnu.iir.idata.gr9.backend.entity.CourseProvider;
+import no.ntnu.iir.idata.gr9.backend.repository.CategoryRepository;
+import no.ntnu.iir.idata.gr9.backend.repository.CourseRepository;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps an in-memory snapshot of the course catalog for the public read endpoints.
+ * <p>The snapshot is loaded once and then replaced whenever a course changes. Changes made
+ * through JPA are picked up by {@link CatalogChangeListener} when their transaction commits.
+ * Changes that bypass the entity lifecycle, such as bulk queries, must call
+ * {@link #coursesChanged(Set)} or {@link #refresh()}, so the snapshot never falls behind the
+ * database.</p>
+ * <p>Provider prices are converted to the base currency by {@link CurrencyConverter} when a
+ * course is loaded. When a rate changes, only the courses with providers in that currency are
+ * reloaded.</p>
+ * <p>Every new snapshot is announced with a {@link CatalogChangedEvent}. The event is published
+ * while the update lock is held, so listeners see the changes in order.</p>
+ */
+@Service
+public class CourseCatalogService {
+  private static final Logger logger = LoggerFactory.getLogger(CourseCatalogService.class);
+  private static final int RELOAD_CHUNK_SIZE = 500;
+
+  private final CourseRepository courseRepository;
+  private final CategoryRepository categoryRepository;
+  private final CurrencyConverter currencyConverter;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+  private final Object updateLock = new Object();
+  // Distinguishes the versions of this instance from those of earlier runs in entity tags
+  private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+
+  /**
+   * Creates a new CourseCatalogService.
+   *
+   * @param courseRepository   the repository for managing courses
+   * @param categoryRepository the repository for managing categories
+   * @param currencyConverter  the converter normalizing provider prices
+   * @param transactionManager the transaction manager used when loading the catalog
+   * @param eventPublisher     the publisher used to announce new snapshots
+   * @param meterRegistry      the registry to publish the snapshot metrics to
+   */
+  public CourseCatalogService(CourseRepository courseRepository,
+                              CategoryRepository categoryRepository,
+                              CurrencyConverter currencyConverter,
+                              PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry) {
+    this.courseRepository = courseRepository;
+    this.categoryRepository = categoryRepository;
+    this.currencyConverter = currencyConverter;
+    this.eventPublisher = eventPublisher;
+    // Load in a separate persistence context, so the snapshot never shares managed entities
+    // with the request that triggered the update.
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.transactionTemplate.setReadOnly(true);
+
+    Gauge.builder("catalog.snapshot.age", this, CourseCatalogService::getSnapshotAgeSeconds)
+        .description("Seconds since the course catalog snapshot was built")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    Gauge.builder("catalog.snapshot.size", this, CourseCatalogService::getSnapshotSize)
+        .description("Number of courses in the course catalog snapshot")
+        .register(meterRegistry);
+    Gauge.builder("catalog.snapshot.version", this, CourseCatalogService::getSnapshotVersion)
+        .description("Version of the course catalog snapshot")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Loads the snapshot when the application has started, so the first request doesn't have to.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    try {
+      this.ensureLoaded();
+    } catch (DataAccessException e) {
+      logger.warn("Could not load the course catalog at startup: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Loads the catalog if this is the first use, so the indexes built from it are ready.
+   */
+  public void ensureLoaded() {
+    this.getSnapshot();
+  }
+
+  /**
+   * Gets the current snapshot of the catalog, loading it if this is the first use.
+   *
+   * @return the current snapshot
+   */
+  public CatalogSnapshot getSnapshot() {
+    CatalogSnapshot current = this.snapshot.get();
+    if (current == null) {
+      synchronized (this.updateLock) {
+        current = this.snapshot.get();
+        if (current == null) {
+          current = this.loadSnapshot(1);
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Reloads the whole catalog from the database and swaps in the new snapshot.
+   *
+   * @return the new snapshot
+   */
+  public CatalogSnapshot refresh() {
+    synchronized (this.updateLock) {
+      CatalogSnapshot current = this.snapshot.get();
+      return this.loadSnapshot(current == null ? 1 : current.getVersion() + 1);
+    }
+  }
+
+  /**
+   * Reloads a single course and swaps in a snapshot where the course is replaced.
+   * <p>Must be called after the change has been saved. A course which no longer exists is removed
+   * from the snapshot.</p>
+   *
+   * @param courseId the id of the course that changed
+   */
+  public void courseChanged(int courseId) {
+    this.coursesChanged(Set.of(courseId));
+  }
+
+  /**
+   * Reloads the given courses and swaps in one snapshot where they are replaced.
+   * <p>Must be called after the changes have been saved. Courses which no longer exist are
+   * removed from the snapshot.</p>
+   *
+   * @param courseIds the ids of the courses that changed
+   */
+  public void coursesChanged(Set<Integer> courseIds) {
+    if (courseIds.isEmpty()) {
+      return;
+    }
+    synchronized (this.updateLock) {
+      CatalogSnapshot current = this.snapshot.get();
+      if (current == null) {
+        // Nothing loaded yet, the next read will load the current state
+        return;
+      }
+      Map<Integer, Course> changed = this.transactionTemplate.execute(status -> {
+        Map<Integer, Course> loaded = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(courseIds);
+        // Loads the courses in chunks, to keep the IN lists of the queries short
+        for (int start = 0; start < ids.size(); start += RELOAD_CHUNK_SIZE) {
+          int end = Math.min(ids.size(), start + RELOAD_CHUNK_SIZE);
+          for (Course course : this.courseRepository.findByIdIn(ids.subList(start, end))) {
+            this.normalizePrices(course);
+            loaded.put(course.getId(), course);
+          }
+        }
+        return loaded;
+      });
+
+      List<Course> courses = new ArrayList<>(current.size() + changed.size());
+      for (Course course : current.getCourses()) {
+        if (!courseIds.contains(course.getId())) {
+          courses.add(course);
+        }
+      }
+      courses.addAll(changed.values());
+      this.swap(new CatalogSnapshot(current.getVersion() + 1, courses, current.getCategories()),
+          Set.copyOf(courseIds));
+    }
+  }
+
+  /**
+   * Reloads the currency rates and the courses with providers in the given currencies.
+   * <p>Must be called after the rates have been saved.</p>
+   *
+   * @param currencies the codes of the currencies whose rates changed
+   */
+  public void currencyRatesChanged(Set<String> currencies) {
+    synchronized (this.updateLock) {
+      this.currencyConverter.reload();
+      CatalogSnapshot current = this.snapshot.get();
+      if (current == null) {
+        return;
+      }
+      Set<String> changed = new HashSet<>();
+      for (String currency : currencies) {
+        changed.add(currency.trim().toUpperCase(Locale.ROOT));
+      }
+      Set<Integer> courseIds = new HashSet<>();
+      for (Course course : current.getCourses()) {
+        for (CourseProvider provider : course.getProviders()) {
+          if (provider.getCurrency() != null
+              && changed.contains(provider.getCurrency().trim().toUpperCase(Locale.ROOT))) {
+            courseIds.add(course.getId());
+            break;
+          }
+        }
+      }
+      logger.info("Currency rates changed for {}, repricing {} courses", changed,
+          courseIds.size());
+      this.coursesChanged(courseIds);
+    }
+  }
+
+  /**
+   * Gets a strong entity tag for the current version of the catalog.
+   * <p>Responses built from the catalog can be tagged with it, since any change to a course, a
+   * provider or a category gives the catalog a new version.</p>
+   *
+   * @return the quoted entity tag
+   */
+  public String getEntityTag() {
+    return "\"" + this.instanceId + "-" + this.getSnapshot().getVersion() + "\"";
+  }
+
+  /**
+   * Loads the whole catalog and swaps in the new snapshot. Must hold the update lock.
+   */
+  private CatalogSnapshot loadSnapshot(long version) {
+    CatalogSnapshot loaded = this.transactionTemplate.execute(status -> {
+      this.currencyConverter.reload();
+      List<Course> courses = new ArrayList<>();
+      for (Course course : this.courseRepository.findAll()) {
+        this.normalizePrices(course);
+        courses.add(course);
+      }
+      List<Category> categories = new ArrayList<>();
+      this.categoryRepository.findAll().forEach(categories::add);
+      return new CatalogSnapshot(version, courses, categories);
+    });
+    this.swap(loaded, null);
+    return loaded;
+  }
+
+  /**
+   * Loads the providers of a course and converts their prices to the base currency.
+   */
+  private void normalizePrices(Course course) {
+    Hibernate.initialize(course.getProviders());
+    for (CourseProvider provider : course.getProviders()) {
+      provider.setNormalizedPrice(this.currencyConverter.toBase(provider.getDiscountedPrice(),
+          provider.getCurrency()));
+    }
+  }
+
+  /**
+   * Swaps in a new snapshot and announces it. Must hold the update lock.
+   */
+  private void swap(CatalogSnapshot next, Set<Integer> changedCourseIds) {
+    this.snapshot.set(next);
+    logger.info("Swapped in course catalog snapshot version {} with {} courses",
+        next.getVersion(), next.size());
+    this.eventPublisher.publishEvent(new CatalogChangedEvent(next, changedCourseIds));
+  }
+
+  private double getSnapshotAgeSeconds() {
+    CatalogSnapshot current = this.snapshot.get();
+    if (current == null) {
+      return Double.NaN;
+    }
+    return Duration.between(current.getCreatedAt(), Instant.now()).toMillis() / 1000.0;
+  }
+
+  private double getSnapshotSize() {
+    CatalogSnapshot current = this.snapshot.get();
+    return current == null ? 0 : current.size();
+  }
+
+  private double getSnapshotVersion() {
+    CatalogSnapshot current = this.snapshot.get();
+    return current == null ? 0 : current.getVersion();
+  }
+}
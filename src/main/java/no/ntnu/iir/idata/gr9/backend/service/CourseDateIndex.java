@@ -0,0 +1,293 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseCursor;
+import no.ntnu.iir.idata.gr9.backend.dto.DateMatch;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory interval index over the dates every course runs.
+ * <p>The courses are kept sorted by start date in primitive arrays, which are read as an
+ * implicit balanced search tree: the middle of every range is the root of that range, and holds
+ * the latest end date of the whole range. A date window query therefore only visits the parts
+ * of the tree that can hold a match, and takes logarithmic time plus the number of matches,
+ * however many courses there are. On a catalog change the entries of the changed courses are
+ * dropped and their new dates merged into the sorted arrays in one pass, after which only the
+ * latest end dates of the tree are computed again.</p>
+ */
+@Service
+public class CourseDateIndex {
+  private final CourseCatalogService catalogService;
+  private volatile DateState state = DateState.build(List.of());
+
+  /**
+   * Creates a new CourseDateIndex.
+   *
+   * @param catalogService the service holding the in-memory course catalog
+   */
+  public CourseDateIndex(CourseCatalogService catalogService) {
+    this.catalogService = catalogService;
+  }
+
+  /**
+   * Updates the index when a new catalog snapshot has been swapped in.
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    if (event.isFullReload()) {
+      this.state = DateState.build(event.getSnapshot().getCourses());
+    } else {
+      this.state = this.state.update(event.getChangedCourseIds(), event.getChangedCourses());
+    }
+  }
+
+  /**
+   * Finds the courses running in a date window.
+   *
+   * @param from  the first day of the window, or {@code null} for no limit
+   * @param to    the last day of the window, or {@code null} for no limit
+   * @param match how the dates of a course must match the window
+   * @return the ids of the matching courses, in ascending order
+   */
+  public int[] findCourseIds(LocalDate from, LocalDate to, DateMatch match) {
+    this.catalogService.ensureLoaded();
+    List<Integer> ids = new ArrayList<>();
+    this.state.find(from, to, match, ids::add);
+    return ids.stream().mapToInt(Integer::intValue).sorted().toArray();
+  }
+
+  /**
+   * Finds the page of courses following the given cursor, limited to a date window.
+   * <p>Only the courses in the window are looked at, so narrow windows are answered without
+   * going through the rest of the catalog.</p>
+   *
+   * @param cursor the cursor pointing after the last course of the previous page
+   * @param from   the first day of the window, or {@code null} for no limit
+   * @param to     the last day of the window, or {@code null} for no limit
+   * @param match  how the dates of a course must match the window
+   * @param filter the filter the courses of the page must also pass
+   * @param limit  the maximum number of courses to return
+   * @return the courses of the page, in the order given by the cursor
+   * @throws IllegalArgumentException if the cursor is ordered by popularity
+   */
+  public List<Course> findPage(CourseCursor cursor, LocalDate from, LocalDate to,
+                               DateMatch match, Predicate<Course> filter, int limit) {
+    CatalogSnapshot snapshot = this.catalogService.getSnapshot();
+    Comparator<Course> order = CatalogSnapshot.getComparator(cursor.getSort());
+    // Holds the first courses found so far, with the last of them on top
+    PriorityQueue<Course> first = new PriorityQueue<>(order.reversed());
+    this.state.find(from, to, match, courseId -> {
+      Course course = snapshot.getCourse(courseId);
+      // The course may be missing if the snapshot was swapped after the index was read
+      if (course == null || !CatalogSnapshot.precedes(cursor, course) || !filter.test(course)) {
+        return;
+      }
+      if (first.size() < limit) {
+        first.add(course);
+      } else if (order.compare(course, first.peek()) < 0) {
+        first.poll();
+        first.add(course);
+      }
+    });
+    List<Course> page = new ArrayList<>(first);
+    page.sort(order);
+    return page;
+  }
+
+  /**
+   * An immutable version of the index.
+   */
+  private static final class DateState {
+    // The courses with a start date ordered by start date and id, as parallel arrays of days
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] courseIds;
+    // The latest end date of the range each position is the middle of
+    private final int[] maxEnds;
+
+    private DateState(int[] starts, int[] ends, int[] courseIds) {
+      this.starts = starts;
+      this.ends = ends;
+      this.courseIds = courseIds;
+      this.maxEnds = new int[courseIds.length];
+      buildMaxEnds(ends, this.maxEnds, 0, courseIds.length);
+    }
+
+    /**
+     * Builds the index for the given courses.
+     */
+    private static DateState build(Collection<Course> catalog) {
+      long[][] entries = toEntries(catalog);
+      return new DateState(column(entries, 0), column(entries, 1), column(entries, 2));
+    }
+
+    /**
+     * Creates a copy of this index where the given courses are moved to their new dates.
+     * <p>The arrays are rebuilt by merging the unchanged entries with the changed courses, so
+     * an update takes linear time instead of a full sort.</p>
+     *
+     * @param changedIds the ids of all changed courses, including removed ones
+     * @param changed    the changed courses that still exist
+     */
+    private DateState update(Set<Integer> changedIds, Collection<Course> changed) {
+      long[][] added = toEntries(changed);
+      int kept = 0;
+      for (int courseId : this.courseIds) {
+        if (!changedIds.contains(courseId)) {
+          kept++;
+        }
+      }
+      int size = kept + added.length;
+      int[] starts = new int[size];
+      int[] ends = new int[size];
+      int[] courseIds = new int[size];
+      int i = 0;
+      int j = 0;
+      for (int k = 0; k < size; k++) {
+        // Skips the old entries of the changed courses
+        while (i < this.courseIds.length && changedIds.contains(this.courseIds[i])) {
+          i++;
+        }
+        if (j == added.length || (i < this.courseIds.length
+            && compare(this.starts[i], this.courseIds[i], added[j][0], added[j][2]) < 0)) {
+          starts[k] = this.starts[i];
+          ends[k] = this.ends[i];
+          courseIds[k] = this.courseIds[i++];
+        } else {
+          starts[k] = (int) added[j][0];
+          ends[k] = (int) added[j][1];
+          courseIds[k] = (int) added[j++][2];
+        }
+      }
+      return new DateState(starts, ends, courseIds);
+    }
+
+    /**
+     * Passes the id of every course matching the window to the consumer, in no particular order.
+     */
+    private void find(LocalDate from, LocalDate to, DateMatch match, IntConsumer consumer) {
+      int first = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+      int last = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+      if (first > last) {
+        return;
+      }
+      int end = upperBound(this.starts, last);
+      if (match == DateMatch.WITHIN) {
+        // Every candidate starts in the window, so only the end date is left to check
+        for (int i = lowerBound(this.starts, first); i < end; i++) {
+          if (this.ends[i] <= last) {
+            consumer.accept(this.courseIds[i]);
+          }
+        }
+      } else {
+        this.findOverlapping(0, this.courseIds.length, first, end, consumer);
+      }
+    }
+
+    /**
+     * Visits the range of the implicit tree, skipping the subtrees ending before the window and
+     * the positions starting after it.
+     */
+    private void findOverlapping(int low, int high, int first, int end, IntConsumer consumer) {
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (this.maxEnds[middle] < first) {
+          return;
+        }
+        this.findOverlapping(low, middle, first, end, consumer);
+        if (middle >= end) {
+          return;
+        }
+        if (this.ends[middle] >= first) {
+          consumer.accept(this.courseIds[middle]);
+        }
+        low = middle + 1;
+      }
+    }
+
+    private static int buildMaxEnds(int[] ends, int[] maxEnds, int low, int high) {
+      if (low >= high) {
+        return Integer.MIN_VALUE;
+      }
+      int middle = (low + high) >>> 1;
+      int max = Math.max(ends[middle], Math.max(buildMaxEnds(ends, maxEnds, low, middle),
+          buildMaxEnds(ends, maxEnds, middle + 1, high)));
+      maxEnds[middle] = max;
+      return max;
+    }
+
+    /**
+     * Gets the start day, end day and id of the courses with a start date, ordered by start
+     * date and id.
+     */
+    private static long[][] toEntries(Collection<Course> courses) {
+      List<long[]> entries = new ArrayList<>(courses.size());
+      for (Course course : courses) {
+        if (course.getStartDate() == null) {
+          continue;
+        }
+        long start = course.getStartDate().toEpochDay();
+        long end = course.getEndDate() == null
+            ? start : Math.max(start, course.getEndDate().toEpochDay());
+        entries.add(new long[] {start, end, course.getId()});
+      }
+      long[][] sorted = entries.toArray(new long[0][]);
+      Arrays.sort(sorted, (a, b) -> compare(a[0], a[2], b[0], b[2]));
+      return sorted;
+    }
+
+    private static int[] column(long[][] entries, int column) {
+      int[] values = new int[entries.length];
+      for (int i = 0; i < entries.length; i++) {
+        values[i] = (int) entries[i][column];
+      }
+      return values;
+    }
+
+    private static int compare(long firstStart, long firstId, long secondStart, long secondId) {
+      int result = Long.compare(firstStart, secondStart);
+      return result != 0 ? result : Long.compare(firstId, secondId);
+    }
+
+    private static int lowerBound(int[] values, int value) {
+      int low = 0;
+      int high = values.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (values[middle] < value) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private static int upperBound(int[] values, int value) {
+      int low = 0;
+      int high = values.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (values[middle] <= value) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+}
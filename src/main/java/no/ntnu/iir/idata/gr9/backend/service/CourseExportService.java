@@ -0,0 +1,172 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import no.ntnu.iir.idata.gr9.backend.entity.Category;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import no.ntnu.iir.idata.gr9.backend.entity.CourseProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class for exporting the whole course catalog as newline-delimited JSON.
+ * <p>The courses are read with a single forward-only query, joined with their category and
+ * providers and ordered by course id, and fetched from the database a few hundred rows at a
+ * time. Each course is written as soon as its last row has been read, so memory use does not
+ * depend on the size of the catalog.</p>
+ */
+@Service
+public class CourseExportService {
+  /**
+   * The number of rows fetched from the database at a time.
+   */
+  static final int FETCH_SIZE = 500;
+
+  private static final Logger logger = LoggerFactory.getLogger(CourseExportService.class);
+  private static final int FLUSH_INTERVAL = 100;
+  private static final String EXPORT_QUERY = "SELECT c.id, c.title, c.description, c.keywords,"
+      + " c.difficulty, c.start_date, c.end_date, c.ects, c.hours_per_week,"
+      + " c.related_certifications, c.is_visible, c.image_path,"
+      + " cat.id AS category_id, cat.name AS category_name,"
+      + " p.id AS provider_id, p.name AS provider_name, p.price, p.discount, p.currency"
+      + " FROM course c"
+      + " LEFT JOIN category cat ON cat.id = c.category_id"
+      + " LEFT JOIN course_provider p ON p.course_id = c.id"
+      + " ORDER BY c.id, p.id";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectMapper objectMapper;
+  private final CurrencyConverter currencyConverter;
+
+  /**
+   * Creates a new CourseExportService.
+   *
+   * @param dataSource        the data source to read the courses from
+   * @param objectMapper      the object mapper used to write the courses
+   * @param currencyConverter the converter normalizing provider prices
+   */
+  public CourseExportService(DataSource dataSource, ObjectMapper objectMapper,
+                             CurrencyConverter currencyConverter) {
+    // A template of its own, so the fetch size does not apply to other queries
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    this.objectMapper = objectMapper;
+    this.currencyConverter = currencyConverter;
+  }
+
+  /**
+   * Writes every course, with its category and providers, as one JSON object per line.
+   * <p>The courses have the same JSON form as in the other course endpoints, and are written in
+   * id order.</p>
+   *
+   * @param output the stream to write the courses to
+   * @return the number of courses written
+   * @throws IOException if writing to the stream fails
+   */
+  public int exportCourses(OutputStream output) throws IOException {
+    ExportWriter writer = new ExportWriter(output);
+    try {
+      this.jdbcTemplate.query(EXPORT_QUERY, writer);
+      writer.finish();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    logger.info("Exported {} courses", writer.written);
+    return writer.written;
+  }
+
+  /**
+   * Groups the rows of each course and writes the course once all its rows have been read.
+   */
+  private final class ExportWriter implements RowCallbackHandler {
+    private final OutputStream output;
+    private final Map<Integer, Category> categories = new HashMap<>();
+    private Course current;
+    private int written;
+
+    private ExportWriter(OutputStream output) {
+      this.output = output;
+    }
+
+    @Override
+    public void processRow(ResultSet row) throws SQLException {
+      int courseId = row.getInt("id");
+      if (this.current == null || this.current.getId() != courseId) {
+        this.write(this.current);
+        this.current = this.readCourse(row);
+      }
+      int providerId = row.getInt("provider_id");
+      if (!row.wasNull()) {
+        CourseProvider provider = new CourseProvider();
+        provider.setId(providerId);
+        provider.setName(row.getString("provider_name"));
+        provider.setPrice(row.getDouble("price"));
+        provider.setDiscount(row.getDouble("discount"));
+        provider.setCurrency(row.getString("currency"));
+        provider.setNormalizedPrice(currencyConverter.toBase(provider.getDiscountedPrice(),
+            provider.getCurrency()));
+        this.current.addProvider(provider);
+      }
+    }
+
+    private Course readCourse(ResultSet row) throws SQLException {
+      Course course = new Course();
+      course.setId(row.getInt("id"));
+      course.setTitle(row.getString("title"));
+      course.setDescription(row.getString("description"));
+      course.setKeywords(row.getString("keywords"));
+      course.setDifficulty(row.getString("difficulty"));
+      course.setStartDate(row.getObject("start_date", LocalDate.class));
+      course.setEndDate(row.getObject("end_date", LocalDate.class));
+      double ects = row.getDouble("ects");
+      course.setEcts(row.wasNull() ? null : ects);
+      course.setHoursPerWeek(row.getInt("hours_per_week"));
+      course.setRelatedCertifications(row.getString("related_certifications"));
+      course.setIsVisible(row.getBoolean("is_visible"));
+      course.setImagePath(row.getString("image_path"));
+      int categoryId = row.getInt("category_id");
+      if (!row.wasNull()) {
+        String categoryName = row.getString("category_name");
+        course.setCategory(this.categories.computeIfAbsent(categoryId, id -> {
+          Category category = new Category(categoryName);
+          category.setId(id);
+          return category;
+        }));
+      }
+      return course;
+    }
+
+    private void write(Course course) {
+      if (course == null) {
+        return;
+      }
+      try {
+        this.output.write(objectMapper.writeValueAsBytes(course));
+        this.output.write('\n');
+        this.written++;
+        if (this.written % FLUSH_INTERVAL == 0) {
+          this.output.flush();
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void finish() throws IOException {
+      this.write(this.current);
+      this.current = null;
+      this.output.flush();
+    }
+  }
+}
@@ -0,0 +1,311 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseFacetResult;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseFilter;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory facet index over the visible courses, for combining filters without SQL queries.
+ * <p>Every visible course gets a position, in id order. Each value of the difficulty, category
+ * and ECTS facets has a bitmap of the positions of the courses with that value, and the courses
+ * are also kept sorted by start date and by price for range filters. A filter combination is
+ * resolved by intersecting bitmaps. The index is immutable and rebuilt on every catalog
+ * change.</p>
+ */
+@Service
+public class CourseFacetIndex {
+  /**
+   * The name of the difficulty facet.
+   */
+  public static final String DIFFICULTY_FACET = "difficulty";
+  /**
+   * The name of the category facet, with category ids as values.
+   */
+  public static final String CATEGORY_FACET = "category";
+  /**
+   * The name of the ECTS facet.
+   */
+  public static final String ECTS_FACET = "ects";
+
+  private final CourseCatalogService catalogService;
+  private volatile FacetState state = FacetState.build(List.of());
+
+  /**
+   * Creates a new CourseFacetIndex.
+   *
+   * @param catalogService the service holding the in-memory course catalog
+   */
+  public CourseFacetIndex(CourseCatalogService catalogService) {
+    this.catalogService = catalogService;
+  }
+
+  /**
+   * Rebuilds the index when a new catalog snapshot has been swapped in.
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    this.state = FacetState.build(event.getSnapshot().getCourses());
+  }
+
+  /**
+   * Finds the visible courses matching a filter, with the facet counts for the filter.
+   *
+   * @param filter the filter to apply
+   * @param offset the number of matching courses to skip
+   * @param limit  the maximum number of courses to return
+   * @return a page of matching courses, ordered by id, with the facet counts
+   */
+  public CourseFacetResult query(CourseFilter filter, int offset, int limit) {
+    this.catalogService.ensureLoaded();
+    FacetState current = this.state;
+
+    BitSet difficulties = current.union(current.difficulties, filter.getDifficulties());
+    BitSet categories = current.union(current.categories, filter.getCategoryIds());
+    BitSet ects = current.union(current.ects, filter.getEctsValues());
+    BitSet ranges = current.ranges(filter);
+
+    BitSet matches = intersect(current.all, difficulties, categories, ects, ranges);
+    List<Course> page = new ArrayList<>();
+    int position = matches.nextSetBit(0);
+    for (int skipped = 0; position >= 0 && skipped < offset; skipped++) {
+      position = matches.nextSetBit(position + 1);
+    }
+    while (position >= 0 && page.size() < limit) {
+      page.add(current.courses[position]);
+      position = matches.nextSetBit(position + 1);
+    }
+
+    Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+    facets.put(DIFFICULTY_FACET,
+        count(current.difficulties, intersect(current.all, categories, ects, ranges)));
+    facets.put(CATEGORY_FACET,
+        count(current.categories, intersect(current.all, difficulties, ects, ranges)));
+    facets.put(ECTS_FACET,
+        count(current.ects, intersect(current.all, difficulties, categories, ranges)));
+    return new CourseFacetResult(matches.cardinality(), offset, page, facets);
+  }
+
+  /**
+   * Intersects the given bitmaps, skipping the ones that are {@code null}.
+   */
+  private static BitSet intersect(BitSet all, BitSet... bitmaps) {
+    BitSet result = (BitSet) all.clone();
+    for (BitSet bitmap : bitmaps) {
+      if (bitmap != null) {
+        result.and(bitmap);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Counts the positions of each value that are also in the given base bitmap.
+   */
+  private static <T> Map<String, Integer> count(Map<T, BitSet> values, BitSet base) {
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    for (Map.Entry<T, BitSet> entry : values.entrySet()) {
+      BitSet matching = (BitSet) entry.getValue().clone();
+      matching.and(base);
+      counts.put(String.valueOf(entry.getKey()), matching.cardinality());
+    }
+    return counts;
+  }
+
+  /**
+   * An immutable version of the index.
+   */
+  private static final class FacetState {
+    private final Course[] courses;
+    private final BitSet all;
+    private final Map<String, BitSet> difficulties;
+    private final Map<Integer, BitSet> categories;
+    private final Map<Double, BitSet> ects;
+    private final int[] byStartDate;
+    private final LocalDate[] startDates;
+    private final int[] byPrice;
+    private final double[] prices;
+
+    private FacetState(Course[] courses, Map<String, BitSet> difficulties,
+                       Map<Integer, BitSet> categories, Map<Double, BitSet> ects,
+                       int[] byStartDate, int[] byPrice) {
+      this.courses = courses;
+      this.all = new BitSet(courses.length);
+      this.all.set(0, courses.length);
+      this.difficulties = difficulties;
+      this.categories = categories;
+      this.ects = ects;
+      this.byStartDate = byStartDate;
+      this.startDates = new LocalDate[byStartDate.length];
+      for (int i = 0; i < byStartDate.length; i++) {
+        this.startDates[i] = courses[byStartDate[i]].getStartDate();
+      }
+      this.byPrice = byPrice;
+      this.prices = new double[byPrice.length];
+      for (int i = 0; i < byPrice.length; i++) {
+        this.prices[i] = courses[byPrice[i]].getLowestPrice();
+      }
+    }
+
+    /**
+     * Builds the index for all visible courses in the given list, which is ordered by id.
+     */
+    private static FacetState build(Collection<Course> catalog) {
+      Course[] courses = catalog.stream().filter(Course::getIsVisible).toArray(Course[]::new);
+      Map<String, BitSet> difficulties = new TreeMap<>();
+      Map<Integer, BitSet> categories = new TreeMap<>();
+      Map<Double, BitSet> ects = new TreeMap<>();
+      List<Integer> dated = new ArrayList<>();
+      List<Integer> priced = new ArrayList<>();
+      for (int position = 0; position < courses.length; position++) {
+        Course course = courses[position];
+        if (course.getDifficulty() != null) {
+          difficulties.computeIfAbsent(course.getDifficulty(), value -> new BitSet())
+              .set(position);
+        }
+        if (course.getCategory() != null) {
+          categories.computeIfAbsent(course.getCategory().getId(), value -> new BitSet())
+              .set(position);
+        }
+        if (course.getEcts() != null) {
+          ects.computeIfAbsent(course.getEcts(), value -> new BitSet()).set(position);
+        }
+        if (course.getStartDate() != null) {
+          dated.add(position);
+        }
+        if (course.getLowestPrice() != null) {
+          priced.add(position);
+        }
+      }
+      dated.sort(Comparator.comparing(position -> courses[position].getStartDate()));
+      priced.sort(Comparator.comparing(position -> courses[position].getLowestPrice()));
+      return new FacetState(courses, difficulties, categories, ects,
+          dated.stream().mapToInt(Integer::intValue).toArray(),
+          priced.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Unions the bitmaps of the given values of a facet.
+     *
+     * @return the union, or {@code null} if no values are given
+     */
+    private <T> BitSet union(Map<T, BitSet> facet, Collection<T> values) {
+      if (values.isEmpty()) {
+        return null;
+      }
+      BitSet result = new BitSet(this.courses.length);
+      for (T value : values) {
+        BitSet bitmap = facet.get(value);
+        if (bitmap != null) {
+          result.or(bitmap);
+        }
+      }
+      return result;
+    }
+
+    /**
+     * Finds the courses within the date and price ranges of the filter.
+     *
+     * @return the matching positions, or {@code null} if no range is given
+     */
+    private BitSet ranges(CourseFilter filter) {
+      BitSet result = null;
+      if (filter.hasDateRange()) {
+        int from = filter.getStartFrom() == null
+            ? 0 : lowerBound(this.startDates, filter.getStartFrom());
+        int to = filter.getStartTo() == null
+            ? this.startDates.length : upperBound(this.startDates, filter.getStartTo());
+        result = positions(this.byStartDate, from, to);
+      }
+      if (filter.hasPriceRange()) {
+        int from = filter.getMinPrice() == null
+            ? 0 : lowerBound(this.prices, filter.getMinPrice());
+        int to = filter.getMaxPrice() == null
+            ? this.prices.length : upperBound(this.prices, filter.getMaxPrice());
+        BitSet inRange = positions(this.byPrice, from, to);
+        if (result == null) {
+          result = inRange;
+        } else {
+          result.and(inRange);
+        }
+      }
+      return result;
+    }
+
+    private BitSet positions(int[] sorted, int from, int to) {
+      BitSet result = new BitSet(this.courses.length);
+      for (int i = from; i < to; i++) {
+        result.set(sorted[i]);
+      }
+      return result;
+    }
+
+    private static int lowerBound(LocalDate[] values, LocalDate key) {
+      int low = 0;
+      int high = values.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (values[middle].isBefore(key)) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private static int upperBound(LocalDate[] values, LocalDate key) {
+      int low = 0;
+      int high = values.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (!values[middle].isAfter(key)) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private static int lowerBound(double[] values, double key) {
+      int low = 0;
+      int high = values.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (values[middle] < key) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private static int upperBound(double[] values, double key) {
+      int low = 0;
+      int high = values.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (values[middle] <= key) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+}
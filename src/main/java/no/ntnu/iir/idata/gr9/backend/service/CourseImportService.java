@@ -0,0 +1,478 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.sql.DataSource;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseImportError;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseImportResult;
+import no.ntnu.iir.idata.gr9.backend.entity.Category;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import no.ntnu.iir.idata.gr9.backend.entity.CourseProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service class for importing many courses at once from CSV or newline-delimited JSON.
+ * <p>The input is read as a stream. Valid courses are collected into chunks, and each chunk is
+ * written in its own transaction with JDBC batches: the courses are upserted by id and their
+ * providers replaced. Memory use therefore depends on the chunk size, not on the size of the
+ * input. Rows that cannot be read, and courses the database rejects, are skipped and reported
+ * with their line number.</p>
+ * <p>The writes bypass JPA, so the course catalog is reloaded once when the import is done.</p>
+ */
+@Service
+public class CourseImportService {
+  /**
+   * The most errors reported for one import. Further errors are only counted.
+   */
+  static final int MAX_REPORTED_ERRORS = 1000;
+
+  private static final Logger logger = LoggerFactory.getLogger(CourseImportService.class);
+  private static final String UPSERT_COURSE = "INSERT INTO course (id, title, description,"
+      + " keywords, difficulty, start_date, end_date, ects, hours_per_week,"
+      + " related_certifications, is_visible, image_path, category_id)"
+      + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+      + " ON DUPLICATE KEY UPDATE title = VALUES(title), description = VALUES(description),"
+      + " keywords = VALUES(keywords), difficulty = VALUES(difficulty),"
+      + " start_date = VALUES(start_date), end_date = VALUES(end_date), ects = VALUES(ects),"
+      + " hours_per_week = VALUES(hours_per_week),"
+      + " related_certifications = VALUES(related_certifications),"
+      + " is_visible = VALUES(is_visible),"
+      + " image_path = COALESCE(VALUES(image_path), image_path),"
+      + " category_id = VALUES(category_id)";
+  private static final String DELETE_PROVIDERS = "DELETE FROM course_provider WHERE course_id = ?";
+  private static final String INSERT_PROVIDER = "INSERT INTO course_provider"
+      + " (name, price, discount, currency, course_id) VALUES (?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final SimpleJdbcInsert categoryInsert;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final CourseCatalogService catalogService;
+  private final int batchSize;
+  private final int chunkSize;
+
+  /**
+   * Creates a new CourseImportService.
+   *
+   * @param dataSource         the data source to write the courses to
+   * @param transactionManager the transaction manager used for each chunk
+   * @param objectMapper       the object mapper used to read JSON courses
+   * @param catalogService     the service holding the in-memory course catalog
+   * @param batchSize          the number of statements sent to the database in one batch
+   * @param chunkSize          the number of courses written in one transaction
+   */
+  public CourseImportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper, CourseCatalogService catalogService,
+                             @Value("${course.import.batch-size:500}") int batchSize,
+                             @Value("${course.import.chunk-size:5000}") int chunkSize) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.categoryInsert = new SimpleJdbcInsert(dataSource)
+        .withTableName("category")
+        .usingColumns("name")
+        .usingGeneratedKeyColumns("id");
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.objectMapper = objectMapper;
+    this.catalogService = catalogService;
+    this.batchSize = batchSize;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Imports courses written as one JSON object per line.
+   * <p>The courses have the same JSON form as in the export, so an export can be imported
+   * again. Categories are matched by name and created if they do not exist.</p>
+   *
+   * @param input the stream to read the courses from, as UTF-8
+   * @return the number of imported courses and the errors
+   * @throws IOException if reading from the stream fails
+   */
+  public CourseImportResult importNdjson(InputStream input) throws IOException {
+    Importer importer = new Importer();
+    BufferedReader reader = new BufferedReader(
+        new InputStreamReader(input, StandardCharsets.UTF_8));
+    long lineNumber = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (line.isBlank()) {
+        continue;
+      }
+      try {
+        Course course = this.objectMapper.readValue(line, Course.class);
+        course.getProviders().forEach(provider -> provider.setCourse(course));
+        importer.add(lineNumber, course, validate(course));
+      } catch (JsonProcessingException e) {
+        importer.fail(lineNumber, null, "Invalid JSON: " + e.getOriginalMessage());
+      }
+    }
+    return importer.finish();
+  }
+
+  /**
+   * Imports courses written as CSV with a header row.
+   * <p>Each row holds a course and at most one of its providers. A course with several
+   * providers is written as consecutive rows with the same id, and the course columns are taken
+   * from its first row. The header names the columns, in any order: {@code id} and
+   * {@code title} are required, and the others are {@code description}, {@code keywords},
+   * {@code difficulty}, {@code startDate}, {@code endDate}, {@code ects},
+   * {@code hoursPerWeek}, {@code relatedCertifications}, {@code isVisible}, {@code imagePath},
+   * {@code category} (a category name), {@code providerName}, {@code providerPrice},
+   * {@code providerDiscount} and {@code providerCurrency}.</p>
+   *
+   * @param input the stream to read the courses from, as UTF-8
+   * @return the number of imported courses and the errors
+   * @throws IOException if reading from the stream fails
+   */
+  public CourseImportResult importCsv(InputStream input) throws IOException {
+    Importer importer = new Importer();
+    CsvReader reader = new CsvReader(new BufferedReader(
+        new InputStreamReader(input, StandardCharsets.UTF_8)));
+    List<String> header = reader.readRecord();
+    if (header == null) {
+      return importer.finish();
+    }
+    Map<String, Integer> columns = new HashMap<>();
+    for (int i = 0; i < header.size(); i++) {
+      columns.put(header.get(i).trim(), i);
+    }
+    if (!columns.containsKey("id") || !columns.containsKey("title")) {
+      throw new IllegalArgumentException("The CSV header must have the columns id and title");
+    }
+
+    Course current = null;
+    long currentLine = 0;
+    String currentError = null;
+    // The id of a course whose first row could not be read, so its other rows are skipped
+    Integer failedId = null;
+    List<String> record;
+    while ((record = reader.readRecord()) != null) {
+      if (record.size() == 1 && record.get(0).isBlank()) {
+        continue;
+      }
+      CsvRow row = new CsvRow(columns, record);
+      Integer id = parseId(row.get("id"));
+      if (id != null && id.equals(failedId)) {
+        continue;
+      }
+      if (current == null || id == null || current.getId() != id) {
+        if (current != null) {
+          importer.add(currentLine, current, currentError == null
+              ? validate(current) : currentError);
+        }
+        current = null;
+        currentLine = reader.getRecordLine();
+        currentError = null;
+        failedId = null;
+        try {
+          current = readCourse(row);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+          importer.fail(currentLine, id, e.getMessage());
+          failedId = id;
+          continue;
+        }
+      }
+      try {
+        CourseProvider provider = readProvider(row);
+        if (provider != null) {
+          current.addProvider(provider);
+        }
+      } catch (IllegalArgumentException e) {
+        // A course is only imported with all of its providers
+        if (currentError == null) {
+          currentError = "Line " + reader.getRecordLine() + ": " + e.getMessage();
+        }
+      }
+    }
+    if (current != null) {
+      importer.add(currentLine, current, currentError == null ? validate(current) : currentError);
+    }
+    return importer.finish();
+  }
+
+  /**
+   * Checks that a course can be imported.
+   *
+   * @return the reason the course is invalid, or {@code null} if it is valid
+   */
+  private static String validate(Course course) {
+    if (course.getId() <= 0) {
+      return "The id must be a positive integer";
+    }
+    if (course.getTitle() == null || course.getTitle().isBlank()) {
+      return "The title must not be empty";
+    }
+    for (CourseProvider provider : course.getProviders()) {
+      if (provider.getPrice() < 0) {
+        return "The provider price must not be negative";
+      }
+      if (provider.getDiscount() < 0 || provider.getDiscount() > 100) {
+        return "The provider discount must be between 0 and 100";
+      }
+    }
+    return null;
+  }
+
+  private static Course readCourse(CsvRow row) {
+    Course course = new Course();
+    Integer id = parseId(row.get("id"));
+    if (id == null) {
+      throw new IllegalArgumentException("The id must be a positive integer");
+    }
+    course.setId(id);
+    course.setTitle(row.get("title"));
+    course.setDescription(row.get("description"));
+    course.setKeywords(row.get("keywords"));
+    course.setDifficulty(row.get("difficulty"));
+    course.setStartDate(parseDate(row.get("startDate")));
+    course.setEndDate(parseDate(row.get("endDate")));
+    course.setEcts(parseDouble(row.get("ects"), "ects"));
+    Double hoursPerWeek = parseDouble(row.get("hoursPerWeek"), "hoursPerWeek");
+    course.setHoursPerWeek(hoursPerWeek == null ? 0 : hoursPerWeek.intValue());
+    course.setRelatedCertifications(row.get("relatedCertifications"));
+    course.setIsVisible(Boolean.parseBoolean(row.get("isVisible")));
+    course.setImagePath(row.get("imagePath"));
+    if (row.get("category") != null) {
+      course.setCategory(new Category(row.get("category")));
+    }
+    return course;
+  }
+
+  private static CourseProvider readProvider(CsvRow row) {
+    if (row.get("providerName") == null && row.get("providerPrice") == null) {
+      return null;
+    }
+    Double price = parseDouble(row.get("providerPrice"), "providerPrice");
+    if (price == null) {
+      throw new IllegalArgumentException("The provider price is missing");
+    }
+    Double discount = parseDouble(row.get("providerDiscount"), "providerDiscount");
+    CourseProvider provider = new CourseProvider();
+    provider.setName(row.get("providerName"));
+    provider.setPrice(price);
+    provider.setDiscount(discount == null ? 0 : discount);
+    provider.setCurrency(row.get("providerCurrency"));
+    return provider;
+  }
+
+  private static Integer parseId(String value) {
+    try {
+      int id = Integer.parseInt(value);
+      return id > 0 ? id : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static LocalDate parseDate(String value) {
+    return value == null ? null : LocalDate.parse(value);
+  }
+
+  private static Double parseDouble(String value, String column) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return Double.valueOf(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid number in " + column + ": " + value);
+    }
+  }
+
+  /**
+   * A CSV record with access to its fields by column name.
+   */
+  private record CsvRow(Map<String, Integer> columns, List<String> fields) {
+    /**
+     * Gets a field, or {@code null} if the column is missing or the field is blank.
+     */
+    String get(String column) {
+      Integer index = this.columns.get(column);
+      if (index == null || index >= this.fields.size()) {
+        return null;
+      }
+      String value = this.fields.get(index).trim();
+      return value.isEmpty() ? null : value;
+    }
+  }
+
+  /**
+   * A course waiting to be written, with the line it was read from.
+   */
+  private record PendingCourse(long line, Course course) {
+  }
+
+  /**
+   * Collects the courses of one import into chunks and writes them.
+   */
+  private final class Importer {
+    // Keyed by id, so a course repeated within a chunk is only written once, last one winning
+    private final Map<Integer, PendingCourse> chunk = new LinkedHashMap<>();
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final List<CourseImportError> errors = new ArrayList<>();
+    private int imported;
+    private int failed;
+    private boolean categoriesLoaded;
+
+    private void add(long line, Course course, String error) {
+      if (error != null) {
+        this.fail(line, course.getId(), error);
+        return;
+      }
+      this.chunk.put(course.getId(), new PendingCourse(line, course));
+      if (this.chunk.size() >= chunkSize) {
+        this.flush();
+      }
+    }
+
+    private void fail(long line, Integer courseId, String message) {
+      this.failed++;
+      if (this.errors.size() < MAX_REPORTED_ERRORS) {
+        this.errors.add(new CourseImportError(line, courseId, message));
+      }
+    }
+
+    private CourseImportResult finish() {
+      this.flush();
+      if (this.imported > 0) {
+        catalogService.refresh();
+      }
+      logger.info("Imported {} courses, {} failed", this.imported, this.failed);
+      return new CourseImportResult(this.imported, this.failed, this.errors);
+    }
+
+    /**
+     * Writes the current chunk in one transaction. If the database rejects the chunk, its
+     * courses are written one by one instead, to find the ones causing the error.
+     */
+    private void flush() {
+      if (this.chunk.isEmpty()) {
+        return;
+      }
+      List<PendingCourse> courses = new ArrayList<>(this.chunk.values());
+      this.chunk.clear();
+      List<PendingCourse> resolved = new ArrayList<>(courses.size());
+      for (PendingCourse pending : courses) {
+        try {
+          this.resolveCategory(pending.course());
+          resolved.add(pending);
+        } catch (IllegalArgumentException | DataAccessException e) {
+          this.fail(pending.line(), pending.course().getId(), e.getMessage());
+        }
+      }
+      try {
+        transactionTemplate.executeWithoutResult(status -> this.write(resolved));
+        this.imported += resolved.size();
+      } catch (DataAccessException e) {
+        logger.warn("Import chunk of {} courses failed, retrying one by one: {}",
+            resolved.size(), e.getMostSpecificCause().getMessage());
+        for (PendingCourse pending : resolved) {
+          try {
+            transactionTemplate.executeWithoutResult(status -> this.write(List.of(pending)));
+            this.imported++;
+          } catch (DataAccessException rowError) {
+            this.fail(pending.line(), pending.course().getId(),
+                rowError.getMostSpecificCause().getMessage());
+          }
+        }
+      }
+    }
+
+    private void write(List<PendingCourse> courses) {
+      List<Course> written = courses.stream().map(PendingCourse::course).toList();
+      jdbcTemplate.batchUpdate(UPSERT_COURSE, written, batchSize, Importer::setCourse);
+      jdbcTemplate.batchUpdate(DELETE_PROVIDERS, written, batchSize,
+          (statement, course) -> statement.setInt(1, course.getId()));
+      List<CourseProvider> providers = new ArrayList<>();
+      for (Course course : written) {
+        providers.addAll(course.getProviders());
+      }
+      jdbcTemplate.batchUpdate(INSERT_PROVIDER, providers, batchSize, (statement, provider) -> {
+        statement.setString(1, provider.getName());
+        statement.setDouble(2, provider.getPrice());
+        statement.setDouble(3, provider.getDiscount());
+        statement.setString(4, provider.getCurrency());
+        statement.setInt(5, provider.getCourse().getId());
+      });
+    }
+
+    private static void setCourse(PreparedStatement statement, Course course)
+        throws SQLException {
+      statement.setInt(1, course.getId());
+      statement.setString(2, course.getTitle());
+      statement.setString(3, course.getDescription());
+      statement.setString(4, course.getKeywords());
+      statement.setString(5, course.getDifficulty());
+      statement.setObject(6, course.getStartDate() == null
+          ? null : Date.valueOf(course.getStartDate()), Types.DATE);
+      statement.setObject(7, course.getEndDate() == null
+          ? null : Date.valueOf(course.getEndDate()), Types.DATE);
+      statement.setObject(8, course.getEcts(), Types.DOUBLE);
+      statement.setInt(9, course.getHoursPerWeek());
+      statement.setString(10, course.getRelatedCertifications());
+      statement.setBoolean(11, course.getIsVisible());
+      statement.setString(12, course.getImagePath());
+      Category category = course.getCategory();
+      statement.setObject(13, category == null ? null : category.getId(), Types.INTEGER);
+    }
+
+    /**
+     * Replaces the category of a course, given by name or id, with the stored category,
+     * creating it if there is none with that name.
+     */
+    private void resolveCategory(Course course) {
+      Category category = course.getCategory();
+      if (category == null) {
+        return;
+      }
+      if (!this.categoriesLoaded) {
+        jdbcTemplate.query("SELECT id, name FROM category", (RowCallbackHandler) row ->
+            this.categoryIds.put(key(row.getString("name")), row.getInt("id")));
+        this.categoriesLoaded = true;
+      }
+      if (category.getName() == null || category.getName().isBlank()) {
+        if (!this.categoryIds.containsValue(category.getId())) {
+          throw new IllegalArgumentException("Unknown category: " + category.getId());
+        }
+        return;
+      }
+      Integer id = this.categoryIds.get(key(category.getName()));
+      if (id == null) {
+        id = categoryInsert.executeAndReturnKey(Map.of("name", category.getName().trim()))
+            .intValue();
+        this.categoryIds.put(key(category.getName()), id);
+        logger.info("Created category {} during import", category.getName());
+      }
+      category.setId(id);
+    }
+
+    private static String key(String categoryName) {
+      return categoryName == null ? "" : categoryName.trim().toLowerCase(Locale.ROOT);
+    }
+  }
+}
@@ -0,0 +1,241 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory keyword index over the visible courses.
+ * <p>The free-text keywords of each course are split into lowercase words, and each word has a
+ * posting list: the sorted ids of the courses using it. Lookups for several keywords intersect
+ * or merge the posting lists in linear time. A catalog change only rewrites the posting lists of
+ * the words the changed courses used before or use now; every other list is shared with the
+ * previous index.</p>
+ */
+@Service
+public class CourseKeywordIndex {
+  private static final int[] NO_COURSES = new int[0];
+
+  private final CourseCatalogService catalogService;
+  private volatile KeywordState state = new KeywordState(Map.of(), Map.of());
+
+  /**
+   * Creates a new CourseKeywordIndex.
+   *
+   * @param catalogService the service holding the in-memory course catalog
+   */
+  public CourseKeywordIndex(CourseCatalogService catalogService) {
+    this.catalogService = catalogService;
+  }
+
+  /**
+   * Updates the index when a new catalog snapshot has been swapped in.
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    if (event.isFullReload()) {
+      this.state = KeywordState.build(event.getSnapshot().getCourses());
+    } else {
+      this.state = this.state.update(event.getChangedCourseIds(), event.getChangedCourses());
+    }
+  }
+
+  /**
+   * Finds the ids of the visible courses with the given keywords.
+   *
+   * @param keywords the keywords to look up, each split into words like the course keywords
+   * @param matchAll true if a course must have every keyword, false if one is enough
+   * @return the ids of the matching courses, in ascending order
+   */
+  public int[] findCourseIds(Collection<String> keywords, boolean matchAll) {
+    this.catalogService.ensureLoaded();
+    KeywordState current = this.state;
+    Set<String> words = new LinkedHashSet<>();
+    for (String keyword : keywords) {
+      words.addAll(TextTokenizer.tokenize(keyword));
+    }
+    if (words.isEmpty()) {
+      return NO_COURSES;
+    }
+
+    List<int[]> postings = new ArrayList<>(words.size());
+    for (String word : words) {
+      int[] courseIds = current.postings.getOrDefault(word, NO_COURSES);
+      if (matchAll && courseIds.length == 0) {
+        return NO_COURSES;
+      }
+      postings.add(courseIds);
+    }
+    if (matchAll) {
+      // Starting with the shortest list keeps every intermediate result as small as possible
+      postings.sort(Comparator.comparingInt(courseIds -> courseIds.length));
+      int[] result = postings.get(0);
+      for (int i = 1; i < postings.size() && result.length > 0; i++) {
+        result = intersect(result, postings.get(i));
+      }
+      return result;
+    }
+    int[] result = NO_COURSES;
+    for (int[] courseIds : postings) {
+      result = union(result, courseIds);
+    }
+    return result;
+  }
+
+  /**
+   * Counts the visible courses using each keyword word.
+   *
+   * @return the number of courses by keyword, in alphabetical order
+   */
+  public Map<String, Integer> getKeywordCounts() {
+    this.catalogService.ensureLoaded();
+    Map<String, Integer> counts = new TreeMap<>();
+    this.state.postings.forEach((word, courseIds) -> counts.put(word, courseIds.length));
+    return counts;
+  }
+
+  /**
+   * Intersects two sorted id arrays in linear time.
+   */
+  static int[] intersect(int[] first, int[] second) {
+    int[] result = new int[Math.min(first.length, second.length)];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < first.length && j < second.length) {
+      if (first[i] < second[j]) {
+        i++;
+      } else if (first[i] > second[j]) {
+        j++;
+      } else {
+        result[size++] = first[i];
+        i++;
+        j++;
+      }
+    }
+    return size == result.length ? result : Arrays.copyOf(result, size);
+  }
+
+  /**
+   * Merges two sorted id arrays without duplicates in linear time.
+   */
+  static int[] union(int[] first, int[] second) {
+    int[] result = new int[first.length + second.length];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < first.length || j < second.length) {
+      if (j >= second.length || (i < first.length && first[i] < second[j])) {
+        result[size++] = first[i++];
+      } else if (i >= first.length || second[j] < first[i]) {
+        result[size++] = second[j++];
+      } else {
+        result[size++] = first[i];
+        i++;
+        j++;
+      }
+    }
+    return size == result.length ? result : Arrays.copyOf(result, size);
+  }
+
+  /**
+   * An immutable version of the index.
+   */
+  private static final class KeywordState {
+    private final Map<String, int[]> postings;
+    private final Map<Integer, Set<String>> courseWords;
+
+    private KeywordState(Map<String, int[]> postings, Map<Integer, Set<String>> courseWords) {
+      this.postings = postings;
+      this.courseWords = courseWords;
+    }
+
+    /**
+     * Builds the index for all visible courses in the given list, which is ordered by id.
+     */
+    private static KeywordState build(List<Course> courses) {
+      Map<String, List<Integer>> courseIdsByWord = new HashMap<>();
+      Map<Integer, Set<String>> courseWords = new HashMap<>();
+      for (Course course : courses) {
+        if (!course.getIsVisible()) {
+          continue;
+        }
+        Set<String> words = Set.copyOf(TextTokenizer.tokenize(course.getKeywords()));
+        for (String word : words) {
+          courseIdsByWord.computeIfAbsent(word, w -> new ArrayList<>()).add(course.getId());
+        }
+        courseWords.put(course.getId(), words);
+      }
+      Map<String, int[]> postings = new HashMap<>();
+      courseIdsByWord.forEach((word, courseIds) ->
+          postings.put(word, courseIds.stream().mapToInt(Integer::intValue).toArray()));
+      return new KeywordState(Collections.unmodifiableMap(postings),
+          Collections.unmodifiableMap(courseWords));
+    }
+
+    /**
+     * Creates a new version of the index where the given courses are removed, and the visible
+     * ones among the changed courses are added back.
+     */
+    private KeywordState update(Set<Integer> removedIds, Collection<Course> changed) {
+      Map<String, int[]> newPostings = new HashMap<>(this.postings);
+      Map<Integer, Set<String>> newCourseWords = new HashMap<>(this.courseWords);
+      for (int courseId : removedIds) {
+        Set<String> words = newCourseWords.remove(courseId);
+        if (words == null) {
+          continue;
+        }
+        int[] removed = {courseId};
+        for (String word : words) {
+          int[] remaining = difference(newPostings.get(word), removed);
+          if (remaining.length == 0) {
+            newPostings.remove(word);
+          } else {
+            newPostings.put(word, remaining);
+          }
+        }
+      }
+      for (Course course : changed) {
+        if (!course.getIsVisible()) {
+          continue;
+        }
+        Set<String> words = Set.copyOf(TextTokenizer.tokenize(course.getKeywords()));
+        int[] added = {course.getId()};
+        for (String word : words) {
+          newPostings.put(word, union(newPostings.getOrDefault(word, NO_COURSES), added));
+        }
+        newCourseWords.put(course.getId(), words);
+      }
+      return new KeywordState(Collections.unmodifiableMap(newPostings),
+          Collections.unmodifiableMap(newCourseWords));
+    }
+
+    private static int[] difference(int[] courseIds, int[] removed) {
+      int[] result = new int[courseIds.length];
+      int size = 0;
+      int j = 0;
+      for (int courseId : courseIds) {
+        while (j < removed.length && removed[j] < courseId) {
+          j++;
+        }
+        if (j >= removed.length || removed[j] != courseId) {
+          result[size++] = courseId;
+        }
+      }
+      return Arrays.copyOf(result, size);
+    }
+  }
+}
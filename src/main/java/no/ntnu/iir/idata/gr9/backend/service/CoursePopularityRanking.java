@@ -0,0 +1,222 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseCursor;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory ranking of the courses by popularity, which is their number of orders and
+ * favorites.
+ * <p>Popularity changes with every order, so it is kept apart from the versioned catalog: a new
+ * ranking is swapped in after each flush of {@link CoursePopularityService}, and announced with
+ * a {@link PopularityRankingChangedEvent} instead of a {@link CatalogChangedEvent}. The catalog
+ * and its indexes, entity tags and cached responses are therefore left alone by orders and
+ * favorites. The courses with a popularity above zero are kept sorted in primitive arrays, and
+ * the other courses follow them in id order.</p>
+ */
+@Service
+public class CoursePopularityRanking {
+  private final CourseCatalogService catalogService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final Object updateLock = new Object();
+  private volatile RankingState state = RankingState.build(0, Map.of());
+
+  /**
+   * Creates a new CoursePopularityRanking.
+   *
+   * @param catalogService the service holding the in-memory course catalog
+   * @param eventPublisher the publisher used to announce new rankings
+   */
+  public CoursePopularityRanking(CourseCatalogService catalogService,
+                                 ApplicationEventPublisher eventPublisher) {
+    this.catalogService = catalogService;
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Gets the version of the ranking, increased every time a new ranking is swapped in.
+   *
+   * @return the ranking version
+   */
+  public long getVersion() {
+    return this.state.version;
+  }
+
+  /**
+   * Gets the popularity of a course.
+   *
+   * @param courseId the id of the course
+   * @return the number of orders and favorites of the course, never below zero
+   */
+  public long getPopularity(int courseId) {
+    return this.state.getPopularity(courseId);
+  }
+
+  /**
+   * Gets a comparator ordering courses by the current ranking, most popular first and then by
+   * id. The comparator keeps using the ranking it was created from.
+   *
+   * @return the comparator
+   */
+  public Comparator<Course> getComparator() {
+    RankingState current = this.state;
+    return Comparator.comparingLong((Course course) -> current.getPopularity(course.getId()))
+        .reversed()
+        .thenComparingInt(Course::getId);
+  }
+
+  /**
+   * Finds the page of courses following the given cursor, most popular first.
+   * <p>A course whose popularity changes between two pages may be skipped or repeated, as in
+   * any keyset listing over values that change.</p>
+   *
+   * @param cursor the cursor pointing after the last course of the previous page
+   * @param filter the filter the courses of the page must pass
+   * @param limit  the maximum number of courses to return
+   * @return the courses of the page, most popular first
+   */
+  public List<Course> findPage(CourseCursor cursor, Predicate<Course> filter, int limit) {
+    CatalogSnapshot snapshot = this.catalogService.getSnapshot();
+    RankingState current = this.state;
+    Long afterPopularity = cursor.getAfterPopularity();
+    List<Course> page = new ArrayList<>();
+    if (afterPopularity == null || afterPopularity > 0) {
+      int start = afterPopularity == null
+          ? 0 : current.after(afterPopularity, cursor.getAfterId());
+      for (int i = start; i < current.courseIds.length && page.size() < limit; i++) {
+        Course course = snapshot.getCourse(current.courseIds[i]);
+        // The course may be missing if it was removed after its counters were flushed
+        if (course != null && filter.test(course)) {
+          page.add(course);
+        }
+      }
+    }
+
+    // The courses that were never ordered or favorited follow, by id
+    List<Course> courses = snapshot.getCourses();
+    int start = afterPopularity == null || afterPopularity > 0
+        ? 0 : afterId(courses, cursor.getAfterId());
+    for (int i = start; i < courses.size() && page.size() < limit; i++) {
+      Course course = courses.get(i);
+      if (current.getPopularity(course.getId()) == 0 && filter.test(course)) {
+        page.add(course);
+      }
+    }
+    return page;
+  }
+
+  /**
+   * Swaps in a ranking built from the popularity of every course.
+   *
+   * @param popularity the number of orders and favorites of each course
+   */
+  void replace(Map<Integer, Long> popularity) {
+    synchronized (this.updateLock) {
+      this.swap(RankingState.build(this.state.version + 1, popularity));
+    }
+  }
+
+  /**
+   * Swaps in a ranking where the popularity of the given courses is changed.
+   *
+   * @param changes the change in the number of orders and favorites of each changed course
+   */
+  void add(Map<Integer, Long> changes) {
+    synchronized (this.updateLock) {
+      Map<Integer, Long> popularity = new HashMap<>(this.state.countsById);
+      changes.forEach((courseId, change) -> popularity.merge(courseId, change, Long::sum));
+      this.swap(RankingState.build(this.state.version + 1, popularity));
+    }
+  }
+
+  /**
+   * Swaps in a new ranking and announces it. Must hold the update lock.
+   */
+  private void swap(RankingState next) {
+    this.state = next;
+    this.eventPublisher.publishEvent(new PopularityRankingChangedEvent(next.version));
+  }
+
+  /**
+   * Finds the first position in a list ordered by id holding a course with a greater id.
+   */
+  private static int afterId(List<Course> courses, int courseId) {
+    int low = 0;
+    int high = courses.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (courses.get(middle).getId() <= courseId) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * An immutable version of the ranking.
+   */
+  private static final class RankingState {
+    private final long version;
+    private final Map<Integer, Long> countsById;
+    // The courses with a popularity above zero, most popular first and then by id
+    private final long[] popularity;
+    private final int[] courseIds;
+
+    private RankingState(long version, Map<Integer, Long> countsById, long[] popularity,
+                         int[] courseIds) {
+      this.version = version;
+      this.countsById = countsById;
+      this.popularity = popularity;
+      this.courseIds = courseIds;
+    }
+
+    private static RankingState build(long version, Map<Integer, Long> counts) {
+      Map<Integer, Long> countsById = new HashMap<>();
+      counts.forEach((courseId, count) -> {
+        if (count != 0) {
+          countsById.put(courseId, count);
+        }
+      });
+      int[] courseIds = countsById.entrySet().stream()
+          .filter(entry -> entry.getValue() > 0)
+          .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed()
+              .thenComparing(Map.Entry.comparingByKey()))
+          .mapToInt(Map.Entry::getKey)
+          .toArray();
+      long[] popularity = Arrays.stream(courseIds).mapToLong(countsById::get).toArray();
+      return new RankingState(version, countsById, popularity, courseIds);
+    }
+
+    private long getPopularity(int courseId) {
+      return Math.max(0, this.countsById.getOrDefault(courseId, 0L));
+    }
+
+    /**
+     * Finds the first position ranked after the given popularity and id.
+     */
+    private int after(long popularity, int courseId) {
+      int low = 0;
+      int high = this.courseIds.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (this.popularity[middle] > popularity
+            || (this.popularity[middle] == popularity && this.courseIds[middle] <= courseId)) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+}
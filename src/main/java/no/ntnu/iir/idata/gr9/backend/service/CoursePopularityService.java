@@ -0,0 +1,191 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the order and favorite counters of each course, which make up its popularity.
+ * <p>The changes are added up in memory in {@link LongAdder}s, which spread concurrent updates
+ * of the same course over several cells, so placing an order or adding a favorite never waits
+ * for a lock or a database write. The sums are periodically flushed to the
+ * {@code course_popularity} table with one batched upsert, and added to
+ * {@link CoursePopularityRanking}, where {@code sort=popular} and the suggestions read them. The
+ * course catalog is not reloaded, as popularity is not part of it.</p>
+ * <p>The table is filled from the existing orders and favorites the first time the application
+ * starts with it empty, and the ranking is loaded from it when the application starts.</p>
+ */
+@Service
+public class CoursePopularityService {
+  private static final Logger logger = LoggerFactory.getLogger(CoursePopularityService.class);
+  private static final String UPSERT_COUNTERS = "INSERT INTO course_popularity"
+      + " (course_id, order_count, favorite_count) VALUES (?, ?, ?)"
+      + " ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count),"
+      + " favorite_count = favorite_count + VALUES(favorite_count)";
+  private static final String SEED_COUNTERS = "INSERT INTO course_popularity"
+      + " (course_id, order_count, favorite_count)"
+      + " SELECT c.id,"
+      + " (SELECT COUNT(*) FROM orders o WHERE o.course_id = c.id),"
+      + " (SELECT COUNT(*) FROM favorite_course f WHERE f.course_id = c.id)"
+      + " FROM course c";
+  private static final String SELECT_POPULARITY =
+      "SELECT course_id, order_count + favorite_count FROM course_popularity";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final CoursePopularityRanking ranking;
+  private final Map<Integer, Counters> pending = new ConcurrentHashMap<>();
+  private final Object flushLock = new Object();
+
+  /**
+   * Creates a new CoursePopularityService.
+   *
+   * @param dataSource         the data source holding the counters
+   * @param transactionManager the transaction manager used for each flush
+   * @param ranking            the ranking the flushed counters are added to
+   */
+  public CoursePopularityService(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 CoursePopularityRanking ranking) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.ranking = ranking;
+  }
+
+  /**
+   * Records that orders of a course were placed or deleted.
+   * <p>Must be called after the change has been saved.</p>
+   *
+   * @param courseId the id of the ordered course
+   * @param delta    the change in the number of orders, negative for deleted orders
+   */
+  public void recordOrder(int courseId, int delta) {
+    this.counters(courseId).orders.add(delta);
+  }
+
+  /**
+   * Records that a course was added to or removed from the favorites of users.
+   * <p>Must be called after the change has been saved.</p>
+   *
+   * @param courseId the id of the course
+   * @param delta    the change in the number of favorites, negative for removed favorites
+   */
+  public void recordFavorite(int courseId, int delta) {
+    this.counters(courseId).favorites.add(delta);
+  }
+
+  /**
+   * Fills the counter table from the existing orders and favorites if it is empty, and loads
+   * the ranking from it.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void seed() {
+    synchronized (this.flushLock) {
+      try {
+        Integer inserted = this.transactionTemplate.execute(status -> {
+          Integer existing = this.jdbcTemplate.queryForObject(
+              "SELECT COUNT(*) FROM course_popularity", Integer.class);
+          return existing == null || existing > 0 ? 0 : this.jdbcTemplate.update(SEED_COUNTERS);
+        });
+        if (inserted != null && inserted > 0) {
+          // The seed counted every saved order and favorite, including the pending ones
+          for (Counters counters : this.pending.values()) {
+            counters.orders.add(-counters.orders.sum());
+            counters.favorites.add(-counters.favorites.sum());
+          }
+          logger.info("Seeded popularity counters for {} courses", inserted);
+        }
+        Map<Integer, Long> popularity = new HashMap<>();
+        this.jdbcTemplate.query(SELECT_POPULARITY,
+            (RowCallbackHandler) row -> popularity.put(row.getInt(1), row.getLong(2)));
+        this.ranking.replace(popularity);
+      } catch (DataAccessException e) {
+        logger.warn("Could not load the popularity counters: {}", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Writes the changes recorded since the last flush to the counter table, and adds them to the
+   * ranking.
+   * <p>Changes recorded while the flush runs are kept for the next one. If the write fails, the
+   * changes are put back, so none are lost.</p>
+   *
+   * @return the number of courses whose counters were written
+   */
+  @Scheduled(fixedDelayString = "${course.popularity.flush-interval-ms:30000}",
+      initialDelayString = "${course.popularity.flush-interval-ms:30000}")
+  public int flush() {
+    synchronized (this.flushLock) {
+      List<Object[]> rows = new ArrayList<>();
+      Map<Integer, Long> changes = new HashMap<>();
+      for (Map.Entry<Integer, Counters> entry : this.pending.entrySet()) {
+        Counters counters = entry.getValue();
+        // Subtracts what was read instead of resetting, so concurrent updates are not lost
+        long orders = counters.orders.sum();
+        long favorites = counters.favorites.sum();
+        if (orders == 0 && favorites == 0) {
+          continue;
+        }
+        counters.orders.add(-orders);
+        counters.favorites.add(-favorites);
+        rows.add(new Object[] {entry.getKey(), orders, favorites});
+        changes.put(entry.getKey(), orders + favorites);
+      }
+      if (rows.isEmpty()) {
+        return 0;
+      }
+      try {
+        this.transactionTemplate.executeWithoutResult(
+            status -> this.jdbcTemplate.batchUpdate(UPSERT_COUNTERS, rows));
+      } catch (DataAccessException e) {
+        for (Object[] row : rows) {
+          Counters counters = this.counters((Integer) row[0]);
+          counters.orders.add((Long) row[1]);
+          counters.favorites.add((Long) row[2]);
+        }
+        logger.warn("Could not flush the popularity counters: {}", e.getMessage());
+        return 0;
+      }
+      logger.debug("Flushed popularity counters for {} courses", rows.size());
+      this.ranking.add(changes);
+      return rows.size();
+    }
+  }
+
+  /**
+   * Flushes the remaining changes when the application shuts down.
+   */
+  @PreDestroy
+  public void shutdown() {
+    this.flush();
+  }
+
+  private Counters counters(int courseId) {
+    return this.pending.computeIfAbsent(courseId, id -> new Counters());
+  }
+
+  /**
+   * The changes to the counters of one course since the last flush.
+   */
+  private static final class Counters {
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder favorites = new LongAdder();
+  }
+}
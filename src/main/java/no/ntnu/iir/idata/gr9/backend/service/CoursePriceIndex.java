@@ -0,0 +1,331 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseCursor;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSort;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory index of the effective price of every course.
+ * <p>The effective price is the lowest price among the providers of a course, after discount.
+ * It is computed once when a course or one of its providers changes, and the courses are kept
+ * sorted by it in primitive arrays, so price ordering and price ranges are answered with a
+ * binary search instead of a query over the provider table. On a catalog change only the
+ * changed courses are re-priced, and they are merged into the sorted arrays without sorting the
+ * other courses again.</p>
+ */
+@Service
+public class CoursePriceIndex {
+  private final CourseCatalogService catalogService;
+  private volatile PriceState state = PriceState.build(List.of());
+
+  /**
+   * Creates a new CoursePriceIndex.
+   *
+   * @param catalogService the service holding the in-memory course catalog
+   */
+  public CoursePriceIndex(CourseCatalogService catalogService) {
+    this.catalogService = catalogService;
+  }
+
+  /**
+   * Updates the index when a new catalog snapshot has been swapped in.
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    if (event.isFullReload()) {
+      this.state = PriceState.build(event.getSnapshot().getCourses());
+    } else {
+      this.state = this.state.update(event.getChangedCourseIds(), event.getChangedCourses());
+    }
+  }
+
+  /**
+   * Gets the effective price of a course.
+   *
+   * @param courseId the id of the course
+   * @return the lowest price after discount, or {@code null} if the course has no providers
+   */
+  public Double getPrice(int courseId) {
+    this.catalogService.ensureLoaded();
+    return this.state.pricesById.get(courseId);
+  }
+
+  /**
+   * Checks whether the effective price of a course is within a price range.
+   *
+   * @param courseId the id of the course
+   * @param minPrice the lowest effective price to include, or {@code null} for no limit
+   * @param maxPrice the highest effective price to include, or {@code null} for no limit
+   * @return {@code true} if there is no limit, or the course has a price within the range
+   */
+  public boolean isInRange(int courseId, Double minPrice, Double maxPrice) {
+    if (minPrice == null && maxPrice == null) {
+      return true;
+    }
+    this.catalogService.ensureLoaded();
+    return this.state.isInRange(courseId, minPrice, maxPrice);
+  }
+
+  /**
+   * Finds the page of courses following the given cursor, limited to a price range.
+   * <p>Pages ordered by price are read from the sorted price arrays. Other orderings use the
+   * sorted views of the catalog snapshot, skipping the courses outside the price range.</p>
+   *
+   * @param cursor      the cursor pointing after the last course of the previous page
+   * @param visibleOnly {@code true} to only include visible courses
+   * @param categoryId  the category to limit the page to, or {@code null} for all categories
+   * @param minPrice    the lowest effective price to include, or {@code null} for no limit
+   * @param maxPrice    the highest effective price to include, or {@code null} for no limit
+   * @param limit       the maximum number of courses to return
+   * @return the courses of the page, in the order given by the cursor
+   * @throws IllegalArgumentException if the cursor is ordered by popularity
+   */
+  public List<Course> findPage(CourseCursor cursor, boolean visibleOnly, Integer categoryId,
+                               Double minPrice, Double maxPrice, int limit) {
+    CatalogSnapshot snapshot = this.catalogService.getSnapshot();
+    PriceState current = this.state;
+    boolean hasRange = minPrice != null || maxPrice != null;
+    if (cursor.getSort() != CourseSort.PRICE) {
+      if (!hasRange) {
+        return snapshot.findPage(cursor, visibleOnly, categoryId, limit);
+      }
+      return snapshot.findPage(cursor, visibleOnly, categoryId,
+          course -> current.isInRange(course.getId(), minPrice, maxPrice), limit);
+    }
+
+    List<Course> page = new ArrayList<>();
+    // Courses without a price sort first, by id, and never match a price range
+    if (cursor.isAfterNull() && !hasRange) {
+      int start = upperBound(current.unpricedIds, cursor.getAfterId());
+      for (int i = start; i < current.unpricedIds.length && page.size() < limit; i++) {
+        addIfInScope(page, snapshot.getCourse(current.unpricedIds[i]), visibleOnly, categoryId);
+      }
+    }
+    int start = minPrice == null ? 0 : current.lowerBound(minPrice);
+    if (!cursor.isAfterNull()) {
+      start = Math.max(start, current.after(cursor.getAfterPrice(), cursor.getAfterId()));
+    }
+    int end = maxPrice == null ? current.prices.length : current.upperBound(maxPrice);
+    for (int i = start; i < end && page.size() < limit; i++) {
+      addIfInScope(page, snapshot.getCourse(current.courseIds[i]), visibleOnly, categoryId);
+    }
+    return page;
+  }
+
+  private static void addIfInScope(List<Course> page, Course course, boolean visibleOnly,
+                                   Integer categoryId) {
+    // The course may be missing if the snapshot was swapped after the index was read
+    if (course == null || (visibleOnly && !course.getIsVisible())) {
+      return;
+    }
+    if (categoryId == null
+        || (course.getCategory() != null && course.getCategory().getId() == categoryId)) {
+      page.add(course);
+    }
+  }
+
+  /**
+   * Finds the first position in a sorted id array holding an id greater than the given id.
+   */
+  private static int upperBound(int[] ids, int id) {
+    int low = 0;
+    int high = ids.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (ids[middle] <= id) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * An immutable version of the index.
+   */
+  private static final class PriceState {
+    private final Map<Integer, Double> pricesById;
+    // The priced courses ordered by price and id, as parallel arrays
+    private final double[] prices;
+    private final int[] courseIds;
+    // The courses without providers, ordered by id
+    private final int[] unpricedIds;
+
+    private PriceState(Map<Integer, Double> pricesById, double[] prices, int[] courseIds,
+                       int[] unpricedIds) {
+      this.pricesById = pricesById;
+      this.prices = prices;
+      this.courseIds = courseIds;
+      this.unpricedIds = unpricedIds;
+    }
+
+    /**
+     * Builds the index for the given courses, which are ordered by id.
+     */
+    private static PriceState build(Collection<Course> catalog) {
+      Map<Integer, Double> pricesById = new HashMap<>();
+      List<Integer> unpriced = new ArrayList<>();
+      for (Course course : catalog) {
+        Double price = course.getLowestPrice();
+        if (price == null) {
+          unpriced.add(course.getId());
+        } else {
+          pricesById.put(course.getId(), price);
+        }
+      }
+      Integer[] priced = sortByPrice(pricesById, pricesById.keySet());
+      double[] prices = new double[priced.length];
+      int[] courseIds = new int[priced.length];
+      for (int i = 0; i < priced.length; i++) {
+        courseIds[i] = priced[i];
+        prices[i] = pricesById.get(priced[i]);
+      }
+      int[] unpricedIds = unpriced.stream().mapToInt(Integer::intValue).sorted().toArray();
+      return new PriceState(pricesById, prices, courseIds, unpricedIds);
+    }
+
+    /**
+     * Creates a copy of this index where the given courses are re-priced.
+     * <p>The sorted arrays are rebuilt by merging the unchanged entries with the re-priced
+     * courses, so an update takes linear time instead of a full sort.</p>
+     *
+     * @param changedIds the ids of all changed courses, including removed ones
+     * @param changed    the changed courses that still exist
+     */
+    private PriceState update(Set<Integer> changedIds, Collection<Course> changed) {
+      Map<Integer, Double> pricesById = new HashMap<>(this.pricesById);
+      pricesById.keySet().removeAll(changedIds);
+      List<Integer> repriced = new ArrayList<>();
+      List<Integer> unpriced = new ArrayList<>();
+      for (Course course : changed) {
+        Double price = course.getLowestPrice();
+        if (price == null) {
+          unpriced.add(course.getId());
+        } else {
+          pricesById.put(course.getId(), price);
+          repriced.add(course.getId());
+        }
+      }
+      Integer[] added = sortByPrice(pricesById, repriced);
+
+      int size = pricesById.size();
+      double[] prices = new double[size];
+      int[] courseIds = new int[size];
+      int i = 0;
+      int j = 0;
+      int k = 0;
+      while (k < size) {
+        // Skips the old entries of the changed courses
+        while (i < this.courseIds.length && changedIds.contains(this.courseIds[i])) {
+          i++;
+        }
+        if (j == added.length) {
+          prices[k] = this.prices[i];
+          courseIds[k++] = this.courseIds[i++];
+          continue;
+        }
+        double addedPrice = pricesById.get(added[j]);
+        if (i < this.courseIds.length
+            && compare(this.prices[i], this.courseIds[i], addedPrice, added[j]) < 0) {
+          prices[k] = this.prices[i];
+          courseIds[k++] = this.courseIds[i++];
+        } else {
+          prices[k] = addedPrice;
+          courseIds[k++] = added[j++];
+        }
+      }
+
+      int[] unpricedIds = Arrays.stream(this.unpricedIds)
+          .filter(id -> !changedIds.contains(id))
+          .toArray();
+      if (!unpriced.isEmpty()) {
+        int[] merged = Arrays.copyOf(unpricedIds, unpricedIds.length + unpriced.size());
+        for (int n = 0; n < unpriced.size(); n++) {
+          merged[unpricedIds.length + n] = unpriced.get(n);
+        }
+        Arrays.sort(merged);
+        unpricedIds = merged;
+      }
+      return new PriceState(pricesById, prices, courseIds, unpricedIds);
+    }
+
+    private static Integer[] sortByPrice(Map<Integer, Double> pricesById,
+                                         Collection<Integer> courseIds) {
+      Integer[] sorted = courseIds.toArray(new Integer[0]);
+      Arrays.sort(sorted, Comparator.<Integer>comparingDouble(pricesById::get)
+          .thenComparingInt(Integer::intValue));
+      return sorted;
+    }
+
+    private static int compare(double firstPrice, int firstId, double secondPrice,
+                               int secondId) {
+      int result = Double.compare(firstPrice, secondPrice);
+      return result != 0 ? result : Integer.compare(firstId, secondId);
+    }
+
+    private boolean isInRange(int courseId, Double minPrice, Double maxPrice) {
+      Double price = this.pricesById.get(courseId);
+      return price != null
+          && (minPrice == null || price >= minPrice)
+          && (maxPrice == null || price <= maxPrice);
+    }
+
+    /**
+     * Finds the first position ordered after the given price and id.
+     */
+    private int after(double price, int courseId) {
+      int low = 0;
+      int high = this.prices.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (compare(this.prices[middle], this.courseIds[middle], price, courseId) <= 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private int lowerBound(double price) {
+      int low = 0;
+      int high = this.prices.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (this.prices[middle] < price) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private int upperBound(double price) {
+      int low = 0;
+      int high = this.prices.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (this.prices[middle] <= price) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+}
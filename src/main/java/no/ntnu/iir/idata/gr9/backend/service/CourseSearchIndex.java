@@ -0,0 +1,400 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory inverted index for full-text search over the visible courses, ranked with BM25.
+ * <p>The title, keywords, related certifications and description of each course are tokenized
+ * and indexed together, with matches in the title and keywords weighted higher. The index is
+ * immutable and replaced on every catalog change; only the postings of the changed courses are
+ * copied, so updates stay cheap and searches never take a lock or touch the database.</p>
+ */
+@Service
+public class CourseSearchIndex {
+  private static final float TITLE_WEIGHT = 3f;
+  private static final float KEYWORDS_WEIGHT = 2f;
+  private static final float CERTIFICATIONS_WEIGHT = 1.5f;
+  private static final float DESCRIPTION_WEIGHT = 1f;
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+
+  private final CourseCatalogService catalogService;
+  private volatile IndexState state = new IndexState(Map.of(), Map.of(), Map.of(), 0);
+
+  /**
+   * Creates a new CourseSearchIndex.
+   *
+   * @param catalogService the service holding the in-memory course catalog
+   */
+  public CourseSearchIndex(CourseCatalogService catalogService) {
+    this.catalogService = catalogService;
+  }
+
+  /**
+   * Updates the index when a new catalog snapshot has been swapped in.
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    if (event.isFullReload()) {
+      this.state = IndexState.build(event.getSnapshot().getCourses());
+    } else {
+      this.state = this.state.update(event.getChangedCourseIds(), event.getChangedCourses());
+    }
+  }
+
+  /**
+   * Searches the visible courses, ranking them by BM25 score.
+   *
+   * @param query  the free-text query
+   * @param offset the number of top hits to skip
+   * @param limit  the maximum number of hits to return
+   * @return the requested hits and the total number of matching courses
+   */
+  public SearchResult search(String query, int offset, int limit) {
+    this.catalogService.ensureLoaded();
+    IndexState current = this.state;
+    Set<String> terms = new LinkedHashSet<>(TextTokenizer.tokenize(query));
+    if (terms.isEmpty() || current.documentLengths.isEmpty() || limit <= 0) {
+      return new SearchResult(List.of(), 0);
+    }
+
+    int documentCount = current.documentLengths.size();
+    double averageLength = current.totalLength / documentCount;
+    List<Postings> matched = new ArrayList<>(terms.size());
+    for (String term : terms) {
+      Postings postings = current.postings.get(term);
+      if (postings != null) {
+        matched.add(postings);
+      }
+    }
+    int termCount = matched.size();
+    int[][] ids = new int[termCount][];
+    float[][] frequencies = new float[termCount][];
+    float[][] lengths = new float[termCount][];
+    double[] idfs = new double[termCount];
+    for (int i = 0; i < termCount; i++) {
+      Postings postings = matched.get(i);
+      ids[i] = postings.courseIds;
+      frequencies[i] = postings.frequencies;
+      lengths[i] = postings.lengths;
+      int documentFrequency = postings.courseIds.length;
+      idfs[i] = Math.log(1 + (documentCount - documentFrequency + 0.5)
+          / (documentFrequency + 0.5));
+    }
+
+    // The postings are ordered by course id, so they are merged without a score map
+    int[] positions = new int[termCount];
+    int wanted = (int) Math.min((long) offset + limit, documentCount);
+    PriorityQueue<Hit> best = new PriorityQueue<>(wanted + 1,
+        (first, second) -> -compareHits(first, second));
+    int total = 0;
+    while (true) {
+      int courseId = Integer.MAX_VALUE;
+      boolean found = false;
+      for (int i = 0; i < termCount; i++) {
+        if (positions[i] < ids[i].length) {
+          courseId = Math.min(courseId, ids[i][positions[i]]);
+          found = true;
+        }
+      }
+      if (!found) {
+        break;
+      }
+      double score = 0;
+      for (int i = 0; i < termCount; i++) {
+        int position = positions[i];
+        if (position < ids[i].length && ids[i][position] == courseId) {
+          double frequency = frequencies[i][position];
+          double norm = K1 * (1 - B + B * lengths[i][position] / averageLength);
+          score += idfs[i] * frequency * (K1 + 1) / (frequency + norm);
+          positions[i]++;
+        }
+      }
+      total++;
+      if (best.size() < wanted || isBetter(courseId, score, best.peek())) {
+        best.add(new Hit(courseId, score));
+        if (best.size() > wanted) {
+          best.poll();
+        }
+      }
+    }
+
+    List<Hit> ranked = new ArrayList<>(best);
+    ranked.sort(CourseSearchIndex::compareHits);
+    List<Hit> page = ranked.subList(Math.min(offset, ranked.size()), ranked.size());
+    return new SearchResult(page, total);
+  }
+
+  /**
+   * Checks whether a course with the given score ranks before the given hit.
+   */
+  private static boolean isBetter(int courseId, double score, Hit hit) {
+    return score > hit.score || (score == hit.score && courseId < hit.courseId);
+  }
+
+  private static int compareHits(Hit first, Hit second) {
+    int result = Double.compare(second.score, first.score);
+    return result != 0 ? result : Integer.compare(first.courseId, second.courseId);
+  }
+
+  /**
+   * A course matching a search, with its score.
+   */
+  public static final class Hit {
+    private final int courseId;
+    private final double score;
+
+    private Hit(int courseId, double score) {
+      this.courseId = courseId;
+      this.score = score;
+    }
+
+    /**
+     * Gets the id of the matching course.
+     *
+     * @return the course id
+     */
+    public int getCourseId() {
+      return this.courseId;
+    }
+
+    /**
+     * Gets the BM25 score of the course, higher is better.
+     *
+     * @return the score
+     */
+    public double getScore() {
+      return this.score;
+    }
+  }
+
+  /**
+   * One page of search hits, with the total number of matching courses.
+   */
+  public static final class SearchResult {
+    private final List<Hit> hits;
+    private final int total;
+
+    private SearchResult(List<Hit> hits, int total) {
+      this.hits = hits;
+      this.total = total;
+    }
+
+    /**
+     * Gets the hits of the page, best first.
+     *
+     * @return the hits
+     */
+    public List<Hit> getHits() {
+      return this.hits;
+    }
+
+    /**
+     * Gets the total number of matching courses.
+     *
+     * @return the number of matching courses
+     */
+    public int getTotal() {
+      return this.total;
+    }
+  }
+
+  /**
+   * The postings of one term: the courses containing it, ordered by id, with the weighted term
+   * frequency and weighted length of each course.
+   */
+  private static final class Postings {
+    private final int[] courseIds;
+    private final float[] frequencies;
+    private final float[] lengths;
+
+    private Postings(int[] courseIds, float[] frequencies, float[] lengths) {
+      this.courseIds = courseIds;
+      this.frequencies = frequencies;
+      this.lengths = lengths;
+    }
+
+    private Postings without(int courseId) {
+      int index = Arrays.binarySearch(this.courseIds, courseId);
+      if (index < 0) {
+        return this;
+      }
+      int size = this.courseIds.length - 1;
+      if (size == 0) {
+        return null;
+      }
+      int[] ids = new int[size];
+      float[] freqs = new float[size];
+      float[] lens = new float[size];
+      System.arraycopy(this.courseIds, 0, ids, 0, index);
+      System.arraycopy(this.frequencies, 0, freqs, 0, index);
+      System.arraycopy(this.lengths, 0, lens, 0, index);
+      System.arraycopy(this.courseIds, index + 1, ids, index, size - index);
+      System.arraycopy(this.frequencies, index + 1, freqs, index, size - index);
+      System.arraycopy(this.lengths, index + 1, lens, index, size - index);
+      return new Postings(ids, freqs, lens);
+    }
+
+    private Postings with(int courseId, float frequency, float length) {
+      int index = -Arrays.binarySearch(this.courseIds, courseId) - 1;
+      int size = this.courseIds.length + 1;
+      int[] ids = new int[size];
+      float[] freqs = new float[size];
+      float[] lens = new float[size];
+      System.arraycopy(this.courseIds, 0, ids, 0, index);
+      System.arraycopy(this.frequencies, 0, freqs, 0, index);
+      System.arraycopy(this.lengths, 0, lens, 0, index);
+      ids[index] = courseId;
+      freqs[index] = frequency;
+      lens[index] = length;
+      System.arraycopy(this.courseIds, index, ids, index + 1, size - index - 1);
+      System.arraycopy(this.frequencies, index, freqs, index + 1, size - index - 1);
+      System.arraycopy(this.lengths, index, lens, index + 1, size - index - 1);
+      return new Postings(ids, freqs, lens);
+    }
+  }
+
+  /**
+   * The weighted terms of one course.
+   */
+  private static final class Document {
+    private final int courseId;
+    private final Map<String, Float> frequencies = new HashMap<>();
+    private float length;
+
+    private Document(Course course) {
+      this.courseId = course.getId();
+      this.add(course.getTitle(), TITLE_WEIGHT);
+      this.add(course.getKeywords(), KEYWORDS_WEIGHT);
+      this.add(course.getRelatedCertifications(), CERTIFICATIONS_WEIGHT);
+      this.add(course.getDescription(), DESCRIPTION_WEIGHT);
+    }
+
+    private void add(String text, float weight) {
+      for (String token : TextTokenizer.tokenize(text)) {
+        this.frequencies.merge(token, weight, Float::sum);
+        this.length += weight;
+      }
+    }
+  }
+
+  /**
+   * An immutable version of the index.
+   */
+  private static final class IndexState {
+    private final Map<String, Postings> postings;
+    private final Map<Integer, Float> documentLengths;
+    private final Map<Integer, Set<String>> documentTerms;
+    private final double totalLength;
+
+    private IndexState(Map<String, Postings> postings, Map<Integer, Set<String>> documentTerms,
+                       Map<Integer, Float> documentLengths, double totalLength) {
+      this.postings = postings;
+      this.documentTerms = documentTerms;
+      this.documentLengths = documentLengths;
+      this.totalLength = totalLength;
+    }
+
+    /**
+     * Builds the index for all visible courses in the given list, which is ordered by id.
+     */
+    private static IndexState build(List<Course> courses) {
+      Map<String, List<Document>> documentsByTerm = new HashMap<>();
+      Map<Integer, Set<String>> documentTerms = new HashMap<>();
+      Map<Integer, Float> documentLengths = new HashMap<>();
+      double totalLength = 0;
+      for (Course course : courses) {
+        if (!course.getIsVisible()) {
+          continue;
+        }
+        Document document = new Document(course);
+        for (String term : document.frequencies.keySet()) {
+          documentsByTerm.computeIfAbsent(term, t -> new ArrayList<>()).add(document);
+        }
+        documentTerms.put(document.courseId, Set.copyOf(document.frequencies.keySet()));
+        documentLengths.put(document.courseId, document.length);
+        totalLength += document.length;
+      }
+
+      Map<String, Postings> postings = new HashMap<>();
+      for (Map.Entry<String, List<Document>> entry : documentsByTerm.entrySet()) {
+        List<Document> documents = entry.getValue();
+        int[] ids = new int[documents.size()];
+        float[] freqs = new float[documents.size()];
+        float[] lens = new float[documents.size()];
+        for (int i = 0; i < documents.size(); i++) {
+          Document document = documents.get(i);
+          ids[i] = document.courseId;
+          freqs[i] = document.frequencies.get(entry.getKey());
+          lens[i] = document.length;
+        }
+        postings.put(entry.getKey(), new Postings(ids, freqs, lens));
+      }
+      return new IndexState(Collections.unmodifiableMap(postings),
+          Collections.unmodifiableMap(documentTerms),
+          Collections.unmodifiableMap(documentLengths), totalLength);
+    }
+
+    /**
+     * Creates a new version of the index where the given courses are removed, and the visible
+     * ones among the changed courses are added back.
+     */
+    private IndexState update(Set<Integer> removedIds, Collection<Course> changed) {
+      Map<String, Postings> newPostings = new HashMap<>(this.postings);
+      Map<Integer, Set<String>> newTerms = new HashMap<>(this.documentTerms);
+      Map<Integer, Float> newLengths = new HashMap<>(this.documentLengths);
+      double newTotal = this.totalLength;
+
+      for (int courseId : removedIds) {
+        Set<String> terms = newTerms.remove(courseId);
+        if (terms == null) {
+          continue;
+        }
+        newTotal -= newLengths.remove(courseId);
+        for (String term : terms) {
+          Postings remaining = newPostings.get(term).without(courseId);
+          if (remaining == null) {
+            newPostings.remove(term);
+          } else {
+            newPostings.put(term, remaining);
+          }
+        }
+      }
+
+      for (Course course : changed) {
+        if (!course.getIsVisible()) {
+          continue;
+        }
+        Document document = new Document(course);
+        for (Map.Entry<String, Float> entry : document.frequencies.entrySet()) {
+          Postings existing = newPostings.get(entry.getKey());
+          if (existing == null) {
+            existing = new Postings(new int[0], new float[0], new float[0]);
+          }
+          newPostings.put(entry.getKey(),
+              existing.with(document.courseId, entry.getValue(), document.length));
+        }
+        newTerms.put(document.courseId, Set.copyOf(document.frequencies.keySet()));
+        newLengths.put(document.courseId, document.length);
+        newTotal += document.length;
+      }
+      return new IndexState(Collections.unmodifiableMap(newPostings),
+          Collections.unmodifiableMap(newTerms), Collections.unmodifiableMap(newLengths),
+          newTotal);
+    }
+  }
+}
@@ -0,0 +1,598 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Precomputed "similar courses" of every visible course, by cosine similarity of TF-IDF vectors.
+ * <p>The title, keywords and description of each course are turned into a TF-IDF vector, and
+ * the most similar courses of each course are found in parallel on a fork/join pool, through a
+ * temporary inverted index so only courses sharing a term are compared. The neighbours are kept
+ * in one compact table of primitive arrays, so a lookup is a binary search and a copy.</p>
+ * <p>The work runs on a background thread after each catalog change, so neither requests nor
+ * catalog updates wait for it, and the table may briefly lag behind the catalog. Only the
+ * changed courses, and the courses that had one of them as a neighbour, are computed again.
+ * Term weights of unchanged courses are kept until a full rebuild, which happens on a full
+ * catalog reload and once a tenth of the courses have changed since the last one.</p>
+ */
+@Service
+public class CourseSimilarityIndex {
+  /**
+   * The number of similar courses kept for each course.
+   */
+  public static final int NEIGHBOURS = 20;
+
+  private static final Logger logger = LoggerFactory.getLogger(CourseSimilarityIndex.class);
+  private static final float TITLE_WEIGHT = 3f;
+  private static final float KEYWORDS_WEIGHT = 2f;
+  private static final float DESCRIPTION_WEIGHT = 1f;
+  // Terms found in more than this share of the courses, such as "and", are left out of the
+  // comparison, since they add little but would make every course a candidate for every other
+  private static final double COMMON_TERM_SHARE = 0.2;
+  private static final int COMMON_TERM_MIN_COURSES = 50;
+  private static final double REBUILD_SHARE = 0.1;
+  private static final int MIN_TARGETS_PER_TASK = 32;
+
+  private final CourseCatalogService catalogService;
+  private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "course-similarity");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final ForkJoinPool pool = new ForkJoinPool();
+  private final Object pendingLock = new Object();
+  private Set<Integer> pendingIds = new HashSet<>();
+  private boolean pendingFullReload;
+  private boolean jobScheduled;
+  private volatile SimilarityState state = SimilarityState.build(List.of(), null);
+
+  /**
+   * Creates a new CourseSimilarityIndex.
+   *
+   * @param catalogService the service holding the in-memory course catalog
+   */
+  public CourseSimilarityIndex(CourseCatalogService catalogService) {
+    this.catalogService = catalogService;
+  }
+
+  /**
+   * Schedules the courses of a catalog change to be computed again in the background. Changes
+   * arriving while a computation runs are collected and computed together afterwards.
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    synchronized (this.pendingLock) {
+      if (event.isFullReload()) {
+        this.pendingFullReload = true;
+        this.pendingIds.clear();
+      } else if (!this.pendingFullReload) {
+        this.pendingIds.addAll(event.getChangedCourseIds());
+      }
+      if (!this.jobScheduled) {
+        this.jobScheduled = true;
+        this.jobExecutor.execute(this::runPendingJobs);
+      }
+    }
+  }
+
+  /**
+   * Finds the courses most similar to a course.
+   *
+   * @param courseId the id of the course
+   * @param limit    the maximum number of courses to return, at most {@link #NEIGHBOURS}
+   * @return the ids of the similar visible courses, most similar first, empty if the course is
+   *         not visible or has not been computed yet
+   */
+  public int[] findSimilarCourseIds(int courseId, int limit) {
+    this.catalogService.ensureLoaded();
+    return this.state.table.find(courseId, limit);
+  }
+
+  /**
+   * Stops the background computations.
+   */
+  @PreDestroy
+  public void shutdown() {
+    this.jobExecutor.shutdownNow();
+    this.pool.shutdownNow();
+  }
+
+  private void runPendingJobs() {
+    while (true) {
+      boolean fullReload;
+      Set<Integer> changedIds;
+      synchronized (this.pendingLock) {
+        if (!this.pendingFullReload && this.pendingIds.isEmpty()) {
+          this.jobScheduled = false;
+          return;
+        }
+        fullReload = this.pendingFullReload;
+        changedIds = this.pendingIds;
+        this.pendingFullReload = false;
+        this.pendingIds = new HashSet<>();
+      }
+      try {
+        long start = System.nanoTime();
+        CatalogSnapshot snapshot = this.catalogService.getSnapshot();
+        SimilarityState current = this.state;
+        boolean rebuild = fullReload || current.needsRebuild(changedIds.size());
+        if (rebuild) {
+          this.state = SimilarityState.build(snapshot.getCourses(), this.pool);
+        } else {
+          this.state = current.update(changedIds, snapshot, this.pool);
+        }
+        logger.info("Computed similar courses for {} in {} ms",
+            rebuild ? "all courses" : changedIds.size() + " changed courses",
+            (System.nanoTime() - start) / 1_000_000);
+      } catch (RuntimeException e) {
+        logger.error("Could not compute similar courses", e);
+      }
+    }
+  }
+
+  /**
+   * Counts the weighted occurrences of each term in the text of a course.
+   */
+  private static Map<String, Float> countTerms(Course course) {
+    Map<String, Float> frequencies = new HashMap<>();
+    addTerms(frequencies, course.getTitle(), TITLE_WEIGHT);
+    addTerms(frequencies, course.getKeywords(), KEYWORDS_WEIGHT);
+    addTerms(frequencies, course.getDescription(), DESCRIPTION_WEIGHT);
+    return frequencies;
+  }
+
+  private static void addTerms(Map<String, Float> frequencies, String text, float weight) {
+    for (String token : TextTokenizer.tokenize(text)) {
+      frequencies.merge(token, weight, Float::sum);
+    }
+  }
+
+  /**
+   * A unit-length TF-IDF vector, with the term ids in ascending order.
+   */
+  private static final class Vector {
+    private final int[] terms;
+    private final float[] weights;
+
+    private Vector(int[] terms, float[] weights) {
+      this.terms = terms;
+      this.weights = weights;
+    }
+
+    /**
+     * Weighs the term counts of a course with sublinear term frequency and smoothed inverse
+     * document frequency, and scales the result to unit length.
+     */
+    private static Vector of(Map<String, Float> frequencies, Map<String, Integer> termIds,
+                             int[] documentFrequencies, int documents) {
+      long[] entries = new long[frequencies.size()];
+      int n = 0;
+      double squares = 0;
+      for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+        int term = termIds.get(entry.getKey());
+        double idf = Math.log((1.0 + documents) / (1.0 + documentFrequencies[term])) + 1;
+        float weight = (float) ((1 + Math.log(entry.getValue())) * idf);
+        squares += (double) weight * weight;
+        // Packs the term id and the positive weight, so sorting orders the entries by term
+        entries[n++] = ((long) term << 32) | (Float.floatToIntBits(weight) & 0xffffffffL);
+      }
+      Arrays.sort(entries);
+      float norm = (float) Math.sqrt(squares);
+      int[] terms = new int[n];
+      float[] weights = new float[n];
+      for (int i = 0; i < n; i++) {
+        terms[i] = (int) (entries[i] >>> 32);
+        weights[i] = Float.intBitsToFloat((int) entries[i]) / norm;
+      }
+      return new Vector(terms, weights);
+    }
+  }
+
+  /**
+   * The similar courses of every course, as one table of primitive arrays. The neighbours of
+   * the course at {@code courseIds[i]} are stored from {@code offsets[i]} to
+   * {@code offsets[i + 1]}, most similar first.
+   */
+  private static final class NeighbourTable {
+    private final int[] courseIds;
+    private final int[] offsets;
+    private final int[] neighbourIds;
+    private final float[] scores;
+
+    private NeighbourTable(int[] courseIds, int[][] rowIds, float[][] rowScores) {
+      this.courseIds = courseIds;
+      this.offsets = new int[courseIds.length + 1];
+      for (int i = 0; i < courseIds.length; i++) {
+        this.offsets[i + 1] = this.offsets[i] + rowIds[i].length;
+      }
+      this.neighbourIds = new int[this.offsets[courseIds.length]];
+      this.scores = new float[this.offsets[courseIds.length]];
+      for (int i = 0; i < courseIds.length; i++) {
+        System.arraycopy(rowIds[i], 0, this.neighbourIds, this.offsets[i], rowIds[i].length);
+        System.arraycopy(rowScores[i], 0, this.scores, this.offsets[i], rowScores[i].length);
+      }
+    }
+
+    private int row(int courseId) {
+      return Arrays.binarySearch(this.courseIds, courseId);
+    }
+
+    private int[] find(int courseId, int limit) {
+      int row = this.row(courseId);
+      if (row < 0) {
+        return new int[0];
+      }
+      int start = this.offsets[row];
+      return Arrays.copyOfRange(this.neighbourIds, start,
+          Math.min(this.offsets[row + 1], start + limit));
+    }
+
+    private int[] rowIds(int row) {
+      return Arrays.copyOfRange(this.neighbourIds, this.offsets[row], this.offsets[row + 1]);
+    }
+
+    private float[] rowScores(int row) {
+      return Arrays.copyOfRange(this.scores, this.offsets[row], this.offsets[row + 1]);
+    }
+
+    /**
+     * Gets the lowest score a course must beat to become a neighbour of the given row.
+     */
+    private float threshold(int row) {
+      int end = this.offsets[row + 1];
+      return end - this.offsets[row] < NEIGHBOURS ? 0f : this.scores[end - 1];
+    }
+
+    private boolean references(int row, Set<Integer> courseIds) {
+      for (int i = this.offsets[row]; i < this.offsets[row + 1]; i++) {
+        if (courseIds.contains(this.neighbourIds[i])) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * An immutable version of the index.
+   */
+  private static final class SimilarityState {
+    private final Map<String, Integer> termIds;
+    private final int[] documentFrequencies;
+    private final Map<Integer, Vector> vectors;
+    private final NeighbourTable table;
+    private final int changesSinceBuild;
+
+    private SimilarityState(Map<String, Integer> termIds, int[] documentFrequencies,
+                            Map<Integer, Vector> vectors, NeighbourTable table,
+                            int changesSinceBuild) {
+      this.termIds = termIds;
+      this.documentFrequencies = documentFrequencies;
+      this.vectors = vectors;
+      this.table = table;
+      this.changesSinceBuild = changesSinceBuild;
+    }
+
+    /**
+     * Builds the index for all visible courses in the given list.
+     */
+    private static SimilarityState build(Collection<Course> catalog, ForkJoinPool pool) {
+      Map<String, Integer> termIds = new HashMap<>();
+      Map<Integer, Map<String, Float>> frequencies = new HashMap<>();
+      List<Integer> documentFrequencies = new ArrayList<>();
+      for (Course course : catalog) {
+        if (course.getIsVisible()) {
+          Map<String, Float> terms = countTerms(course);
+          frequencies.put(course.getId(), terms);
+          for (String term : terms.keySet()) {
+            int termId = termIds.computeIfAbsent(term, t -> termIds.size());
+            if (termId == documentFrequencies.size()) {
+              documentFrequencies.add(0);
+            }
+            documentFrequencies.set(termId, documentFrequencies.get(termId) + 1);
+          }
+        }
+      }
+      int[] counts = documentFrequencies.stream().mapToInt(Integer::intValue).toArray();
+      Map<Integer, Vector> vectors = new HashMap<>();
+      for (Map.Entry<Integer, Map<String, Float>> entry : frequencies.entrySet()) {
+        vectors.put(entry.getKey(),
+            Vector.of(entry.getValue(), termIds, counts, frequencies.size()));
+      }
+
+      Corpus corpus = new Corpus(vectors, counts, termIds.size());
+      int[][] rowIds = new int[corpus.courseIds.length][];
+      float[][] rowScores = new float[corpus.courseIds.length][];
+      int[] targets = new int[corpus.courseIds.length];
+      Arrays.setAll(targets, i -> i);
+      if (targets.length > 0) {
+        pool.invoke(new NeighbourTask(corpus, targets, 0, targets.length, rowIds, rowScores,
+            null, null));
+      }
+      return new SimilarityState(termIds, counts, vectors,
+          new NeighbourTable(corpus.courseIds, rowIds, rowScores), 0);
+    }
+
+    private boolean needsRebuild(int changes) {
+      return this.changesSinceBuild + changes > this.vectors.size() * REBUILD_SHARE;
+    }
+
+    /**
+     * Creates a copy of this index where the given courses are vectorized and computed again.
+     * <p>The courses that had a changed course as a neighbour are computed again as well. Every
+     * other course keeps its neighbours, except that a changed course which is now more similar
+     * than its last neighbour takes that place.</p>
+     */
+    private SimilarityState update(Set<Integer> changedIds, CatalogSnapshot snapshot,
+                                   ForkJoinPool pool) {
+      Map<String, Integer> newTermIds = new HashMap<>(this.termIds);
+      Map<Integer, Vector> newVectors = new HashMap<>(this.vectors);
+      int[] counts = Arrays.copyOf(this.documentFrequencies, this.documentFrequencies.length);
+      for (int courseId : changedIds) {
+        Vector old = newVectors.remove(courseId);
+        if (old != null) {
+          for (int term : old.terms) {
+            counts[term]--;
+          }
+        }
+      }
+      Map<Integer, Map<String, Float>> frequencies = new HashMap<>();
+      for (int courseId : changedIds) {
+        Course course = snapshot.getCourse(courseId);
+        if (course == null || !course.getIsVisible()) {
+          continue;
+        }
+        Map<String, Float> terms = countTerms(course);
+        frequencies.put(courseId, terms);
+        for (String term : terms.keySet()) {
+          int termId = newTermIds.computeIfAbsent(term, t -> newTermIds.size());
+          if (termId >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(termId + 1, counts.length * 2));
+          }
+          counts[termId]++;
+        }
+      }
+      int documents = newVectors.size() + frequencies.size();
+      for (Map.Entry<Integer, Map<String, Float>> entry : frequencies.entrySet()) {
+        newVectors.put(entry.getKey(), Vector.of(entry.getValue(), newTermIds, counts, documents));
+      }
+
+      Corpus corpus = new Corpus(newVectors, counts, newTermIds.size());
+      int size = corpus.courseIds.length;
+      int[][] rowIds = new int[size][];
+      float[][] rowScores = new float[size][];
+      float[] thresholds = new float[size];
+      boolean[] computed = new boolean[size];
+      List<Integer> targets = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        int courseId = corpus.courseIds[i];
+        int oldRow = this.table.row(courseId);
+        if (changedIds.contains(courseId) || oldRow < 0
+            || this.table.references(oldRow, changedIds)) {
+          computed[i] = true;
+          targets.add(i);
+        } else {
+          rowIds[i] = this.table.rowIds(oldRow);
+          rowScores[i] = this.table.rowScores(oldRow);
+          thresholds[i] = this.table.threshold(oldRow);
+        }
+      }
+      if (!targets.isEmpty()) {
+        int[] targetArray = targets.stream().mapToInt(Integer::intValue).toArray();
+        // Collects the changed courses that beat the last neighbour of a course kept as is
+        List<long[]> entrants = new ArrayList<>();
+        pool.invoke(new NeighbourTask(corpus, targetArray, 0, targetArray.length, rowIds,
+            rowScores, thresholds, (target, other, score) -> {
+              if (!computed[other] && changedIds.contains(corpus.courseIds[target])) {
+                synchronized (entrants) {
+                  entrants.add(new long[] {other, target, Float.floatToIntBits(score)});
+                }
+              }
+            }));
+        for (long[] entrant : entrants) {
+          int row = (int) entrant[0];
+          int[] ids = rowIds[row];
+          float[] scores = rowScores[row];
+          TopNeighbours top = new TopNeighbours(NEIGHBOURS);
+          for (int i = 0; i < ids.length; i++) {
+            top.offer(ids[i], scores[i]);
+          }
+          top.offer(corpus.courseIds[(int) entrant[1]], Float.intBitsToFloat((int) entrant[2]));
+          rowIds[row] = top.ids();
+          rowScores[row] = top.scores();
+        }
+      }
+      return new SimilarityState(newTermIds, counts, newVectors,
+          new NeighbourTable(corpus.courseIds, rowIds, rowScores),
+          this.changesSinceBuild + changedIds.size());
+    }
+  }
+
+  /**
+   * The vectors of all indexed courses by position, with a temporary inverted index used to
+   * find the courses sharing a term.
+   */
+  private static final class Corpus {
+    private final int[] courseIds;
+    private final Vector[] vectors;
+    // The positions of the courses with each term, and the weight of the term in each of them
+    private final int[][] postings;
+    private final float[][] postingWeights;
+
+    private Corpus(Map<Integer, Vector> vectorsById, int[] documentFrequencies, int terms) {
+      this.courseIds = vectorsById.keySet().stream().mapToInt(Integer::intValue).sorted()
+          .toArray();
+      this.vectors = new Vector[this.courseIds.length];
+      int commonTerm = Math.max(COMMON_TERM_MIN_COURSES,
+          (int) (this.courseIds.length * COMMON_TERM_SHARE));
+      int[] lengths = new int[terms];
+      for (int i = 0; i < this.courseIds.length; i++) {
+        this.vectors[i] = vectorsById.get(this.courseIds[i]);
+        for (int term : this.vectors[i].terms) {
+          lengths[term]++;
+        }
+      }
+      this.postings = new int[terms][];
+      this.postingWeights = new float[terms][];
+      for (int term = 0; term < terms; term++) {
+        // Common terms and terms of a single course never make courses similar
+        boolean useful = lengths[term] > 1 && documentFrequencies[term] <= commonTerm;
+        this.postings[term] = new int[useful ? lengths[term] : 0];
+        this.postingWeights[term] = new float[useful ? lengths[term] : 0];
+        lengths[term] = 0;
+      }
+      for (int i = 0; i < this.vectors.length; i++) {
+        Vector vector = this.vectors[i];
+        for (int j = 0; j < vector.terms.length; j++) {
+          int term = vector.terms[j];
+          if (this.postings[term].length > 0) {
+            this.postings[term][lengths[term]] = i;
+            this.postingWeights[term][lengths[term]++] = vector.weights[j];
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Receives the similarity of a computed course to another course, when it beats the
+   * threshold of the other course.
+   */
+  @FunctionalInterface
+  private interface ScoreListener {
+    void accept(int target, int other, float score);
+  }
+
+  /**
+   * Computes the neighbours of a range of target courses, splitting the range in two while it
+   * is large enough to share between the pool threads.
+   */
+  private static final class NeighbourTask extends RecursiveAction {
+    private final Corpus corpus;
+    private final int[] targets;
+    private final int from;
+    private final int to;
+    private final int[][] rowIds;
+    private final float[][] rowScores;
+    private final float[] thresholds;
+    private final ScoreListener listener;
+
+    private NeighbourTask(Corpus corpus, int[] targets, int from, int to, int[][] rowIds,
+                          float[][] rowScores, float[] thresholds, ScoreListener listener) {
+      this.corpus = corpus;
+      this.targets = targets;
+      this.from = from;
+      this.to = to;
+      this.rowIds = rowIds;
+      this.rowScores = rowScores;
+      this.thresholds = thresholds;
+      this.listener = listener;
+    }
+
+    @Override
+    protected void compute() {
+      int leafSize = Math.max(MIN_TARGETS_PER_TASK,
+          this.targets.length / (getPool().getParallelism() * 8));
+      if (this.to - this.from > leafSize) {
+        int middle = (this.from + this.to) >>> 1;
+        invokeAll(
+            new NeighbourTask(this.corpus, this.targets, this.from, middle, this.rowIds,
+                this.rowScores, this.thresholds, this.listener),
+            new NeighbourTask(this.corpus, this.targets, middle, this.to, this.rowIds,
+                this.rowScores, this.thresholds, this.listener));
+        return;
+      }
+      // One accumulator per leaf, reset after each target by the list of touched positions
+      float[] dots = new float[this.corpus.courseIds.length];
+      int[] touched = new int[this.corpus.courseIds.length];
+      for (int t = this.from; t < this.to; t++) {
+        int target = this.targets[t];
+        Vector vector = this.corpus.vectors[target];
+        int count = 0;
+        for (int j = 0; j < vector.terms.length; j++) {
+          int[] positions = this.corpus.postings[vector.terms[j]];
+          float[] weights = this.corpus.postingWeights[vector.terms[j]];
+          float weight = vector.weights[j];
+          for (int k = 0; k < positions.length; k++) {
+            int other = positions[k];
+            if (other != target) {
+              if (dots[other] == 0f) {
+                touched[count++] = other;
+              }
+              dots[other] += weight * weights[k];
+            }
+          }
+        }
+        TopNeighbours top = new TopNeighbours(NEIGHBOURS);
+        for (int i = 0; i < count; i++) {
+          int other = touched[i];
+          float score = dots[other];
+          dots[other] = 0f;
+          top.offer(this.corpus.courseIds[other], score);
+          if (this.listener != null && score > this.thresholds[other]) {
+            this.listener.accept(target, other, score);
+          }
+        }
+        this.rowIds[target] = top.ids();
+        this.rowScores[target] = top.scores();
+      }
+    }
+  }
+
+  /**
+   * Keeps the highest scoring courses offered, ordered by score and then by id.
+   */
+  private static final class TopNeighbours {
+    private final int[] ids;
+    private final float[] scores;
+    private int size;
+
+    private TopNeighbours(int capacity) {
+      this.ids = new int[capacity];
+      this.scores = new float[capacity];
+    }
+
+    private void offer(int id, float score) {
+      int position = this.size;
+      while (position > 0 && (this.scores[position - 1] < score
+          || (this.scores[position - 1] == score && this.ids[position - 1] > id))) {
+        position--;
+      }
+      if (position == this.ids.length) {
+        return;
+      }
+      int moved = Math.min(this.size, this.ids.length - 1) - position;
+      System.arraycopy(this.ids, position, this.ids, position + 1, moved);
+      System.arraycopy(this.scores, position, this.scores, position + 1, moved);
+      this.ids[position] = id;
+      this.scores[position] = score;
+      this.size = Math.min(this.size + 1, this.ids.length);
+    }
+
+    private int[] ids() {
+      return Arrays.copyOf(this.ids, this.size);
+    }
+
+    private float[] scores() {
+      return Arrays.copyOf(this.scores, this.size);
+    }
+  }
+}
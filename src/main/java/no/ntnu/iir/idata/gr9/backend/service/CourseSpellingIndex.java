@@ -0,0 +1,268 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory character trigram index over the words of the titles and keywords of the visible
+ * courses, for correcting misspelled searches.
+ * <p>Each word is padded as {@code $word$} and split into trigrams. A misspelled word is looked
+ * up by counting how many trigrams the known words share with it, and the words sharing
+ * enough trigrams are checked with a bounded edit distance. The index is immutable and rebuilt
+ * on every catalog change.</p>
+ */
+@Service
+public class CourseSpellingIndex {
+  /**
+   * The maximum number of alternative queries suggested for a search.
+   */
+  public static final int MAX_ALTERNATIVES = 3;
+
+  private static final int CANDIDATES_PER_WORD = 3;
+
+  private final CourseCatalogService catalogService;
+  private volatile SpellingState state = SpellingState.build(List.of());
+
+  /**
+   * Creates a new CourseSpellingIndex.
+   *
+   * @param catalogService the service holding the in-memory course catalog
+   */
+  public CourseSpellingIndex(CourseCatalogService catalogService) {
+    this.catalogService = catalogService;
+  }
+
+  /**
+   * Rebuilds the index when a new catalog snapshot has been swapped in.
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    this.state = SpellingState.build(event.getSnapshot().getCourses());
+  }
+
+  /**
+   * Finds known words within a small edit distance of the given word, one edit for words of up
+   * to four letters and two edits for longer words.
+   *
+   * @param word  the possibly misspelled word, in lowercase
+   * @param limit the maximum number of words to return
+   * @return the closest known words, fewest edits and then most common first
+   */
+  public List<String> findSimilarWords(String word, int limit) {
+    this.catalogService.ensureLoaded();
+    return this.state.findSimilar(word, limit);
+  }
+
+  /**
+   * Suggests alternative queries for a search, replacing the words that are not used by any
+   * visible course with the closest known words.
+   *
+   * @param query the free-text query
+   * @return up to {@link #MAX_ALTERNATIVES} alternative queries, best first, or an empty list
+   *     if no better query was found
+   */
+  public List<String> suggestAlternatives(String query) {
+    this.catalogService.ensureLoaded();
+    SpellingState current = this.state;
+    List<String> words = TextTokenizer.tokenize(query);
+    List<List<String>> candidates = new ArrayList<>(words.size());
+    boolean corrected = false;
+    for (String word : words) {
+      List<String> similar = current.wordFrequencies.containsKey(word)
+          ? List.of() : current.findSimilar(word, CANDIDATES_PER_WORD);
+      if (similar.isEmpty()) {
+        candidates.add(List.of(word));
+      } else {
+        candidates.add(similar);
+        corrected = true;
+      }
+    }
+    if (!corrected) {
+      return List.of();
+    }
+
+    // The best correction of every word first, then the runners-up for one word at a time
+    Set<String> alternatives = new LinkedHashSet<>();
+    alternatives.add(join(candidates, -1, 0));
+    for (int rank = 1; rank < CANDIDATES_PER_WORD; rank++) {
+      for (int index = 0; index < candidates.size(); index++) {
+        if (rank < candidates.get(index).size() && alternatives.size() < MAX_ALTERNATIVES) {
+          alternatives.add(join(candidates, index, rank));
+        }
+      }
+    }
+    return new ArrayList<>(alternatives);
+  }
+
+  /**
+   * Joins the best candidate of each word, using the candidate at the given rank for the word
+   * at the given index.
+   */
+  private static String join(List<List<String>> candidates, int index, int rank) {
+    List<String> words = new ArrayList<>(candidates.size());
+    for (int i = 0; i < candidates.size(); i++) {
+      words.add(candidates.get(i).get(i == index ? rank : 0));
+    }
+    return String.join(" ", words);
+  }
+
+  /**
+   * Splits a word into the trigrams of {@code $word$}.
+   */
+  private static Set<String> trigrams(String word) {
+    String padded = "$" + word + "$";
+    Set<String> trigrams = new HashSet<>();
+    for (int i = 0; i + 3 <= padded.length(); i++) {
+      trigrams.add(padded.substring(i, i + 3));
+    }
+    return trigrams;
+  }
+
+  /**
+   * Computes the edit distance between two words, counting insertions, deletions,
+   * substitutions and swaps of two neighbouring letters as one edit each. Gives up once the
+   * distance exceeds the bound.
+   *
+   * @return the distance, or {@code bound + 1} if it is larger than the bound
+   */
+  static int editDistance(String first, String second, int bound) {
+    if (Math.abs(first.length() - second.length()) > bound) {
+      return bound + 1;
+    }
+    int[] beforePrevious = new int[second.length() + 1];
+    int[] previous = new int[second.length() + 1];
+    int[] current = new int[second.length() + 1];
+    for (int j = 0; j <= second.length(); j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= first.length(); i++) {
+      current[0] = i;
+      int rowMinimum = current[0];
+      for (int j = 1; j <= second.length(); j++) {
+        int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+        current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1),
+            previous[j - 1] + cost);
+        if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2)
+            && first.charAt(i - 2) == second.charAt(j - 1)) {
+          current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+        }
+        rowMinimum = Math.min(rowMinimum, current[j]);
+      }
+      if (rowMinimum > bound) {
+        return bound + 1;
+      }
+      int[] reused = beforePrevious;
+      beforePrevious = previous;
+      previous = current;
+      current = reused;
+    }
+    return Math.min(previous[second.length()], bound + 1);
+  }
+
+  /**
+   * An immutable version of the index.
+   */
+  private static final class SpellingState {
+    private final String[] words;
+    private final int[] frequencies;
+    private final Map<String, Integer> wordFrequencies;
+    private final Map<String, int[]> postings;
+
+    private SpellingState(String[] words, int[] frequencies, Map<String, int[]> postings) {
+      this.words = words;
+      this.frequencies = frequencies;
+      this.postings = postings;
+      this.wordFrequencies = new HashMap<>();
+      for (int i = 0; i < words.length; i++) {
+        this.wordFrequencies.put(words[i], frequencies[i]);
+      }
+    }
+
+    /**
+     * Builds the index from the titles and keywords of the visible courses.
+     */
+    private static SpellingState build(Collection<Course> courses) {
+      Map<String, Integer> counts = new HashMap<>();
+      for (Course course : courses) {
+        if (!course.getIsVisible()) {
+          continue;
+        }
+        Set<String> courseWords = new HashSet<>(TextTokenizer.tokenize(course.getTitle()));
+        courseWords.addAll(TextTokenizer.tokenize(course.getKeywords()));
+        for (String word : courseWords) {
+          counts.merge(word, 1, Integer::sum);
+        }
+      }
+
+      String[] words = counts.keySet().toArray(new String[0]);
+      int[] frequencies = new int[words.length];
+      Map<String, List<Integer>> wordsByTrigram = new HashMap<>();
+      for (int id = 0; id < words.length; id++) {
+        frequencies[id] = counts.get(words[id]);
+        for (String trigram : trigrams(words[id])) {
+          wordsByTrigram.computeIfAbsent(trigram, t -> new ArrayList<>()).add(id);
+        }
+      }
+      Map<String, int[]> postings = new HashMap<>();
+      for (Map.Entry<String, List<Integer>> entry : wordsByTrigram.entrySet()) {
+        postings.put(entry.getKey(),
+            entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+      }
+      return new SpellingState(words, frequencies, postings);
+    }
+
+    private List<String> findSimilar(String word, int limit) {
+      if (word.isEmpty() || limit <= 0) {
+        return List.of();
+      }
+      int bound = word.length() <= 4 ? 1 : 2;
+      Set<String> queryTrigrams = trigrams(word);
+      // An insertion, deletion or substitution changes at most three trigrams, and swapping two
+      // adjacent letters at most four, but at least one must be shared
+      int minimumShared = Math.max(1, queryTrigrams.size() - 4 * bound);
+
+      Map<Integer, Integer> shared = new HashMap<>();
+      for (String trigram : queryTrigrams) {
+        int[] ids = this.postings.get(trigram);
+        if (ids != null) {
+          for (int id : ids) {
+            shared.merge(id, 1, Integer::sum);
+          }
+        }
+      }
+
+      List<int[]> matches = new ArrayList<>();
+      for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+        int id = entry.getKey();
+        if (entry.getValue() < minimumShared || this.words[id].equals(word)) {
+          continue;
+        }
+        int distance = editDistance(word, this.words[id], bound);
+        if (distance <= bound) {
+          matches.add(new int[] {id, distance});
+        }
+      }
+      matches.sort(Comparator.comparingInt((int[] match) -> match[1])
+          .thenComparingInt(match -> -this.frequencies[match[0]])
+          .thenComparing(match -> this.words[match[0]]));
+
+      List<String> similar = new ArrayList<>(Math.min(limit, matches.size()));
+      for (int i = 0; i < matches.size() && similar.size() < limit; i++) {
+        similar.add(this.words[matches.get(i)[0]]);
+      }
+      return similar;
+    }
+  }
+}
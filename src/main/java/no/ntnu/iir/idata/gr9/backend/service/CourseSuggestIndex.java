@@ -0,0 +1,251 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSuggestion;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory prefix index for suggesting visible courses while the user types.
+ * <p>Every word-suffix of each title, for example {@code "java programming"} and
+ * {@code "programming"}, and every keyword is stored in a compressed trie. Each node keeps the
+ * most popular courses below it, so a lookup only walks the prefix and never has to collect or
+ * sort matches. The courses are ranked by {@link CoursePopularityRanking}, so the trie is
+ * immutable and rebuilt both on every catalog change and every time a new ranking is swapped
+ * in.</p>
+ */
+@Service
+public class CourseSuggestIndex {
+  /**
+   * The maximum number of suggestions returned for a prefix.
+   */
+  public static final int MAX_SUGGESTIONS = 10;
+
+  private final CourseCatalogService catalogService;
+  private final CoursePopularityRanking popularityRanking;
+  private volatile SuggestState state =
+      SuggestState.build(List.of(), Comparator.comparingInt(Course::getId));
+
+  /**
+   * Creates a new CourseSuggestIndex.
+   *
+   * @param catalogService    the service holding the in-memory course catalog
+   * @param popularityRanking the ranking the suggestions are ordered by
+   */
+  public CourseSuggestIndex(CourseCatalogService catalogService,
+                            CoursePopularityRanking popularityRanking) {
+    this.catalogService = catalogService;
+    this.popularityRanking = popularityRanking;
+  }
+
+  /**
+   * Rebuilds the trie when a new catalog snapshot has been swapped in.
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+    this.state = SuggestState.build(event.getSnapshot().getCourses(),
+        this.popularityRanking.getComparator());
+  }
+
+  /**
+   * Rebuilds the trie when a new popularity ranking has been swapped in.
+   * <p>Both rebuilds hold the lock of this index, so a trie built from an older snapshot never
+   * replaces one built from a newer snapshot.</p>
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public void onPopularityChanged(PopularityRankingChangedEvent event) {
+    // Loads the catalog first, as loading it takes the catalog lock and calls the other listener
+    this.catalogService.ensureLoaded();
+    synchronized (this) {
+      this.state = SuggestState.build(this.catalogService.getSnapshot().getCourses(),
+          this.popularityRanking.getComparator());
+    }
+  }
+
+  /**
+   * Suggests the most popular visible courses with a title word or keyword starting with the
+   * given prefix. A prefix of several words matches consecutive words of a title.
+   *
+   * @param prefix the text typed so far
+   * @param limit  the maximum number of suggestions, at most {@link #MAX_SUGGESTIONS}
+   * @return the suggested courses, most popular first
+   */
+  public List<CourseSuggestion> suggest(String prefix, int limit) {
+    this.catalogService.ensureLoaded();
+    SuggestState current = this.state;
+    int[] ranks = current.lookup(String.join(" ", TextTokenizer.tokenize(prefix)));
+    int count = Math.min(ranks.length, limit);
+    List<CourseSuggestion> suggestions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Course course = current.ranked[ranks[i]];
+      suggestions.add(new CourseSuggestion(course.getId(), course.getTitle()));
+    }
+    return suggestions;
+  }
+
+  /**
+   * A node of the compressed trie. The edge label leads from the parent to this node.
+   */
+  private static final class Node {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final String edge;
+    private final char[] firstChars;
+    private final Node[] children;
+    private final int[] top;
+
+    private Node(String edge, char[] firstChars, Node[] children, int[] top) {
+      this.edge = edge;
+      this.firstChars = firstChars;
+      this.children = children;
+      this.top = top;
+    }
+
+    private Node child(char first) {
+      int index = Arrays.binarySearch(this.firstChars, first);
+      return index < 0 ? null : this.children[index];
+    }
+  }
+
+  /**
+   * A trie node while the trie is being built.
+   */
+  private static final class BuildNode {
+    private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+    // Ranks of the courses with a term ending here, ascending as courses are added in rank order
+    private int[] ranks = new int[0];
+
+    private void insert(String term, int rank) {
+      BuildNode node = this;
+      for (int i = 0; i < term.length(); i++) {
+        node = node.children.computeIfAbsent(term.charAt(i), c -> new BuildNode());
+      }
+      int size = node.ranks.length;
+      if (size == 0 || node.ranks[size - 1] != rank) {
+        if (size < MAX_SUGGESTIONS) {
+          node.ranks = Arrays.copyOf(node.ranks, size + 1);
+          node.ranks[size] = rank;
+        }
+      }
+    }
+
+    /**
+     * Freezes this node, merging chains of nodes with a single child and no courses of their
+     * own into one edge. The root, which has an empty edge, is never merged.
+     */
+    private Node freeze(String edge) {
+      BuildNode node = this;
+      StringBuilder label = new StringBuilder(edge);
+      while (!edge.isEmpty() && node.children.size() == 1 && node.ranks.length == 0) {
+        Map.Entry<Character, BuildNode> only = node.children.firstEntry();
+        label.append(only.getKey());
+        node = only.getValue();
+      }
+
+      char[] firstChars = new char[node.children.size()];
+      Node[] children = firstChars.length == 0 ? Node.NO_CHILDREN : new Node[firstChars.length];
+      int[] top = node.ranks;
+      int index = 0;
+      for (Map.Entry<Character, BuildNode> entry : node.children.entrySet()) {
+        Node child = entry.getValue().freeze(String.valueOf(entry.getKey()));
+        firstChars[index] = entry.getKey();
+        children[index] = child;
+        top = mergeTop(top, child.top);
+        index++;
+      }
+      return new Node(label.toString(), firstChars, children, top);
+    }
+
+    /**
+     * Merges two ascending rank arrays without duplicates, keeping the best ranks.
+     */
+    private static int[] mergeTop(int[] first, int[] second) {
+      int[] merged = new int[Math.min(first.length + second.length, MAX_SUGGESTIONS)];
+      int size = 0;
+      int i = 0;
+      int j = 0;
+      while (size < merged.length && (i < first.length || j < second.length)) {
+        int next;
+        if (j >= second.length || (i < first.length && first[i] <= second[j])) {
+          next = first[i++];
+        } else {
+          next = second[j++];
+        }
+        if (size == 0 || merged[size - 1] != next) {
+          merged[size++] = next;
+        }
+      }
+      return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+  }
+
+  /**
+   * An immutable version of the index.
+   */
+  private static final class SuggestState {
+    private final Course[] ranked;
+    private final Node root;
+
+    private SuggestState(Course[] ranked, Node root) {
+      this.ranked = ranked;
+      this.root = root;
+    }
+
+    /**
+     * Builds the trie for all visible courses, ranked by the given comparator.
+     */
+    private static SuggestState build(Collection<Course> courses, Comparator<Course> ranking) {
+      Course[] ranked = courses.stream()
+          .filter(Course::getIsVisible)
+          .sorted(ranking)
+          .toArray(Course[]::new);
+
+      BuildNode root = new BuildNode();
+      for (int rank = 0; rank < ranked.length; rank++) {
+        List<String> words = TextTokenizer.tokenize(ranked[rank].getTitle());
+        for (int start = 0; start < words.size(); start++) {
+          root.insert(String.join(" ", words.subList(start, words.size())), rank);
+        }
+        for (String keyword : TextTokenizer.tokenize(ranked[rank].getKeywords())) {
+          root.insert(keyword, rank);
+        }
+      }
+      return new SuggestState(ranked, root.freeze(""));
+    }
+
+    /**
+     * Finds the ranks of the most popular courses with a term starting with the prefix.
+     */
+    private int[] lookup(String prefix) {
+      if (prefix.isEmpty()) {
+        return new int[0];
+      }
+      Node node = this.root;
+      int position = 0;
+      while (position < prefix.length()) {
+        Node child = node.child(prefix.charAt(position));
+        if (child == null) {
+          return new int[0];
+        }
+        int end = Math.min(child.edge.length(), prefix.length() - position);
+        if (!child.edge.regionMatches(0, prefix, position, end)) {
+          return new int[0];
+        }
+        position += end;
+        node = child;
+      }
+      return node.top;
+    }
+  }
+}
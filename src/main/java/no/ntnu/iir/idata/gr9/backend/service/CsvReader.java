@@ -0,0 +1,99 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma-separated values one record at a time, as described in RFC 4180.
+ * <p>Fields may be quoted with double quotes, in which case they can hold commas, line breaks
+ * and doubled quotes. Only the current record is held in memory.</p>
+ */
+final class CsvReader {
+  private final Reader reader;
+  private long line = 1;
+  private long recordLine;
+  private int next = -2;
+
+  /**
+   * Creates a new CsvReader.
+   *
+   * @param reader the reader to read from, preferably buffered
+   */
+  CsvReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Reads the next record.
+   *
+   * @return the fields of the record, or {@code null} at the end of the input
+   * @throws IOException if reading fails or a quoted field is not closed
+   */
+  List<String> readRecord() throws IOException {
+    int c = this.peek();
+    if (c == -1) {
+      return null;
+    }
+    this.recordLine = this.line;
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    while (true) {
+      c = this.read();
+      if (quoted) {
+        if (c == -1) {
+          throw new IOException("Unclosed quote in record starting on line " + this.recordLine);
+        }
+        if (c == '"') {
+          if (this.peek() == '"') {
+            field.append((char) this.read());
+          } else {
+            quoted = false;
+          }
+        } else {
+          field.append((char) c);
+        }
+      } else if (c == '"' && field.isEmpty()) {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\r' || c == '\n' || c == -1) {
+        if (c == '\r' && this.peek() == '\n') {
+          this.read();
+        }
+        fields.add(field.toString());
+        return fields;
+      } else {
+        field.append((char) c);
+      }
+    }
+  }
+
+  /**
+   * Gets the line the last record read started on.
+   *
+   * @return the line number, starting from 1
+   */
+  long getRecordLine() {
+    return this.recordLine;
+  }
+
+  private int peek() throws IOException {
+    if (this.next == -2) {
+      this.next = this.reader.read();
+    }
+    return this.next;
+  }
+
+  private int read() throws IOException {
+    int c = this.peek();
+    this.next = -2;
+    if (c == '\n') {
+      this.line++;
+    }
+    return c;
+  }
+}
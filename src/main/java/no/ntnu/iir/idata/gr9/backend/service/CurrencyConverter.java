@@ -0,0 +1,95 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import no.ntnu.iir.idata.gr9.backend.entity.CurrencyRate;
+import no.ntnu.iir.idata.gr9.backend.repository.CurrencyRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Converts provider prices to the base currency, using the rates of the currency_rate table.
+ * <p>The rates are cached in memory and only read again when {@link #reload()} is called, which
+ * the course catalog does on a full reload and whenever a rate changes. Prices are converted
+ * once, when the catalog loads a course, so requests never convert prices themselves.</p>
+ */
+@Service
+public class CurrencyConverter {
+  private static final Logger logger = LoggerFactory.getLogger(CurrencyConverter.class);
+
+  private final CurrencyRateRepository currencyRateRepository;
+  private final String baseCurrency;
+  private volatile Map<String, Double> rates;
+
+  /**
+   * Creates a new CurrencyConverter.
+   *
+   * @param currencyRateRepository the repository for managing currency rates
+   * @param baseCurrency           the currency all prices are converted to
+   */
+  public CurrencyConverter(CurrencyRateRepository currencyRateRepository,
+                           @Value("${currency.base:NOK}") String baseCurrency) {
+    this.currencyRateRepository = currencyRateRepository;
+    this.baseCurrency = normalize(baseCurrency);
+  }
+
+  /**
+   * Reads all rates from the database again.
+   */
+  public void reload() {
+    Map<String, Double> loaded = new TreeMap<>();
+    for (CurrencyRate rate : this.currencyRateRepository.findAll()) {
+      if (rate.getRate() > 0) {
+        loaded.put(normalize(rate.getCurrency()), rate.getRate());
+      } else {
+        logger.warn("Ignoring non-positive rate {} for {}", rate.getRate(), rate.getCurrency());
+      }
+    }
+    loaded.put(this.baseCurrency, 1.0);
+    this.rates = Collections.unmodifiableMap(loaded);
+    logger.info("Loaded {} currency rates to {}", loaded.size(), this.baseCurrency);
+  }
+
+  /**
+   * Gets the currency all prices are converted to.
+   *
+   * @return the code of the base currency
+   */
+  public String getBaseCurrency() {
+    return this.baseCurrency;
+  }
+
+  /**
+   * Gets the cached rates.
+   *
+   * @return the value of one unit of each currency in the base currency, by currency code
+   */
+  public Map<String, Double> getRates() {
+    if (this.rates == null) {
+      this.reload();
+    }
+    return this.rates;
+  }
+
+  /**
+   * Converts an amount to the base currency.
+   * <p>Amounts in a currency without a rate are assumed to already be in the base currency, so
+   * prices stay comparable the way they were before rates were added.</p>
+   *
+   * @param amount   the amount to convert
+   * @param currency the currency of the amount
+   * @return the amount in the base currency
+   */
+  public double toBase(double amount, String currency) {
+    Double rate = this.getRates().get(normalize(currency));
+    return rate == null ? amount : amount * rate;
+  }
+
+  private static String normalize(String currency) {
+    return currency == null ? "" : currency.trim().toUpperCase(Locale.ROOT);
+  }
+}
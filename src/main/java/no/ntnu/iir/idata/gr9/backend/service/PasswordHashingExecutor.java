@@ -0,0 +1,152 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs password hashing and verification on a small pool of dedicated threads.
+ * <p>BCrypt is deliberately slow, so a burst of logins running on the request threads would
+ * take the processors from every other request. Here at most a fixed number of hashes run at
+ * once, a bounded number wait in a queue, and each operation may only hold a limited number of
+ * request threads. Anything beyond these limits is rejected right away with a
+ * {@link RejectedExecutionException}, which the controllers answer with 503, so the catalog
+ * endpoints keep their threads and latency while authentication is saturated.</p>
+ */
+@Service
+public class PasswordHashingExecutor {
+  /**
+   * The operations that hash or verify passwords, each with its own concurrency limit.
+   */
+  public enum Operation {
+    /**
+     * Verifying the password of a user logging in.
+     */
+    LOGIN,
+    /**
+     * Hashing the password of a new user.
+     */
+    REGISTER
+  }
+
+  /**
+   * The number of seconds rejected clients are asked to wait before trying again.
+   */
+  public static final String RETRY_AFTER_SECONDS = "1";
+
+  private static final Logger logger = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+  private final ThreadPoolExecutor executor;
+  private final Map<Operation, Semaphore> permits = new EnumMap<>(Operation.class);
+  private final Map<Operation, Counter> rejections = new EnumMap<>(Operation.class);
+
+  /**
+   * Creates a new PasswordHashingExecutor.
+   *
+   * @param threads       the number of hashing threads, or 0 for half the processors
+   * @param queueCapacity the number of hashes that may wait for a thread
+   * @param loginLimit    the number of logins that may run or wait at once
+   * @param registerLimit the number of registrations that may run or wait at once
+   * @param meterRegistry the registry to publish the executor metrics to
+   */
+  public PasswordHashingExecutor(@Value("${auth.hashing.threads:0}") int threads,
+                                 @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                                 @Value("${auth.hashing.login-limit:48}") int loginLimit,
+                                 @Value("${auth.hashing.register-limit:16}") int registerLimit,
+                                 MeterRegistry meterRegistry) {
+    int poolSize = threads > 0
+        ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+          Thread thread = new Thread(runnable,
+              "password-hashing-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    this.permits.put(Operation.LOGIN, new Semaphore(loginLimit));
+    this.permits.put(Operation.REGISTER, new Semaphore(registerLimit));
+    for (Operation operation : Operation.values()) {
+      this.rejections.put(operation, Counter.builder("auth.hashing.rejected")
+          .description("Password operations rejected because the limits were reached")
+          .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+          .register(meterRegistry));
+    }
+    Gauge.builder("auth.hashing.queue.size", this.executor, e -> e.getQueue().size())
+        .description("Password operations waiting for a hashing thread")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Runs a task that hashes or verifies a password on a hashing thread, and waits for it.
+   *
+   * @param operation the operation the task belongs to
+   * @param task      the task to run
+   * @param <T>       the type of the result
+   * @return the result of the task
+   * @throws RejectedExecutionException if the operation or the queue is at its limit
+   */
+  public <T> T execute(Operation operation, Callable<T> task) {
+    Semaphore operationPermits = this.permits.get(operation);
+    if (!operationPermits.tryAcquire()) {
+      throw this.reject(operation, "too many concurrent requests");
+    }
+    try {
+      Future<T> future;
+      try {
+        future = this.executor.submit(task);
+      } catch (RejectedExecutionException e) {
+        throw this.reject(operation, "the queue is full");
+      }
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        future.cancel(true);
+        Thread.currentThread().interrupt();
+        throw new RejectedExecutionException("Interrupted while waiting for a hashing thread", e);
+      } catch (ExecutionException e) {
+        // Rethrows what the task threw, such as BadCredentialsException, as it is
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        if (e.getCause() instanceof Error cause) {
+          throw cause;
+        }
+        throw new IllegalStateException(e.getCause());
+      }
+    } finally {
+      operationPermits.release();
+    }
+  }
+
+  /**
+   * Stops the hashing threads.
+   */
+  @PreDestroy
+  public void shutdown() {
+    this.executor.shutdownNow();
+  }
+
+  private RejectedExecutionException reject(Operation operation, String reason) {
+    this.rejections.get(operation).increment();
+    logger.warn("Rejected {} request: {}", operation, reason);
+    return new RejectedExecutionException("Rejected " + operation + " request: " + reason);
+  }
+}
@@ -0,0 +1,29 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+/**
+ * Published by {@link CoursePopularityRanking} every time a new ranking is swapped in.
+ * <p>Popularity is kept apart from the catalog, so this event is published instead of a
+ * {@link CatalogChangedEvent}, and only the indexes ranking courses by popularity listen for
+ * it.</p>
+ */
+public class PopularityRankingChangedEvent {
+  private final long version;
+
+  /**
+   * Creates a new event.
+   *
+   * @param version the version of the ranking that was swapped in
+   */
+  public PopularityRankingChangedEvent(long version) {
+    this.version = version;
+  }
+
+  /**
+   * Gets the version of the ranking that was swapped in.
+   *
+   * @return the ranking version
+   */
+  public long getVersion() {
+    return this.version;
+  }
+}
@@ -0,0 +1,39 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits free text into lowercase tokens for the in-memory course indexes.
+ * <p>A token is a run of letters or digits, so punctuation and whitespace separate tokens and
+ * letters such as æ, ø and å are kept.</p>
+ */
+public final class TextTokenizer {
+  private TextTokenizer() {
+  }
+
+  /**
+   * Splits the given text into lowercase tokens, in the order they appear.
+   *
+   * @param text the text to split, may be {@code null}
+   * @return the tokens of the text, empty if there are none
+   */
+  public static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    if (text == null) {
+      return tokens;
+    }
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean partOfToken = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (partOfToken && start < 0) {
+        start = i;
+      } else if (!partOfToken && start >= 0) {
+        tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        start = -1;
+      }
+    }
+    return tokens;
+  }
+}
@@ -0,0 +1,71 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import java.util.Set;
+import no.ntnu.iir.idata.gr9.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps track of the users whose tokens must no longer be accepted.
+ * <p>Requests are authenticated from the signed token alone, without loading the user, so a
+ * token stays valid until it expires even if its user is deactivated. To close that gap the
+ * usernames of the deactivated users are kept in memory and reloaded periodically, which bounds
+ * how long such a token keeps working by the refresh interval, while checking a token still
+ * needs no database query.</p>
+ * <p>Role changes are not tracked: a token keeps the roles it was issued with until it
+ * expires.</p>
+ */
+@Service
+public class TokenRevocationService {
+  private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+  private final UserRepository userRepository;
+  private volatile Set<String> inactiveUsernames;
+
+  /**
+   * Creates a new TokenRevocationService.
+   *
+   * @param userRepository the repository holding the users
+   */
+  public TokenRevocationService(UserRepository userRepository) {
+    this.userRepository = userRepository;
+  }
+
+  /**
+   * Checks whether the tokens of a user have been revoked.
+   *
+   * @param username the username the token was issued to
+   * @return {@code true} if the user has been deactivated, {@code false} otherwise
+   */
+  public boolean isRevoked(String username) {
+    Set<String> current = this.inactiveUsernames;
+    if (current == null) {
+      current = this.refresh();
+    }
+    return current.contains(username);
+  }
+
+  /**
+   * Reloads the usernames of the deactivated users.
+   * <p>If the users cannot be loaded, the previous usernames are kept until the next
+   * refresh.</p>
+   *
+   * @return the usernames of the deactivated users
+   */
+  @Scheduled(fixedDelayString = "${jwt.revocation-refresh-interval-ms:60000}",
+      initialDelayString = "${jwt.revocation-refresh-interval-ms:60000}")
+  public Set<String> refresh() {
+    try {
+      Set<String> loaded = Set.copyOf(this.userRepository.findInactiveUsernames());
+      this.inactiveUsernames = loaded;
+      return loaded;
+    } catch (DataAccessException e) {
+      logger.warn("Could not load the deactivated users: {}", e.getMessage());
+      Set<String> current = this.inactiveUsernames;
+      return current != null ? current : Set.of();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import java.util.HashSet;
+import java.util.Set;
+import no.ntnu.iir.idata.gr9.backend.entity.User;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that removes changed users from the {@link AccessUserCache}.
+ * <p>Any saved change counts, which covers changes to the password, the admin flag and the
+ * active status. The users are removed once the transaction has committed, and again if it
+ * rolls back, so the cache never holds details that were read before the change became
+ * visible.</p>
+ */
+@Component
+public class UserChangeListener {
+  // Looked up lazily, since entity listeners are created while JPA is being set up
+  private final ObjectProvider<AccessUserCache> userCache;
+
+  /**
+   * Creates a new UserChangeListener.
+   *
+   * @param userCache the cache of user details
+   */
+  public UserChangeListener(ObjectProvider<AccessUserCache> userCache) {
+    this.userCache = userCache;
+  }
+
+  /**
+   * Records that a user has been created, updated or deleted.
+   *
+   * @param user the changed user
+   */
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void onChange(User user) {
+    if (user.getUsername() == null) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      this.userCache.getObject().invalidate(user.getUsername());
+      return;
+    }
+    PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+    if (changes == null) {
+      changes = new PendingChanges();
+      TransactionSynchronizationManager.bindResource(this, changes);
+      TransactionSynchronizationManager.registerSynchronization(changes);
+    }
+    changes.usernames.add(user.getUsername());
+  }
+
+  /**
+   * The users changed by one transaction.
+   */
+  private final class PendingChanges implements TransactionSynchronization {
+    private final Set<String> usernames = new HashSet<>();
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(UserChangeListener.this);
+      AccessUserCache cache = userCache.getObject();
+      for (String username : this.usernames) {
+        cache.invalidate(username);
+      }
+    }
+  }
+}
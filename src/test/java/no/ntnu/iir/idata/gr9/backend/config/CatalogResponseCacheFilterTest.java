@@ -0,0 +1,63 @@
+package no.ntnu.iir.idata.gr9.backend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import no.ntnu.iir.idata.gr9.backend.service.CatalogResponseCache;
+import no.ntnu.iir.idata.gr9.backend.service.CatalogSnapshot;
+import no.ntnu.iir.idata.gr9.backend.service.CourseCatalogService;
+import no.ntnu.iir.idata.gr9.backend.service.CoursePopularityRanking;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
+
+/**
+ * Checks that the cache matches requests on their decoded path, as the dispatcher does.
+ */
+class CatalogResponseCacheFilterTest {
+  @Test
+  void encodedPathsAreExcludedLikeThePathsTheyAreRoutedTo() {
+    CatalogResponseCacheFilter filter = createFilter();
+
+    assertFalse(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/courses/1")));
+    assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/courses/export")));
+    assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/courses/%65xport")));
+    assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/courses/1/simil%61r")));
+    assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/courses/1/image;a=b")));
+  }
+
+  @Test
+  void encodedPathsShareTheEntryOfThePathTheyAreRoutedTo() throws Exception {
+    CatalogResponseCacheFilter filter = createFilter();
+    AtomicInteger handled = new AtomicInteger();
+
+    for (String path : new String[] {"/courses/1", "/courses/%31", "/courses//1"}) {
+      MockHttpServletResponse response = new MockHttpServletResponse();
+      filter.doFilter(new MockHttpServletRequest("GET", path), response, (req, res) -> {
+        handled.incrementAndGet();
+        res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        res.getOutputStream().write("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+      });
+      assertEquals(200, response.getStatus());
+      assertEquals("{\"id\":1}", response.getContentAsString());
+    }
+    assertEquals(1, handled.get());
+  }
+
+  private static CatalogResponseCacheFilter createFilter() {
+    CourseCatalogService catalogService = mock(CourseCatalogService.class);
+    when(catalogService.getSnapshot()).thenReturn(new CatalogSnapshot(1, List.of(), List.of()));
+    return new CatalogResponseCacheFilter(new CatalogResponseCache(new SimpleMeterRegistry()),
+        catalogService, mock(CoursePopularityRanking.class),
+        mock(HandlerMappingIntrospector.class));
+  }
+}
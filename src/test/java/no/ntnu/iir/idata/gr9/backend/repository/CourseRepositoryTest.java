@@ -0,0 +1,94 @@
+package no.ntnu.iir.idata.gr9.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseCursor;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSort;
+import no.ntnu.iir.idata.gr9.backend.entity.Category;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import no.ntnu.iir.idata.gr9.backend.entity.CourseProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+/**
+ * Checks that listing courses takes a fixed number of statements, no matter how many courses
+ * there are.
+ */
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CourseRepositoryTest {
+  @Autowired
+  private CourseRepository courseRepository;
+  @Autowired
+  private TestEntityManager entityManager;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Category category;
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 10, 50})
+  void listingCoursesUsesOneStatement(int courseCount) {
+    this.createCourses(courseCount);
+
+    assertEquals(1, this.countStatements(this.courseRepository::findAll));
+    assertEquals(1, this.countStatements(
+        () -> this.courseRepository.findByCategory(this.category)));
+    assertEquals(1, this.countStatements(this.courseRepository::findByIsVisibleTrue));
+    assertEquals(1, this.countStatements(
+        () -> this.courseRepository.findByDifficulty("Beginner")));
+    assertEquals(1, this.countStatements(() -> this.courseRepository.findByEcts(7.5)));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 10, 50})
+  void pagingCoursesUsesTwoStatements(int courseCount) {
+    this.createCourses(courseCount);
+
+    for (CourseSort sort : CourseSort.values()) {
+      if (sort.isCatalogOnly()) {
+        continue;
+      }
+      assertEquals(2, this.countStatements(() -> this.courseRepository.findPage(
+          CourseCursor.first(sort), true, this.category.getId(), 100)));
+    }
+  }
+
+  private void createCourses(int courseCount) {
+    this.category = this.entityManager.persist(new Category("Information Technologies"));
+    for (int id = 1; id <= courseCount; id++) {
+      Course course = new Course(id, "Course " + id, "Description", "Java", "Beginner",
+          LocalDate.of(2025, 1, 1), LocalDate.of(2025, 6, 1), 7.5, 10, "None", true,
+          this.category);
+      this.entityManager.persist(course);
+      this.entityManager.persist(new CourseProvider(0, "NTNU", 100, 0, "NOK", course));
+      this.entityManager.persist(new CourseProvider(0, "Coursera", 90, 10, "USD", course));
+    }
+    this.entityManager.flush();
+  }
+
+  /**
+   * Runs a lookup in an empty persistence context and touches every association that is
+   * serialized in the response, counting the statements sent to the database.
+   */
+  private long countStatements(Supplier<Iterable<Course>> lookup) {
+    this.entityManager.clear();
+    Statistics statistics =
+        this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    for (Course course : lookup.get()) {
+      course.getCategory().getName();
+      course.getProviders().size();
+    }
+    return statistics.getPrepareStatementCount();
+  }
+}
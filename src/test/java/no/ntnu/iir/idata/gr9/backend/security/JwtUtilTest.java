@@ -0,0 +1,115 @@
+package no.ntnu.iir.idata.gr9.backend.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that verified tokens are cached until they expire, and that verifying a token again
+ * from the cache is cheaper than verifying it the first time.
+ */
+class JwtUtilTest {
+  private static final String SECRET = "test-secret-key-that-is-long-enough-for-hmac-sha256";
+
+  @Test
+  void repeatedTokenIsAnsweredFromTheCache() {
+    JwtUtil jwtUtil = new JwtUtil(SECRET);
+    String token = jwtUtil.generateToken(new AccessUserDetails("ola", List.of("ADMIN")));
+
+    Claims claims = jwtUtil.parseToken(token);
+    assertSame(claims, jwtUtil.parseToken(token));
+    assertEquals("ola", claims.getSubject());
+    assertEquals(List.of("ADMIN"), jwtUtil.extractRoles(claims));
+
+    String tampered = token.substring(0, token.length() - 2)
+        + (token.endsWith("AA") ? "BB" : "AA");
+    assertThrows(JwtException.class, () -> jwtUtil.parseToken(tampered));
+    assertThrows(JwtException.class, () -> new JwtUtil(SECRET + "x").parseToken(token));
+  }
+
+  @Test
+  void expiredTokensAreVerifiedAgain() {
+    VerifiedTokenCache cache = new VerifiedTokenCache(2);
+    AtomicInteger verifications = new AtomicInteger();
+    long now = System.currentTimeMillis();
+
+    Claims expired = Jwts.claims().subject("ola").expiration(new Date(now - 1000)).build();
+    cache.getOrVerify("expired", token -> countAndReturn(verifications, expired));
+    cache.getOrVerify("expired", token -> countAndReturn(verifications, expired));
+    assertEquals(2, verifications.get());
+
+    Claims valid = Jwts.claims().subject("ola").expiration(new Date(now + 60_000)).build();
+    cache.getOrVerify("first", token -> countAndReturn(verifications, valid));
+    cache.getOrVerify("first", token -> countAndReturn(verifications, valid));
+    assertEquals(3, verifications.get());
+
+    // The cache is full after the second token, so the third is verified every time
+    cache.getOrVerify("second", token -> countAndReturn(verifications, valid));
+    cache.getOrVerify("third", token -> countAndReturn(verifications, valid));
+    cache.getOrVerify("third", token -> countAndReturn(verifications, valid));
+    assertEquals(6, verifications.get());
+    assertEquals(2, cache.size());
+  }
+
+  /**
+   * Checks that the median cost of verifying a token again from the cache is below the median
+   * cost of verifying a new token. Excluded from the default build, run with
+   * {@code mvn test -Pbenchmark}.
+   */
+  @Test
+  @Tag("benchmark")
+  void cachedVerificationIsCheaperThanColdVerification() {
+    JwtUtil jwtUtil = new JwtUtil(SECRET);
+    String[] warmUpTokens = generateTokens(jwtUtil, "warm-up", 5_000);
+    for (int round = 0; round < 3; round++) {
+      for (String token : warmUpTokens) {
+        jwtUtil.parseToken(token);
+      }
+    }
+
+    String[] tokens = generateTokens(jwtUtil, "user", 2_000);
+    long[] cold = new long[tokens.length];
+    for (int i = 0; i < tokens.length; i++) {
+      long start = System.nanoTime();
+      jwtUtil.parseToken(tokens[i]);
+      cold[i] = System.nanoTime() - start;
+    }
+    long[] warm = new long[tokens.length];
+    for (int i = 0; i < tokens.length; i++) {
+      long start = System.nanoTime();
+      jwtUtil.parseToken(tokens[i]);
+      warm[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(cold);
+    Arrays.sort(warm);
+    long coldMedian = cold[cold.length / 2];
+    long cachedMedian = warm[warm.length / 2];
+    assertTrue(cachedMedian < coldMedian, () -> String.format(
+        "Median verification took %d ns for new tokens and %d ns from the cache",
+        coldMedian, cachedMedian));
+  }
+
+  private static String[] generateTokens(JwtUtil jwtUtil, String prefix, int count) {
+    String[] tokens = new String[count];
+    for (int i = 0; i < count; i++) {
+      tokens[i] = jwtUtil.generateToken(new AccessUserDetails(prefix + i, List.of("USER")));
+    }
+    return tokens;
+  }
+
+  private static Claims countAndReturn(AtomicInteger verifications, Claims claims) {
+    verifications.incrementAndGet();
+    return claims;
+  }
+}
@@ -0,0 +1,187 @@
+package no.ntnu.iir.idata.gr9.backend.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Checks that clients are limited per address and per username, and that the limiter adds only
+ * microseconds to a request that is let through.
+ */
+class RateLimitFilterTest {
+  private static final long SECOND = 1_000_000_000L;
+
+  @Test
+  void bucketsRefillAtTheConfiguredRate() {
+    TokenBucketLimiter limiter = new TokenBucketLimiter(2, 60, 100);
+
+    assertEquals(0, limiter.tryAcquire("a", 0));
+    assertEquals(0, limiter.tryAcquire("a", 0));
+    assertEquals(SECOND, limiter.tryAcquire("a", 0), 10);
+    assertEquals(0, limiter.tryAcquire("b", 0));
+
+    // One token per second is refilled, up to the capacity of two
+    assertEquals(SECOND / 2, limiter.tryAcquire("a", SECOND / 2), 10);
+    assertEquals(0, limiter.tryAcquire("a", 2 * SECOND));
+    assertEquals(0, limiter.tryAcquire("a", 10 * SECOND));
+    assertEquals(0, limiter.tryAcquire("a", 10 * SECOND));
+    assertTrue(limiter.tryAcquire("a", 10 * SECOND) > 0);
+  }
+
+  @Test
+  void loginsAreLimitedPerAddressAndPerUsername() throws Exception {
+    RateLimitFilter filter = createFilter(2, 1);
+    AtomicReference<String> forwardedBody = new AtomicReference<>();
+
+    MockHttpServletResponse first = login(filter, "10.0.0.1", "Ola", forwardedBody);
+    assertEquals(200, first.getStatus());
+    assertEquals("{\"username\":\"Ola\",\"password\":\"secret\"}", forwardedBody.get());
+
+    // The username is limited regardless of the address and the case it is written in
+    forwardedBody.set(null);
+    MockHttpServletResponse second = login(filter, "10.0.0.2", "ola", forwardedBody);
+    assertEquals(429, second.getStatus());
+    assertEquals("60", second.getHeader("Retry-After"));
+    assertNull(forwardedBody.get());
+
+    // The address is limited regardless of the username
+    assertEquals(200, login(filter, "10.0.0.1", "kari", forwardedBody).getStatus());
+    assertEquals(429, login(filter, "10.0.0.1", "per", forwardedBody).getStatus());
+
+    // Other routes are not limited
+    MockHttpServletRequest courses = new MockHttpServletRequest("GET", "/courses");
+    courses.setRemoteAddr("10.0.0.1");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(courses, response, (req, res) -> forwardedBody.set("courses"));
+    assertEquals("courses", forwardedBody.get());
+  }
+
+  @Test
+  void encodedLoginPathsAreLimitedLikeTheLogin() throws Exception {
+    RateLimitFilter filter = createFilter(1, 1);
+    AtomicReference<String> forwardedBody = new AtomicReference<>();
+    assertEquals(200, login(filter, "10.0.0.1", "ola", forwardedBody).getStatus());
+
+    // The dispatcher decodes the path and routes it to the login, so it shares its buckets
+    for (String path : new String[] {"/users/%6Cogin", "/users//login", "/users/login;a=b"}) {
+      MockHttpServletRequest encoded = new MockHttpServletRequest("POST", path);
+      fillLogin(encoded, "10.0.0.1", "kari", "secret");
+      MockHttpServletResponse response = new MockHttpServletResponse();
+      forwardedBody.set(null);
+      filter.doFilter(encoded, response, (req, res) -> forwardedBody.set("login"));
+      assertEquals(429, response.getStatus(), path);
+      assertNull(forwardedBody.get());
+    }
+  }
+
+  @Test
+  void largeLoginBodiesAreNotBuffered() throws Exception {
+    RateLimitFilter filter = createFilter(10, 1);
+    AtomicReference<String> forwardedBody = new AtomicReference<>();
+    String password = "x".repeat(RateLimitFilter.MAX_LOGIN_BODY_BYTES);
+
+    // A declared length above the limit is rejected before the body is read
+    MockHttpServletRequest declared = new MockHttpServletRequest("POST", "/users/login");
+    fillLogin(declared, "10.0.0.1", "ola", password);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(declared, response, (req, res) -> forwardedBody.set("declared"));
+    assertEquals(413, response.getStatus());
+    assertNull(forwardedBody.get());
+
+    // Without a declared length the whole body is passed on, without a username limit
+    for (int i = 0; i < 2; i++) {
+      MockHttpServletRequest undeclared = new MockHttpServletRequest("POST", "/users/login") {
+        @Override
+        public long getContentLengthLong() {
+          return -1;
+        }
+      };
+      fillLogin(undeclared, "10.0.0.1", "ola", password);
+      response = new MockHttpServletResponse();
+      filter.doFilter(undeclared, response, (req, res) -> forwardedBody.set(
+          new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8)));
+      assertEquals(200, response.getStatus());
+      assertEquals("{\"username\":\"ola\",\"password\":\"" + password + "\"}",
+          forwardedBody.get());
+    }
+  }
+
+  /**
+   * Checks that the median cost of letting a login through the limiter, including reading its
+   * username, and of letting a registration through stays below 100 microseconds. Excluded from
+   * the default build, run with {@code mvn test -Pbenchmark}.
+   */
+  @Test
+  @Tag("benchmark")
+  void limiterAddsOnlyMicrosecondsToAllowedRequests() throws Exception {
+    RateLimitFilter filter = createFilter(1_000_000, 1_000_000);
+    AtomicReference<String> forwardedBody = new AtomicReference<>();
+    for (int i = 0; i < 20_000; i++) {
+      login(filter, "10.0." + (i % 200) + ".1", "warm-up" + (i % 500), forwardedBody);
+    }
+
+    int requests = 20_000;
+    long[] login = new long[requests];
+    long[] register = new long[requests];
+    for (int i = 0; i < requests; i++) {
+      MockHttpServletRequest request =
+          loginRequest("10.1." + (i % 200) + ".1", "user" + (i % 500));
+      MockHttpServletResponse response = new MockHttpServletResponse();
+      long start = System.nanoTime();
+      filter.doFilter(request, response, (req, res) -> req.getInputStream().readAllBytes());
+      login[i] = System.nanoTime() - start;
+
+      MockHttpServletRequest registration = new MockHttpServletRequest("POST", "/users/register");
+      registration.setRemoteAddr("10.2." + (i % 200) + ".1");
+      start = System.nanoTime();
+      filter.doFilter(registration, response, (req, res) -> { });
+      register[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(login);
+    Arrays.sort(register);
+    long loginMedian = login[requests / 2];
+    long registerMedian = register[requests / 2];
+    assertTrue(loginMedian < 100_000 && registerMedian < 100_000, () -> String.format(
+        "Median limiter cost was %d ns for logins and %d ns for registrations",
+        loginMedian, registerMedian));
+  }
+
+  private static RateLimitFilter createFilter(int addressCapacity, int usernameCapacity) {
+    return new RateLimitFilter(addressCapacity, 1, usernameCapacity, 1, addressCapacity, 1,
+        addressCapacity, 1, 10_000, new ObjectMapper(), new SimpleMeterRegistry());
+  }
+
+  private static MockHttpServletResponse login(RateLimitFilter filter, String address,
+                                               String username,
+                                               AtomicReference<String> forwardedBody)
+      throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(loginRequest(address, username), response, (req, res) -> forwardedBody.set(
+        new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8)));
+    return response;
+  }
+
+  private static MockHttpServletRequest loginRequest(String address, String username) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/users/login");
+    fillLogin(request, address, username, "secret");
+    return request;
+  }
+
+  private static void fillLogin(MockHttpServletRequest request, String address, String username,
+                                String password) {
+    request.setRemoteAddr(address);
+    request.setContentType("application/json");
+    String body = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+    request.setContent(body.getBytes(StandardCharsets.UTF_8));
+  }
+}
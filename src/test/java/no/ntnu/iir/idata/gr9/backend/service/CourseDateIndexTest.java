@@ -0,0 +1,134 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseCursor;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSort;
+import no.ntnu.iir.idata.gr9.backend.dto.DateMatch;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that an index updated with the changed courses only matches an index built from the
+ * whole catalog, and that both find the same courses as a scan of the catalog.
+ */
+class CourseDateIndexTest {
+  private static final int MAX_COURSE_ID = 300;
+  private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+
+  @Test
+  void incrementalUpdatesMatchAFullBuild() {
+    Random random = new Random(42);
+    Map<Integer, Course> courses = new TreeMap<>();
+    for (int id = 1; id <= MAX_COURSE_ID; id += 2) {
+      courses.put(id, createCourse(id, random));
+    }
+    CourseCatalogService catalogService = mock(CourseCatalogService.class);
+    CourseDateIndex updated = new CourseDateIndex(catalogService);
+    CatalogSnapshot snapshot = new CatalogSnapshot(1, courses.values(), List.of());
+    updated.onCatalogChanged(new CatalogChangedEvent(snapshot, null));
+
+    for (int version = 2; version <= 200; version++) {
+      // Adds, moves and removes a few courses, sometimes none
+      Set<Integer> changedIds = new HashSet<>();
+      int changes = random.nextInt(8);
+      for (int i = 0; i < changes; i++) {
+        int id = 1 + random.nextInt(MAX_COURSE_ID);
+        changedIds.add(id);
+        if (random.nextInt(4) == 0) {
+          courses.remove(id);
+        } else {
+          courses.put(id, createCourse(id, random));
+        }
+      }
+      snapshot = new CatalogSnapshot(version, courses.values(), List.of());
+      when(catalogService.getSnapshot()).thenReturn(snapshot);
+      updated.onCatalogChanged(new CatalogChangedEvent(snapshot, changedIds));
+      CourseDateIndex built = new CourseDateIndex(catalogService);
+      built.onCatalogChanged(new CatalogChangedEvent(snapshot, null));
+
+      for (int window = 0; window < 5; window++) {
+        // Windows ending before they start are rejected by the controller
+        int first = random.nextInt(120);
+        int last = first + random.nextInt(40);
+        LocalDate from = random.nextInt(5) == 0 ? null : day(first);
+        LocalDate to = random.nextInt(5) == 0 ? null : day(last);
+        for (DateMatch match : DateMatch.values()) {
+          int[] expected = scan(courses, from, to, match);
+          assertArrayEquals(expected, built.findCourseIds(from, to, match));
+          assertArrayEquals(expected, updated.findCourseIds(from, to, match),
+              match + " " + from + " to " + to);
+          assertEquals(listPages(built, from, to, match), listPages(updated, from, to, match));
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the courses matching a date window by checking every course.
+   */
+  private static int[] scan(Map<Integer, Course> courses, LocalDate from, LocalDate to,
+                            DateMatch match) {
+    return courses.values().stream()
+        .filter(course -> course.getStartDate() != null)
+        .filter(course -> {
+          LocalDate start = course.getStartDate();
+          LocalDate end = course.getEndDate() == null || course.getEndDate().isBefore(start)
+              ? start : course.getEndDate();
+          if (match == DateMatch.WITHIN) {
+            return (from == null || !start.isBefore(from)) && (to == null || !end.isAfter(to));
+          }
+          return (from == null || !end.isBefore(from)) && (to == null || !start.isAfter(to));
+        })
+        .mapToInt(Course::getId)
+        .toArray();
+  }
+
+  /**
+   * Lists the courses of a window ordered by start date, a few at a time, as a client paging
+   * through them does.
+   */
+  private static List<Integer> listPages(CourseDateIndex index, LocalDate from, LocalDate to,
+                                         DateMatch match) {
+    List<Integer> ids = new ArrayList<>();
+    CourseCursor cursor = CourseCursor.first(CourseSort.START_DATE);
+    List<Course> page;
+    do {
+      page = index.findPage(cursor, from, to, match, course -> true, 7);
+      for (Course course : page) {
+        ids.add(course.getId());
+      }
+      if (!page.isEmpty()) {
+        cursor = CourseCursor.after(CourseSort.START_DATE, page.get(page.size() - 1));
+      }
+    } while (page.size() == 7);
+    return ids;
+  }
+
+  /**
+   * Creates a course running for up to a month within a few months, sometimes without dates or
+   * without an end date.
+   */
+  private static Course createCourse(int id, Random random) {
+    LocalDate startDate = random.nextInt(10) == 0 ? null : day(random.nextInt(100));
+    LocalDate endDate = startDate == null || random.nextInt(10) == 0
+        ? null : startDate.plusDays(random.nextInt(30));
+    return new Course(id, "Course " + id, "", "", "Beginner", startDate, endDate, 7.5, 10, "",
+        true, null);
+  }
+
+  private static LocalDate day(int offset) {
+    return FIRST_DAY.plusDays(offset);
+  }
+}
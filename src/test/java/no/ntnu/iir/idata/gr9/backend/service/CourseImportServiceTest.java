@@ -0,0 +1,93 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import javax.sql.DataSource;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseImportError;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseImportResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Checks that CSV input is read as RFC 4180 describes, and that a course spread over several
+ * rows is imported with all of its providers or not at all.
+ */
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+class CourseImportServiceTest {
+  @Autowired
+  private DataSource dataSource;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void csvRecordsMayHoldQuotedFields() throws IOException {
+    CsvReader reader = new CsvReader(new StringReader(
+        "id,title\r\n1,\"Java, \"\"basics\"\"\"\n2,\"Two\nlines\"\n3,\n"));
+
+    assertEquals(List.of("id", "title"), reader.readRecord());
+    assertEquals(1, reader.getRecordLine());
+    assertEquals(List.of("1", "Java, \"basics\""), reader.readRecord());
+    assertEquals(2, reader.getRecordLine());
+    assertEquals(List.of("2", "Two\nlines"), reader.readRecord());
+    assertEquals(3, reader.getRecordLine());
+    assertEquals(List.of("3", ""), reader.readRecord());
+    assertEquals(5, reader.getRecordLine());
+    assertNull(reader.readRecord());
+
+    CsvReader unclosed = new CsvReader(new StringReader("1,\"Java\n"));
+    assertThrows(IOException.class, unclosed::readRecord);
+  }
+
+  @Test
+  void coursesAreImportedWithAllOfTheirProviders() throws IOException {
+    CourseImportService importService = new CourseImportService(this.dataSource,
+        this.transactionManager, new ObjectMapper(), mock(CourseCatalogService.class), 2, 2);
+
+    CourseImportResult result = importService.importCsv(csv(
+        "id,title,description,startDate,providerName,providerPrice\n"
+            + "1,\"Java, basics\",\"Says \"\"hi\"\"\non two lines\",2026-01-01,NTNU,100\n"
+            + "1,,,,UiO,200\n"
+            // The first row of this course cannot be read, so its other rows are skipped
+            + "2,Broken,,not-a-date,NTNU,50\n"
+            + "2,Broken,,2026-01-01,UiO,60\n"
+            + "3,Python,,2026-02-01,NTNU,70\n"
+            // A provider that cannot be read fails the whole course
+            + "4,Go,,2026-03-01,NTNU,80\n"
+            + "4,Go,,2026-03-01,UiO,free\n"));
+
+    assertEquals(2, result.getImported());
+    assertEquals(2, result.getFailed());
+    List<CourseImportError> errors = result.getErrors();
+    assertEquals(5, errors.get(0).getLine());
+    assertEquals(2, errors.get(0).getCourseId());
+    assertEquals(8, errors.get(1).getLine());
+    assertEquals(4, errors.get(1).getCourseId());
+
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+    assertEquals(List.of(1, 3),
+        jdbcTemplate.queryForList("SELECT id FROM course ORDER BY id", Integer.class));
+    assertEquals(List.of("Java, basics", "Says \"hi\"\non two lines"), jdbcTemplate.queryForObject(
+        "SELECT title, description FROM course WHERE id = 1",
+        (row, index) -> List.of(row.getString(1), row.getString(2))));
+    assertEquals(List.of("NTNU", "UiO"), jdbcTemplate.queryForList(
+        "SELECT name FROM course_provider WHERE course_id = 1 ORDER BY name", String.class));
+  }
+
+  private static ByteArrayInputStream csv(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
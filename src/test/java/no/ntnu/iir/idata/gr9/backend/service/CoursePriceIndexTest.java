@@ -0,0 +1,102 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseCursor;
+import no.ntnu.iir.idata.gr9.backend.dto.CourseSort;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import no.ntnu.iir.idata.gr9.backend.entity.CourseProvider;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that an index updated with the changed courses only matches an index built from the
+ * whole catalog.
+ */
+class CoursePriceIndexTest {
+  private static final int MAX_COURSE_ID = 300;
+
+  @Test
+  void incrementalUpdatesMatchAFullBuild() {
+    Random random = new Random(42);
+    Map<Integer, Course> courses = new TreeMap<>();
+    for (int id = 1; id <= MAX_COURSE_ID; id += 2) {
+      courses.put(id, createCourse(id, random));
+    }
+    CourseCatalogService catalogService = mock(CourseCatalogService.class);
+    CoursePriceIndex updated = new CoursePriceIndex(catalogService);
+    CatalogSnapshot snapshot = new CatalogSnapshot(1, courses.values(), List.of());
+    updated.onCatalogChanged(new CatalogChangedEvent(snapshot, null));
+
+    for (int version = 2; version <= 200; version++) {
+      // Adds, re-prices and removes a few courses, sometimes none
+      Set<Integer> changedIds = new HashSet<>();
+      int changes = random.nextInt(8);
+      for (int i = 0; i < changes; i++) {
+        int id = 1 + random.nextInt(MAX_COURSE_ID);
+        changedIds.add(id);
+        if (random.nextInt(4) == 0) {
+          courses.remove(id);
+        } else {
+          courses.put(id, createCourse(id, random));
+        }
+      }
+      snapshot = new CatalogSnapshot(version, courses.values(), List.of());
+      when(catalogService.getSnapshot()).thenReturn(snapshot);
+      updated.onCatalogChanged(new CatalogChangedEvent(snapshot, changedIds));
+      CoursePriceIndex built = new CoursePriceIndex(catalogService);
+      built.onCatalogChanged(new CatalogChangedEvent(snapshot, null));
+
+      for (int id = 1; id <= MAX_COURSE_ID; id++) {
+        assertEquals(built.getPrice(id), updated.getPrice(id), "price of course " + id);
+        assertEquals(built.isInRange(id, 100.0, 300.0), updated.isInRange(id, 100.0, 300.0));
+      }
+      assertEquals(listPages(built, null, null), listPages(updated, null, null));
+      assertEquals(listPages(built, 100.0, 300.0), listPages(updated, 100.0, 300.0));
+      assertEquals(listPages(built, null, 200.0), listPages(updated, null, 200.0));
+    }
+  }
+
+  /**
+   * Lists the courses ordered by price, a few at a time, as a client paging through them does.
+   */
+  private static List<Integer> listPages(CoursePriceIndex index, Double minPrice,
+                                         Double maxPrice) {
+    List<Integer> ids = new ArrayList<>();
+    CourseCursor cursor = CourseCursor.first(CourseSort.PRICE);
+    List<Course> page;
+    do {
+      page = index.findPage(cursor, false, null, minPrice, maxPrice, 7);
+      for (Course course : page) {
+        ids.add(course.getId());
+      }
+      if (!page.isEmpty()) {
+        cursor = CourseCursor.after(CourseSort.PRICE, page.get(page.size() - 1));
+      }
+    } while (page.size() == 7);
+    return ids;
+  }
+
+  /**
+   * Creates a course with up to three providers, with few distinct prices so that ties are
+   * common.
+   */
+  private static Course createCourse(int id, Random random) {
+    Course course = new Course(id, "Course " + id, "", "", "Beginner", null, null, 7.5, 10, "",
+        true, null);
+    int providers = random.nextInt(4);
+    for (int i = 0; i < providers; i++) {
+      course.addProvider(new CourseProvider(0, "Provider " + i, 50 * random.nextInt(8),
+          25 * random.nextInt(3), "NOK", course));
+    }
+    return course;
+  }
+}
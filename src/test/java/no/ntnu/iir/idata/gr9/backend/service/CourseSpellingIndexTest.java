@@ -0,0 +1,105 @@
+package no.ntnu.iir.idata.gr9.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import no.ntnu.iir.idata.gr9.backend.entity.Course;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the corrections of misspelled searches, and that the lookup latency grows slowly with
+ * the size of the catalog.
+ */
+class CourseSpellingIndexTest {
+  private static final String[] TOPICS = {"programming", "databases", "networking", "security",
+      "cloud", "java", "python", "kubernetes", "statistics", "algorithms"};
+
+  @Test
+  void suggestsClosestKnownWords() {
+    CourseSpellingIndex index = createIndex(List.of(
+        new Course(1, "Java Programming", "", "java oop", "Beginner", null, null, 7.5, 10, "",
+            true, null),
+        new Course(2, "Python Programming", "", "python", "Beginner", null, null, 7.5, 10, "",
+            true, null),
+        new Course(3, "Secret Course", "", "hidden", "Beginner", null, null, 7.5, 10, "",
+            false, null)));
+
+    assertEquals(List.of("java programming"), index.suggestAlternatives("jaav progamming"));
+    assertEquals(List.of("python"), index.suggestAlternatives("pyton"));
+    assertEquals(List.of(), index.suggestAlternatives("java"));
+    assertEquals(List.of(), index.suggestAlternatives("hiden"));
+    assertEquals(List.of(), index.suggestAlternatives("quantum"));
+  }
+
+  @Test
+  void suggestsWordsWithSwappedLetters() {
+    CourseSpellingIndex index = createIndex(List.of(
+        new Course(1, "Kubernetes Algorithms", "", "", "Beginner", null, null, 7.5, 10, "",
+            true, null)));
+
+    // Each swap changes four trigrams, so these share only two and three with the known words
+    assertEquals(List.of("kubernetes"), index.suggestAlternatives("kbuerentes"));
+    assertEquals(List.of("algorithms"), index.suggestAlternatives("lagorihtms"));
+  }
+
+  @Test
+  void boundsTheEditDistance() {
+    assertEquals(0, CourseSpellingIndex.editDistance("java", "java", 2));
+    assertEquals(1, CourseSpellingIndex.editDistance("jva", "java", 2));
+    assertEquals(1, CourseSpellingIndex.editDistance("jvaa", "java", 2));
+    assertEquals(2, CourseSpellingIndex.editDistance("jvaaa", "java", 2));
+    assertEquals(3, CourseSpellingIndex.editDistance("kotlin", "java", 2));
+  }
+
+  /**
+   * Checks that a catalog fifty times larger makes the median lookup at most ten times slower.
+   * Excluded from the default build, run with {@code mvn test -Pbenchmark}.
+   */
+  @Test
+  @Tag("benchmark")
+  void lookupLatencyGrowsSlowlyWithCatalogSize() {
+    long small = medianLookupNanos(1_000);
+    long large = medianLookupNanos(50_000);
+    assertTrue(large < 10 * small, () -> String.format(
+        "Median lookup took %d ns with 1,000 courses and %d ns with 50,000", small, large));
+  }
+
+  private static long medianLookupNanos(int courseCount) {
+    Random random = new Random(courseCount);
+    List<Course> courses = new ArrayList<>(courseCount);
+    for (int id = 1; id <= courseCount; id++) {
+      String topic = TOPICS[random.nextInt(TOPICS.length)];
+      String title = "Introduction to " + topic + " " + Integer.toString(id, 36);
+      courses.add(new Course(id, title, "", topic, "Beginner", null, null, 7.5, 10, "",
+          true, null));
+    }
+    CourseSpellingIndex index = createIndex(courses);
+
+    String[] queries = {"progamming", "kubernets", "pyhton", "statistcs", "algoritms"};
+    long[] latencies = new long[2_000];
+    for (int warmUp = 0; warmUp < latencies.length; warmUp++) {
+      index.suggestAlternatives(queries[warmUp % queries.length]);
+    }
+    for (int i = 0; i < latencies.length; i++) {
+      long start = System.nanoTime();
+      List<String> alternatives = index.suggestAlternatives(queries[i % queries.length]);
+      latencies[i] = System.nanoTime() - start;
+      assertTrue(!alternatives.isEmpty());
+    }
+    Arrays.sort(latencies);
+    return latencies[latencies.length / 2];
+  }
+
+  private static CourseSpellingIndex createIndex(List<Course> courses) {
+    CourseSpellingIndex index = new CourseSpellingIndex(mock(CourseCatalogService.class));
+    index.onCatalogChanged(
+        new CatalogChangedEvent(new CatalogSnapshot(1, courses, List.of()), null));
+    return index;
+  }
+}